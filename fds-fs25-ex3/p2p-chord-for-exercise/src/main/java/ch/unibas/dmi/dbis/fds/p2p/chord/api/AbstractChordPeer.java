@@ -1,11 +1,21 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircle;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircularInterval;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.LocationCache;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.MerkleTree;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.PeerStore;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.StoredKey;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Versioned;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 /**
  * TODO: write JavaDoc
@@ -14,7 +24,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class AbstractChordPeer implements ChordNode {
     /** Pointer to this {@link AbstractChordPeer}'s predecessor. */
-    private ChordNode predecessor = null;
+    private volatile ChordNode predecessor = null;
 
     /** The {@link ChordNetwork} this {@link AbstractChordPeer} belongs to. */
     private final ChordNetwork network;
@@ -22,8 +32,17 @@ public abstract class AbstractChordPeer implements ChordNode {
     /** The {@link Identifier} if this {@link AbstractChordPeer}. */
     private final Identifier identifier;
 
-    /** HashMap used for data storage. */
-    private final Map<String, String> storage = new ConcurrentHashMap<>();
+    /** Data storage, see {@link ChordNetwork#getStoreFactory()}. Closed while offline and reopened upon a join. */
+    private volatile PeerStore storage;
+
+    /** Copies of the data items of the predecessors, held if data is replicated. */
+    private volatile PeerStore replicas;
+
+    /** Whether the stores have been closed, see {@link #close()}. */
+    private boolean closed;
+
+    /** Number of replica reads in progress. */
+    private final AtomicInteger reads = new AtomicInteger();
 
     /** The {@link NodeStatus} of this {@link AbstractChordPeer}. */
     private volatile NodeStatus status = NodeStatus.OFFLINE;
@@ -31,6 +50,12 @@ public abstract class AbstractChordPeer implements ChordNode {
     /** Reference to the internal {@link FingerTable}. */
     protected ChordFingerTable fingerTable;
 
+    /** Cache of key ranges and their owners, used to resolve keys without routing. */
+    protected final LocationCache locationCache;
+
+    /** The successors following the immediate successor, as last learned from it. Replaced (never modified) upon update. */
+    private volatile ChordNode[] successors = new ChordNode[0];
+
     /**
      *
      * @param identifier
@@ -40,6 +65,35 @@ public abstract class AbstractChordPeer implements ChordNode {
         this.identifier = identifier;
         this.network = network;
         this.fingerTable = new ChordFingerTable();
+        this.openStores();
+        this.locationCache = new LocationCache(network.getLocationCacheSize());
+    }
+
+    /**
+     * Opens the stores of this {@link AbstractChordPeer}, named after its {@link Identifier}, such that a persistent
+     * store finds the data of an earlier incarnation again.
+     */
+    private void openStores() {
+        final PeerStore.Factory factory = this.network.getStoreFactory();
+        this.storage = factory.create(this.network.getIdentifierCircle(), this.identifier.toIndexString() + "-storage");
+        this.replicas = factory.create(this.network.getIdentifierCircle(), this.identifier.toIndexString() + "-replicas");
+        this.closed = false;
+    }
+
+    /**
+     * Closes the stores of this offline {@link AbstractChordPeer}, see {@link PeerStore#close()}. Done by {@link #leave()}
+     * and {@link #fail()}; a peer that is discarded without having joined must be closed by its owner. Joining again
+     * reopens the stores. Does nothing if they are closed already.
+     *
+     * @throws IllegalStateException If this peer is not offline.
+     */
+    public synchronized final void close() {
+        if (this.status != NodeStatus.OFFLINE) throw new IllegalStateException("This node is still part of a network.");
+        if (!this.closed) {
+            this.closed = true;
+            this.storage.close();
+            this.replicas.close();
+        }
     }
 
     /**
@@ -52,51 +106,552 @@ public abstract class AbstractChordPeer implements ChordNode {
     }
 
     /**
-     * Saves a a piece of data identified by the provided key in the local storage.
+     * Saves a a piece of data identified by the provided key in the local storage. Blocks until
+     * {@link #storeAsync(Node, String, String)} has completed.
      *
      * @param origin the node calling the method (purely for logging purposes). Null if it's the client (i.e., not a node in the network)
      * @param key    of data item
      * @param value  of data item
      */
     public void store(Node origin, String key, String value) {
-        final Node node = this.lookupNodeForItem(key);
-        if (node == this) {
-            this.storage.put(key,value);
-        } else {
-            node.store(this, key, value);
-        }
+        await(this.storeAsync(origin, key, value));
     }
 
     /**
-     * Retrieves a piece of data identified by the provided key from the local storage.
+     * Retrieves a piece of data identified by the provided key from the local storage. Blocks until
+     * {@link #lookupAsync(Node, String)} has completed.
      *
      * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
      * @param key    Key of data item
      * @return value of data item identified by the key.
      */
     public Optional<String> lookup(Node origin, String key) {
-        final Node node = this.lookupNodeForItem(key);
-        if (node == this) {
-            return Optional.ofNullable(this.storage.get(key));
-        } else {
-            return node.lookup(this, key);
-        }
+        return await(this.lookupAsync(origin, key));
     }
 
     /**
      * Removes a piece of data identified by the provided key from the local storage. The data deleted is returned by this method.
+     * Blocks until {@link #deleteAsync(Node, String)} has completed.
      *
      * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
      * @param key    Key of data item
      * @return Value of data item identified by the key.
      */
     public Optional<String> delete(Node origin, String key) {
-        final Node node = this.lookupNodeForItem(key);
-        if (node == this) {
-            return Optional.ofNullable(this.storage.remove(key));
+        return await(this.deleteAsync(origin, key));
+    }
+
+    /**
+     * Saves a a piece of data identified by the provided key, either in the local storage or by forwarding it to the
+     * responsible node.
+     *
+     * @param origin the node calling the method (purely for logging purposes). Null if it's the client (i.e., not a node in the network)
+     * @param key    of data item
+     * @param value  of data item
+     * @return Future completing once the data has been stored. Fails with an {@link IllegalStateException} if this peer is not online.
+     */
+    @Override
+    public CompletableFuture<Void> storeAsync(Node origin, String key, String value) {
+        return this.lookupNodeForItemAsync(key).thenCompose(node -> {
+            if (node == null) {
+                return CompletableFuture.failedFuture(this.unavailable());
+            } else if (node == this) {
+                return this.write(key, value).thenApply(previous -> null);
+            } else {
+                return node.storeAsync(this, key, value);
+            }
+        });
+    }
+
+    /**
+     * Retrieves a piece of data identified by the provided key, either from the local storage or from the responsible node.
+     * If data is replicated, the value is read from the replicas directly, see {@link #read(ChordNode, String)}.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param key    Key of data item
+     * @return Future of the value of data item identified by the key. Fails with an {@link IllegalStateException} if this peer is not online.
+     */
+    @Override
+    public CompletableFuture<Optional<String>> lookupAsync(Node origin, String key) {
+        return this.lookupNodeForItemAsync(key).thenCompose(node -> {
+            if (node == null) {
+                return CompletableFuture.failedFuture(this.unavailable());
+            } else if (this.network.getReplicationFactor() > 1) {
+                return this.read(node, key);
+            } else if (node == this) {
+                return CompletableFuture.completedFuture(Optional.ofNullable(this.storage.get(key)));
+            } else {
+                return node.lookupAsync(this, key);
+            }
+        });
+    }
+
+    /**
+     * Removes a piece of data identified by the provided key, either from the local storage or from the responsible node.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param key    Key of data item
+     * @return Future of the value of data item identified by the key. Fails with an {@link IllegalStateException} if this peer is not online.
+     */
+    @Override
+    public CompletableFuture<Optional<String>> deleteAsync(Node origin, String key) {
+        return this.lookupNodeForItemAsync(key).thenCompose(node -> {
+            if (node == null) {
+                return CompletableFuture.failedFuture(this.unavailable());
+            } else if (node == this) {
+                return this.write(key, null);
+            } else {
+                return node.deleteAsync(this, key);
+            }
+        });
+    }
+
+    /**
+     * Writes a data item this {@link AbstractChordPeer} is responsible for. If data is replicated, the item is written
+     * with a new version and copied to the next r-1 successors; the returned future completes once W replicas, including
+     * this one, have acknowledged the write.
+     *
+     * @param key Key of data item
+     * @param value Value of data item, null to delete it
+     * @return Future of the previous value of data item.
+     */
+    private CompletableFuture<Optional<String>> write(String key, String value) {
+        if (this.network.getReplicationFactor() == 1) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(value == null ? this.storage.remove(key) : this.storage.put(key, value)));
+        }
+        final StoredKey storedKey = this.storage.keyOf(key);
+        final Versioned replica = this.replicas.get(storedKey);
+        final Versioned previous = Versioned.newer(this.storage.get(storedKey), replica);
+        final Versioned written = this.storage.update(storedKey, value, replica == null ? 0 : replica.getVersion());
+
+        final List<ChordNode> targets = this.replicaSet(this);
+        final List<CompletableFuture<Void>> acks = new ArrayList<>(targets.size());
+        for (ChordNode target : targets.subList(1, targets.size())) {
+            acks.add(target.writeReplicaAsync(this, storedKey, written));
+        }
+        return quorum(acks, this.network.getWriteQuorum() - 1)
+            .thenApply(ignored -> Optional.ofNullable(previous == null ? null : previous.getValue()));
+    }
+
+    /**
+     * Reads a data item from its replicas directly: R replicas, chosen according to the {@link ReadStrategy}, must
+     * answer and the newest version among their answers is returned. Replicas that answered with an older version are
+     * repaired in the background.
+     *
+     * @param owner The {@link ChordNode} responsible for the data item.
+     * @param key Key of data item
+     * @return Future of the value of data item.
+     */
+    private CompletableFuture<Optional<String>> read(ChordNode owner, String key) {
+        final StoredKey storedKey = this.storage.keyOf(key);
+        final List<ChordNode> candidates = this.replicaSet(owner);
+        final int required = Math.min(this.network.getReadQuorum(), candidates.size());
+        final List<ChordNode> targets;
+        if (this.network.getReadStrategy() == ReadStrategy.LEAST_LOADED) {
+            final List<ChordNode> sorted = new ArrayList<>(candidates);
+            sorted.sort(Comparator.comparingInt(ChordNode::load));
+            targets = sorted.subList(0, required);
         } else {
-            return node.delete(this, key);
+            targets = candidates;
+        }
+
+        final List<CompletableFuture<Versioned>> answers = new ArrayList<>(targets.size());
+        for (ChordNode target : targets) {
+            answers.add(target.readReplicaAsync(this, storedKey));
+        }
+        return quorum(answers, required).thenApply(values -> {
+            Versioned newest = null;
+            for (Versioned value : values) {
+                newest = Versioned.newer(newest, value);
+            }
+            if (newest != null) {
+                final Versioned repair = newest;
+                for (int i = 0; i < targets.size(); i++) {
+                    final ChordNode target = targets.get(i);
+                    answers.get(i).thenAccept(value -> {
+                        if (value == null || value.getVersion() < repair.getVersion()) {
+                            target.writeReplicaAsync(this, storedKey, repair);
+                        }
+                    });
+                }
+            }
+            return Optional.ofNullable(newest == null ? null : newest.getValue());
+        });
+    }
+
+    /**
+     * Returns the replicas of the data items {@code owner} is responsible for: {@code owner} itself, followed by the
+     * live entries of its successor list, r in total at most.
+     *
+     * @param owner The {@link ChordNode} responsible for the data items.
+     * @return List of replicas, starting with {@code owner}.
+     */
+    private List<ChordNode> replicaSet(ChordNode owner) {
+        final int r = this.network.getReplicationFactor();
+        final List<ChordNode> set = new ArrayList<>(r);
+        set.add(owner);
+        for (ChordNode successor : owner.successorList()) {
+            if (set.size() == r) {
+                break;
+            }
+            if (successor != owner && successor.status() != NodeStatus.OFFLINE && !set.contains(successor)) {
+                set.add(successor);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns the newest version of the data item held by this {@link AbstractChordPeer}, as owner or as replica.
+     *
+     * @param key The key of the data item.
+     * @return Future of the {@link Versioned} value or of null, if this {@link AbstractChordPeer} holds none.
+     */
+    @Override
+    public CompletableFuture<Versioned> readReplicaAsync(ChordNode caller, StoredKey key) {
+        return CompletableFuture.completedFuture(Versioned.newer(this.storage.get(key), this.replicas.get(key)));
+    }
+
+    /**
+     * Stores a copy of a data item, unless a newer version is held already.
+     *
+     * @param key The key of the data item.
+     * @param value The {@link Versioned} value of the data item.
+     * @return Future completing once the copy has been stored.
+     */
+    @Override
+    public CompletableFuture<Void> writeReplicaAsync(ChordNode caller, StoredKey key, Versioned value) {
+        this.replicas.merge(key, value);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public int load() {
+        return this.reads.get();
+    }
+
+    @Override
+    public long[] merkleHashes(ChordNode caller, Identifier from, Identifier to, int[] nodes) {
+        return this.replicas.hashes(nodes, from, to);
+    }
+
+    @Override
+    public NavigableMap<StoredKey, Versioned> merkleItems(ChordNode caller, Identifier from, Identifier to, int[] nodes) {
+        return this.replicas.items(nodes, from, to);
+    }
+
+    @Override
+    public void mergeReplicas(ChordNode caller, NavigableMap<StoredKey, Versioned> items) {
+        this.replicas.putAll(items);
+    }
+
+    /**
+     * Synchronizes the data items in (predecessor, this] with every replica, see {@link #synchronize(ChordNode, Identifier, Identifier)}.
+     *
+     * @return Number of data items repaired, on either side.
+     */
+    @Override
+    public int synchronizeReplicas() {
+        final ChordNode predecessor = this.predecessor();
+        if (this.status() != NodeStatus.ONLINE || predecessor == null || this.network.getReplicationFactor() == 1) {
+            return 0;
+        }
+        final List<ChordNode> targets = this.replicaSet(this);
+        int repaired = 0;
+        for (ChordNode target : targets.subList(1, targets.size())) {
+            repaired += this.synchronize(target, predecessor.getIdentifier(), this.getIdentifier());
+        }
+        return repaired;
+    }
+
+    /**
+     * Synchronizes the data items in (from, to] with a replica. Descends both Merkle trees level by level, with one
+     * request per level, and only into the nodes whose hashes differ. Partially covered inner nodes are descended
+     * without comparison. Only the items of the differing leaves are exchanged; the newer version of every item wins
+     * on both sides. Hence, the traffic grows with the number of differing items rather than with the size of the range.
+     *
+     * @param replica The replica to synchronize with.
+     * @param from The exclusive left bound of the range.
+     * @param to The inclusive right bound of the range.
+     * @return Number of data items repaired, on either side.
+     */
+    private int synchronize(ChordNode replica, Identifier from, Identifier to) {
+        final MerkleTree tree = this.storage.tree();
+        final List<Integer> differing = new ArrayList<>();
+        List<Integer> level = Collections.singletonList(1);
+        while (!level.isEmpty()) {
+            final List<Integer> compared = new ArrayList<>();
+            final List<Integer> next = new ArrayList<>();
+            for (int node : level) {
+                final MerkleTree.Coverage coverage = tree.coverage(node, from, to);
+                if (coverage == MerkleTree.Coverage.INSIDE || (coverage == MerkleTree.Coverage.PARTIAL && tree.isLeaf(node))) {
+                    compared.add(node);
+                } else if (coverage == MerkleTree.Coverage.PARTIAL) {
+                    next.add(2 * node);
+                    next.add(2 * node + 1);
+                }
+            }
+            if (!compared.isEmpty()) {
+                final int[] nodes = compared.stream().mapToInt(Integer::intValue).toArray();
+                final long[] local = this.storage.hashes(nodes, from, to);
+                final long[] remote = replica.merkleHashes(this, from, to, nodes);
+                for (int i = 0; i < nodes.length; i++) {
+                    if (local[i] == remote[i]) {
+                        continue;
+                    }
+                    if (tree.isLeaf(nodes[i])) {
+                        differing.add(nodes[i]);
+                    } else {
+                        next.add(2 * nodes[i]);
+                        next.add(2 * nodes[i] + 1);
+                    }
+                }
+            }
+            level = next;
+        }
+        if (differing.isEmpty()) {
+            return 0;
+        }
+
+        final int[] leaves = differing.stream().mapToInt(Integer::intValue).toArray();
+        final NavigableMap<StoredKey, Versioned> remote = replica.merkleItems(this, from, to, leaves);
+        final NavigableMap<StoredKey, Versioned> push = new TreeMap<>();
+        for (Map.Entry<StoredKey, Versioned> item : this.storage.items(leaves, from, to).entrySet()) {
+            final Versioned copy = remote.get(item.getKey());
+            if (copy == null || copy.getVersion() < item.getValue().getVersion()) {
+                push.put(item.getKey(), item.getValue());
+            }
+        }
+        int pulled = 0;
+        for (Map.Entry<StoredKey, Versioned> item : remote.entrySet()) {
+            if (this.storage.merge(item.getKey(), item.getValue())) {
+                pulled++;
+            }
+        }
+        if (!push.isEmpty()) {
+            replica.mergeReplicas(this, push);
         }
+        return push.size() + pulled;
+    }
+
+    /**
+     * Moves the copies of the data items in (from, to] this {@link AbstractChordPeer} holds as a replica to its own
+     * storage, e.g. because it has become responsible for them after its predecessor failed.
+     *
+     * @param from The exclusive left bound of the range.
+     * @param to The inclusive right bound of the range.
+     * @return Number of data items promoted.
+     */
+    protected int promoteReplicas(Identifier from, Identifier to) {
+        final NavigableMap<StoredKey, Versioned> items = this.replicas.extract(from, to);
+        this.storage.putAll(items);
+        return items.size();
+    }
+
+    /**
+     * Counts the given replica read as in progress until it has completed. See {@link #load()}.
+     *
+     * @param read The read.
+     * @return Future of the result of the read.
+     */
+    protected <T> CompletableFuture<T> trackRead(Supplier<CompletableFuture<T>> read) {
+        this.reads.incrementAndGet();
+        return read.get().whenComplete((value, e) -> this.reads.decrementAndGet());
+    }
+
+    /**
+     * Returns a future completing with the results of the first {@code required} of the given futures to complete
+     * successfully. Fails as soon as that is no longer possible.
+     *
+     * @param futures The futures, e.g. of requests to the replicas of a data item.
+     * @param required Number of successful results required.
+     * @return Future of the first {@code required} results.
+     */
+    protected static <T> CompletableFuture<List<T>> quorum(List<CompletableFuture<T>> futures, int required) {
+        final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        if (required <= 0) {
+            result.complete(Collections.emptyList());
+            return result;
+        }
+        if (futures.size() < required) {
+            result.completeExceptionally(new IllegalStateException(String.format("A quorum of %d cannot be reached with %d replicas.", required, futures.size())));
+            return result;
+        }
+        final List<T> values = new ArrayList<>(required);
+        final int[] failures = {0};
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, e) -> {
+                synchronized (values) {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    if (e == null) {
+                        values.add(value);
+                        if (values.size() == required) {
+                            result.complete(new ArrayList<>(values));
+                        }
+                    } else if (++failures[0] > futures.size() - required) {
+                        result.completeExceptionally(new IllegalStateException(String.format("A quorum of %d has not been reached.", required), e));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Waits for the given future to complete and returns its result. Unlike {@link CompletableFuture#join()}, unchecked
+     * exceptions are rethrown as they are, i.e. not wrapped into a {@link CompletionException}. Simulations override
+     * this method to drive their virtual clock while waiting.
+     *
+     * @param future The future to wait for.
+     * @return The result of the future.
+     */
+    protected <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Saves all the given pieces of data. The entries are grouped by the {@link ChordNode} responsible for them and
+     * each responsible {@link ChordNode} receives a single request.
+     *
+     * @param origin the node calling the method (purely for logging purposes). Null if it's the client (i.e., not a node in the network)
+     * @param entries Map of keys and values of the data items
+     */
+    @Override
+    public void storeAll(Node origin, Map<String, String> entries) {
+        if (this.network.getReplicationFactor() > 1) {
+            ChordNode.super.storeAll(origin, entries); /* Every item is written with its own quorum. */
+            return;
+        }
+        for (Map.Entry<ChordNode, List<String>> group : groupByOwner(entries.keySet()).entrySet()) {
+            if (group.getKey() == this) {
+                for (String key : group.getValue()) {
+                    this.storage.put(key, entries.get(key));
+                }
+            } else {
+                final Map<String, String> batch = new HashMap<>(group.getValue().size() * 2);
+                for (String key : group.getValue()) {
+                    batch.put(key, entries.get(key));
+                }
+                group.getKey().storeAll(this, batch);
+            }
+        }
+    }
+
+    /**
+     * Retrieves all pieces of data identified by the provided keys. The keys are grouped by the {@link ChordNode}
+     * responsible for them and each responsible {@link ChordNode} receives a single request.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param keys Keys of the data items
+     * @return Map of the keys that were found and their values.
+     */
+    @Override
+    public Map<String, String> lookupAll(Node origin, Collection<String> keys) {
+        if (this.network.getReplicationFactor() > 1) {
+            return ChordNode.super.lookupAll(origin, keys);
+        }
+        final Map<String, String> values = new HashMap<>();
+        for (Map.Entry<ChordNode, List<String>> group : groupByOwner(keys).entrySet()) {
+            if (group.getKey() == this) {
+                for (String key : group.getValue()) {
+                    final String value = this.storage.get(key);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+            } else {
+                values.putAll(group.getKey().lookupAll(this, group.getValue()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Removes all pieces of data identified by the provided keys. The keys are grouped by the {@link ChordNode}
+     * responsible for them and each responsible {@link ChordNode} receives a single request.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param keys Keys of the data items
+     * @return Map of the keys that were deleted and their values.
+     */
+    @Override
+    public Map<String, String> deleteAll(Node origin, Collection<String> keys) {
+        if (this.network.getReplicationFactor() > 1) {
+            return ChordNode.super.deleteAll(origin, keys);
+        }
+        final Map<String, String> values = new HashMap<>();
+        for (Map.Entry<ChordNode, List<String>> group : groupByOwner(keys).entrySet()) {
+            if (group.getKey() == this) {
+                for (String key : group.getValue()) {
+                    final String value = this.storage.remove(key);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+            } else {
+                values.putAll(group.getKey().deleteAll(this, group.getValue()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Groups the given keys by the {@link ChordNode} responsible for them. The keys are sorted by their {@link Identifier},
+     * hence consecutive keys mostly fall into the same ring segment (predecessor, owner]: an owner is only looked up for
+     * the first key of each segment, all following keys of that segment are assigned to it without routing.
+     *
+     * @param keys The keys to group.
+     * @return Keys grouped by the responsible {@link ChordNode}, in ring order.
+     */
+    private Map<ChordNode, List<String>> groupByOwner(Collection<String> keys) {
+        if (this.status != NodeStatus.ONLINE) {
+            throw this.unavailable();
+        }
+        final IdentifierCircle<Identifier> circle = this.network.getIdentifierCircle();
+        final KeyReference[] references = new KeyReference[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            references[i++] = new KeyReference(key, circle.identifierOf(key));
+        }
+        Arrays.sort(references);
+
+        final Map<ChordNode, List<String>> groups = new LinkedHashMap<>();
+        ChordNode owner = null;
+        Identifier left = null;
+        for (KeyReference reference : references) {
+            if (owner == null || !Ring.inLeftOpen(left, owner.getIdentifier(), reference.id)) {
+                owner = this.lookupNodeForIdentifier(reference.id);
+                if (owner == null) {
+                    throw this.unavailable(); /* This peer has gone offline meanwhile. */
+                }
+                final ChordNode predecessor = owner.predecessor();
+                /* Without a predecessor, the owner's segment is not known; it is then only used for this key. */
+                left = predecessor != null ? predecessor.getIdentifier() : circle.last(owner.getIdentifier());
+            }
+            groups.computeIfAbsent(owner, o -> new ArrayList<>()).add(reference.key);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the exception data operations fail with while this {@link AbstractChordPeer} is not online, i.e. while
+     * it cannot route requests.
+     *
+     * @return {@link IllegalStateException} naming the {@link NodeStatus} of this {@link AbstractChordPeer}.
+     */
+    protected IllegalStateException unavailable() {
+        return new IllegalStateException(String.format("Peer %s cannot serve data operations while it is %s.", this.getIdentifier().toIndexString(), this.status));
     }
 
     /**
@@ -105,7 +660,7 @@ public abstract class AbstractChordPeer implements ChordNode {
      * @return Set of keys held by this {@link AbstractChordPeer}
      */
     public Set<String> keys() {
-        return Collections.unmodifiableSet(this.storage.keySet());
+        return Collections.unmodifiableSet(this.storage.keys());
     }
 
     /**
@@ -115,7 +670,41 @@ public abstract class AbstractChordPeer implements ChordNode {
      * @return The data stored by this {@link AbstractChordPeer}.
      */
     public Map<String,String> dump() {
-        return Collections.unmodifiableMap(this.storage);
+        return Collections.unmodifiableMap(this.storage.toMap());
+    }
+
+    /**
+     * Removes the data items whose keys lie in (from, to] from the local storage and hands them to {@code caller}.
+     *
+     * @param caller The calling {@link ChordNode}, which receives the data items.
+     * @param from The exclusive left bound of the range.
+     * @param to The inclusive right bound of the range.
+     * @return The data items removed, ordered by the {@link Identifier} of their keys.
+     */
+    @Override
+    public NavigableMap<StoredKey, Versioned> transferKeys(ChordNode caller, Identifier from, Identifier to) {
+        final NavigableMap<StoredKey, Versioned> items = this.storage.extract(from, to);
+        if (this.network.getReplicationFactor() > 1) {
+            this.replicas.putAll(items); /* This node remains a replica of the range it hands over. */
+        }
+        return items;
+    }
+
+    /**
+     * Takes over the data items this {@link AbstractChordPeer} has become responsible for from its successor, i.e.
+     * those in (successor, this]. The successor only holds keys up to its former predecessor, hence the range does not
+     * need to be known exactly. Takes time proportional to the number of items moved.
+     *
+     * @param successor The successor, which has accepted this {@link AbstractChordPeer} as its predecessor.
+     * @return Number of data items taken over.
+     */
+    protected int takeOverKeys(ChordNode successor) {
+        if (successor == null || successor == this) {
+            return 0;
+        }
+        final NavigableMap<StoredKey, Versioned> items = successor.transferKeys(this, successor.getIdentifier(), this.getIdentifier());
+        this.storage.putAll(items);
+        return items.size();
     }
 
     /**
@@ -125,6 +714,27 @@ public abstract class AbstractChordPeer implements ChordNode {
      */
     protected abstract ChordNode lookupNodeForItem(String key);
 
+    /**
+     * Asynchronous variant of {@link #lookupNodeForItem(String)}. The default implementation simply calls the blocking method.
+     *
+     * @return Future of the node in which to store the data with the provided key.
+     */
+    protected CompletableFuture<ChordNode> lookupNodeForItemAsync(String key) {
+        try {
+            return CompletableFuture.completedFuture(this.lookupNodeForItem(key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Performs a lookup for the node responsible for the provided {@link Identifier}.
+     *
+     * @param id The {@link Identifier}, e.g. of a key.
+     * @return Node responsible for the provided {@link Identifier}.
+     */
+    protected abstract ChordNode lookupNodeForIdentifier(Identifier id);
+
     @Override
     public ChordNode predecessor() {
         return this.predecessor;
@@ -135,6 +745,53 @@ public abstract class AbstractChordPeer implements ChordNode {
         this.predecessor = predecessor;
     }
 
+    /**
+     * Returns the successor list of this {@link AbstractChordPeer}: the current successor, followed by the successors
+     * learned during the last call to {@link #updateSuccessorList(ChordNode)}, truncated to the configured length r.
+     *
+     * @return Unmodifiable list of (at most r) successors.
+     */
+    @Override
+    public List<ChordNode> successorList() {
+        final ChordNode successor = this.successor();
+        if (successor == null) {
+            return Collections.emptyList();
+        }
+        final ChordNode[] tail = this.successors;
+        final int r = this.network.getSuccessorListLength();
+        final List<ChordNode> list = new ArrayList<>(Math.min(r, tail.length + 1));
+        list.add(successor);
+        for (int i = 0; i < tail.length && list.size() < r; i++) {
+            if (tail[i] != successor) {
+                list.add(tail[i]);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Replaces the successor list by {@code successor}, followed by the successor list of {@code successor}, i.e.
+     * the first r nodes clockwise of this {@link AbstractChordPeer}. Stops early, if the list wraps around to this node.
+     *
+     * @param successor The (live) successor of this {@link AbstractChordPeer}.
+     */
+    protected void updateSuccessorList(ChordNode successor) {
+        final int r = this.network.getSuccessorListLength();
+        if (successor == null || successor == this || r == 1) {
+            this.successors = new ChordNode[0];
+            return;
+        }
+        final ChordNode[] tail = new ChordNode[r - 1];
+        int count = 0;
+        for (ChordNode next : successor.successorList()) {
+            if (count == tail.length || next == this) {
+                break;
+            }
+            tail[count++] = next;
+        }
+        this.successors = Arrays.copyOf(tail, count);
+    }
+
     @Override
     public final Identifier getIdentifier() {
         return identifier;
@@ -156,6 +813,9 @@ public abstract class AbstractChordPeer implements ChordNode {
     public synchronized final void join(Node nprime) {
         if (this.status == NodeStatus.ONLINE || this.status == NodeStatus.JOINING) throw new IllegalStateException("This node has already or is currently joining a network.");
         if (nprime == null || nprime instanceof ChordNode) {
+            if (this.closed) {
+                this.openStores();
+            }
             this.status = NodeStatus.JOINING;
             if (this.network.isDynamic()) {
                 joinOnly((ChordNode)nprime);
@@ -167,11 +827,121 @@ public abstract class AbstractChordPeer implements ChordNode {
     }
 
     /**
-     * Sets the status of this {@link AbstractChordPeer} to offline. That's it - the network should handle the rest!
+     * Leaves the network gracefully: Sets the status of this {@link AbstractChordPeer} to offline, hands all data items
+     * over to the successor in bulk and points predecessor and successor at each other. Thus no data is lost and the
+     * neighbours do not have to detect the departure by stabilization.
+     *
+     * If data is replicated, the replica sets this {@link AbstractChordPeer} belongs to lose a member, see
+     * {@link #handOverReplicas(List)}. Finally, the stores are closed.
+     */
+    public final void leave() {
+        synchronized (this) {
+            if (this.status == NodeStatus.OFFLINE) throw new IllegalStateException("This node is not part of a network.");
+            this.status = NodeStatus.OFFLINE;
+        }
+        try {
+            this.handOver();
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * Hands the data items and copies of this leaving {@link AbstractChordPeer} over, see {@link #leave()}.
      */
-    public synchronized final void leave() {
-        if (this.status == NodeStatus.OFFLINE) throw new IllegalStateException("This node is currently part of a network.");
+    private void handOver() {
+        final ChordNode predecessor = this.predecessor();
+        final ChordNode successor = this.liveSuccessor();
+        if (successor == null || successor == this || successor.status() == NodeStatus.OFFLINE) {
+            return; /* Last node of the network; there is nobody to hand over to. */
+        }
+        final Identifier id = this.getIdentifier();
+        if (this.network.getReplicationFactor() > 1) {
+            /* The successor's list is fresher than this node's, which may still hold nodes that have left meanwhile. */
+            final List<ChordNode> live = new ArrayList<>();
+            live.add(successor);
+            for (ChordNode next : successor.successorList()) {
+                if (next != this && next.status() != NodeStatus.OFFLINE && !live.contains(next)) {
+                    live.add(next);
+                }
+            }
+            this.handOverReplicas(live);
+        }
+        successor.predecessorLeaving(this, predecessor, this.storage.extract(id, id));
+        if (predecessor != null && predecessor != this && predecessor.status() != NodeStatus.OFFLINE) {
+            predecessor.successorLeaving(this, successor);
+        }
+    }
+
+    /**
+     * Hands the copies of a leaving {@link AbstractChordPeer} to the nodes that take its place in the replica sets.
+     * With replication factor r, this node holds the items of the ranges of its predecessors P1..P(r-1) as a replica,
+     * being the j-th successor of Pj. Once it has left, the r-th successor of Pj moves up into the replica set of its
+     * range, which is the (r-j)-th successor of this node. Likewise, the r-th successor of this node becomes a replica
+     * of its own range, which is taken over by the successor.
+     *
+     * Copies that cannot be placed, because the successor list is shorter than r or a predecessor is not known, are
+     * restored by the owner's next {@link #synchronizeReplicas()}.
+     *
+     * @param successors The live successors of this node, nearest first.
+     */
+    private void handOverReplicas(List<ChordNode> successors) {
+        final int r = this.network.getReplicationFactor();
+        if (successors.size() >= r) {
+            successors.get(r - 1).mergeReplicas(this, this.storage.snapshot());
+        }
+        ChordNode owner = this.predecessor();
+        for (int j = 1; j < r && owner != null && owner != this && owner.status() != NodeStatus.OFFLINE; j++) {
+            final ChordNode before = owner.predecessor();
+            if (before == null || r - j - 1 >= successors.size()) {
+                break;
+            }
+            successors.get(r - j - 1).mergeReplicas(this, this.replicas.extract(before.getIdentifier(), owner.getIdentifier()));
+            owner = before;
+        }
+    }
+
+    /**
+     * Sets the status of this {@link AbstractChordPeer} to offline and closes its stores. That's it - the network should
+     * handle the rest!
+     */
+    public synchronized final void fail() {
+        if (this.status == NodeStatus.OFFLINE) throw new IllegalStateException("This node is not part of a network.");
         this.status = NodeStatus.OFFLINE;
+        this.close();
+    }
+
+    /**
+     * Takes over the data items of the leaving predecessor and adopts its predecessor.
+     *
+     * @param leaving The leaving {@link ChordNode}.
+     * @param predecessor The predecessor of the leaving {@link ChordNode}.
+     * @param items The data items of the leaving {@link ChordNode}.
+     */
+    @Override
+    public void predecessorLeaving(ChordNode leaving, ChordNode predecessor, NavigableMap<StoredKey, Versioned> items) {
+        this.storage.putAll(items);
+        if (this.predecessor() == leaving) {
+            this.setPredecessor(predecessor == leaving ? null : predecessor);
+        }
+        this.locationCache.invalidateOwner(leaving);
+    }
+
+    /**
+     * Replaces the leaving successor by its successor, in the finger table and the successor list.
+     *
+     * @param leaving The leaving {@link ChordNode}.
+     * @param successor The successor of the leaving {@link ChordNode}.
+     */
+    @Override
+    public void successorLeaving(ChordNode leaving, ChordNode successor) {
+        for (int k = 1; k <= this.fingerTable.size(); k++) {
+            if (this.fingerTable.nodeOrNull(k) == leaving) {
+                this.fingerTable.setNode(k, successor);
+            }
+        }
+        this.updateSuccessorList(this.successor());
+        this.locationCache.invalidateOwner(leaving);
     }
 
     /**
@@ -179,32 +949,78 @@ public abstract class AbstractChordPeer implements ChordNode {
      *
      * @return {@link NodeStatus} of this {@link AbstractChordPeer}
      */
-    public synchronized NodeStatus status() {
+    public NodeStatus status() {
         return this.status;
     }
 
     /**
+     * A key along with its {@link Identifier}, ordered by the latter.
+     */
+    private static final class KeyReference implements Comparable<KeyReference> {
+        private final String key;
+        private final Identifier id;
+
+        private KeyReference(String key, Identifier id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(KeyReference o) {
+            return this.id.compareTo(o.id);
+        }
+    }
+
+    /**
+     * The {@link FingerTable} of an {@link AbstractChordPeer}.
+     *
+     * The start values are precomputed upon construction. Fingers are kept in an {@link AtomicReferenceArray}, hence
+     * readers (i.e. lookups) never block and do not serialize with concurrent updates, e.g. by {@link #fixFingers()}.
      *
+     * In addition, every update publishes a snapshot of the distinct fingers, sorted by their clockwise distance from
+     * the enclosing node, which answers {@link #closestPreceding(Identifier)} by binary search.
      */
     public class ChordFingerTable implements ch.unibas.dmi.dbis.fds.p2p.chord.api.FingerTable {
-        private final ChordNode[] nodes;
+        private final AtomicReferenceArray<ChordNode> nodes;
         private final List<IdentifierCircularInterval> intervals;
-        private final ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircle circle;
+        private final IdentifierCircle<Identifier> circle;
+
+        /** Start identifiers, zero-based. The entry at size() is the enclosing node's identifier (i.e. start(m+1)). */
+        private final Identifier[] startIdentifiers;
+
+        /** Start indices, zero-based. Null, if the indices do not fit into an int. */
+        private final int[] starts;
+
+        /** Distinct fingers, sorted by clockwise distance from the enclosing node. Replaced (never modified) upon update. */
+        private volatile ChordNode[] sorted = new ChordNode[0];
 
         /**
          *
          */
         public ChordFingerTable() {
-            this.nodes = new ChordNode[size()];
+            this.nodes = new AtomicReferenceArray<>(size());
             this.intervals = new ArrayList<>(size());
-            this.circle = new IdentifierCircle(AbstractChordPeer.this.network.getNbits());
+            this.circle = AbstractChordPeer.this.network.getIdentifierCircle();
+            this.startIdentifiers = new Identifier[size() + 1];
+            for (int i = 0; i < size(); i++) {
+                this.startIdentifiers[i] = circle.add(AbstractChordPeer.this.getIdentifier(), i);
+            }
+            this.startIdentifiers[size()] = AbstractChordPeer.this.getIdentifier();
+            if (size() <= HashFunction.INT_BITS) {
+                this.starts = new int[size()];
+                for (int i = 0; i < size(); i++) {
+                    this.starts[i] = this.startIdentifiers[i].getIndex();
+                }
+            } else {
+                this.starts = null;
+            }
             preComputeIntervals();
         }
 
         private void preComputeIntervals() {
             for (int i = 0; i < size(); i++) {
-                Identifier leftBound = circle.getIdentifierAt(start(i + 1));
-                Identifier rightBound = circle.getIdentifierAt(start(i + 2));
+                Identifier leftBound = startIdentifiers[i];
+                Identifier rightBound = startIdentifiers[i + 1];
                 intervals.add(IdentifierCircularInterval.createRightOpen(leftBound, rightBound));
             }
         }
@@ -219,23 +1035,42 @@ public abstract class AbstractChordPeer implements ChordNode {
          */
         @Override
         public int start(int k) {
-            return (AbstractChordPeer.this.getIdentifier().getIndex() + (int) Math.pow(2, k - 1)) % (int) Math.pow(2, size());
+            if (this.starts == null) {
+                throw new ArithmeticException(String.format("The start values of a finger table with %d entries do not fit into an int.", size()));
+            }
+            return this.starts[k - 1];
+        }
+
+        /**
+         * Must be one-based k. For k = size() + 1, this is the identifier of the enclosing node itself.
+         */
+        @Override
+        public Identifier startIdentifier(int k) {
+            return this.startIdentifiers[k - 1];
         }
 
         /**
          *
          * @return
          */
-        public synchronized ChordNode successor() {
-            return nodes[0];
+        public ChordNode successor() {
+            return nodes.get(0);
+        }
+
+        /**
+         * One based k
+         */
+        @Override
+        public Optional<ChordNode> node(int k) {
+            return Optional.ofNullable(nodes.get(k - 1));
         }
 
         /**
          * One based k
          */
         @Override
-        public synchronized Optional<ChordNode> node(int k) {
-            return Optional.ofNullable(nodes[k - 1]);
+        public ChordNode nodeOrNull(int k) {
+            return nodes.get(k - 1);
         }
 
         /**
@@ -251,11 +1086,72 @@ public abstract class AbstractChordPeer implements ChordNode {
          * @param k
          * @param node
          */
-        public synchronized void setNode(int k, ChordNode node) {
+        public void setNode(int k, ChordNode node) {
             if(node == null){
                 throw new IllegalArgumentException("Cannot set a finger to null");
             }
-            nodes[k - 1] = node;
+            if (nodes.getAndSet(k - 1, node) != node) {
+                rebuild();
+            }
+        }
+
+        /**
+         * Returns the finger that most closely precedes the given {@link Identifier}, i.e. the finger in (n, id) with
+         * the greatest clockwise distance from the enclosing node n. Takes O(log m) and does not allocate.
+         *
+         * @param id The {@link Identifier} to look up.
+         * @return The closest preceding finger or null, if no finger lies in (n, id).
+         */
+        public ChordNode closestPreceding(Identifier id) {
+            final ChordNode[] fingers = this.sorted;
+            /* Binary search for the first finger that does not precede id; the one before it is the closest. */
+            int low = 0;
+            int high = fingers.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (clockwise(fingers[mid].getIdentifier(), id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low == 0 ? null : fingers[low - 1];
+        }
+
+        /**
+         * Compares two identifiers by their clockwise distance from the enclosing node n. The enclosing node itself
+         * is considered a full circle away (as in (n, n), which spans the whole circle).
+         */
+        private int clockwise(Identifier a, Identifier b) {
+            final Identifier n = AbstractChordPeer.this.getIdentifier();
+            final boolean wrapsA = a.compareTo(n) <= 0;
+            final boolean wrapsB = b.compareTo(n) <= 0;
+            if (wrapsA != wrapsB) {
+                return wrapsA ? 1 : -1;
+            }
+            return a.compareTo(b);
+        }
+
+        /**
+         * Rebuilds the snapshot of distinct fingers sorted by clockwise distance. Writers are serialized, readers are not affected.
+         */
+        private synchronized void rebuild() {
+            final ChordNode[] fingers = new ChordNode[size()];
+            int count = 0;
+            for (int i = 0; i < size(); i++) {
+                final ChordNode node = nodes.get(i);
+                if (node != null && !node.getIdentifier().equals(AbstractChordPeer.this.getIdentifier())) {
+                    fingers[count++] = node;
+                }
+            }
+            Arrays.sort(fingers, 0, count, (x, y) -> clockwise(x.getIdentifier(), y.getIdentifier()));
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || !fingers[distinct - 1].getIdentifier().equals(fingers[i].getIdentifier())) {
+                    fingers[distinct++] = fingers[i];
+                }
+            }
+            this.sorted = Arrays.copyOf(fingers, distinct);
         }
     }
 }
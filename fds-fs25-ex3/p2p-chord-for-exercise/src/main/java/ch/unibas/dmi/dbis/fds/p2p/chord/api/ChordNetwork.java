@@ -1,8 +1,14 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.PeerStore;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.SkipListStore;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * This interface defines the behaviour exposed by a {@link ChordNetwork}. The implementations in this project come in two flavors as described in [1]:
  *
@@ -41,9 +47,132 @@ public interface ChordNetwork {
    * Size of the {@link ChordNetwork} in terms of the maximum number of {@link ChordNode}s supported.
    *
    * @return Size of the {@link ChordNetwork}.
+   * @throws ArithmeticException If the size does not fit into an int, i.e. for more than 30 bits.
    */
   default int size() {
-    return (int)Math.pow(2, getNbits());
+    if (getNbits() >= Integer.SIZE - 1) {
+      throw new ArithmeticException(String.format("The size of a network with %d bits does not fit into an int.", getNbits()));
+    }
+    return 1 << getNbits();
+  }
+
+  /**
+   * Length r of the successor list each {@link ChordNode} maintains. A length of 1 means that only the immediate
+   * successor is known.
+   *
+   * @return Length of the successor list.
+   */
+  default int getSuccessorListLength() {
+    return 1;
+  }
+
+  /**
+   * Maximum number of identifier ranges each {@link ChordNode} caches in order to resolve keys without routing.
+   * 0 disables the cache.
+   *
+   * @return Capacity of the location cache.
+   */
+  default int getLocationCacheSize() {
+    return 64;
+  }
+
+  /**
+   * Replication factor r: every data item is stored by the responsible {@link ChordNode} and copied to its next r-1
+   * successors. A factor of 1 disables replication.
+   *
+   * @return Replication factor.
+   */
+  default int getReplicationFactor() {
+    return 1;
+  }
+
+  /**
+   * Read quorum R: number of replicas that must answer a read. The newest version among their answers is returned.
+   *
+   * @return Read quorum.
+   */
+  default int getReadQuorum() {
+    return 1;
+  }
+
+  /**
+   * Write quorum W: number of replicas, including the responsible {@link ChordNode}, that must acknowledge a write.
+   * Reads are guaranteed to see the latest write if R + W > r.
+   *
+   * @return Write quorum.
+   */
+  default int getWriteQuorum() {
+    return 1;
+  }
+
+  /**
+   * The {@link ReadStrategy} used to choose the replicas answering a read.
+   *
+   * @return {@link ReadStrategy} of the reads.
+   */
+  default ReadStrategy getReadStrategy() {
+    return ReadStrategy.FIRST_RESPONDING;
+  }
+
+  /**
+   * The {@link PeerStore.Factory} used to create the storage of the {@link ChordNode}s. Defaults to {@link SkipListStore},
+   * which extracts the ranges handed over on joins and leaves in time proportional to their size.
+   *
+   * @return {@link PeerStore.Factory} of the storage.
+   */
+  default PeerStore.Factory getStoreFactory() {
+    return SkipListStore::new;
+  }
+
+  /**
+   * Maximum number of hops a lookup may take before it is aborted. Routing along fingers takes at most m hops, the rest
+   * of the budget is left for falling back to successors.
+   *
+   * @return Hop budget of a lookup.
+   */
+  default int getLookupHopLimit() {
+    return 4 * getNbits();
+  }
+
+  /**
+   * Time a lookup may take before it is aborted.
+   *
+   * @return Timeout of a lookup in milliseconds.
+   */
+  default long getLookupTimeout() {
+    return 10_000;
+  }
+
+  /**
+   * The {@link RoutingMode} used by the {@link ChordNode}s of this {@link ChordNetwork} to route lookups.
+   *
+   * @return {@link RoutingMode} of the lookups.
+   */
+  default RoutingMode getRoutingMode() {
+    return RoutingMode.ITERATIVE;
+  }
+
+  /**
+   * The current time of this {@link ChordNetwork}, used to measure and bound lookups. Real networks use
+   * {@link System#nanoTime()}; simulated ones may use a virtual clock instead.
+   *
+   * @return Current time in nanoseconds, only meaningful relative to other values returned by this method.
+   */
+  default long nanoTime() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Returns an {@link Executor} that executes every task after the given delay on the clock of {@link #nanoTime()}, e.g.
+   * to abort a lookup at its deadline. Real networks use {@link CompletableFuture#delayedExecutor(long, TimeUnit)};
+   * simulated ones may schedule the tasks in virtual time instead.
+   *
+   * @param delay The delay, not negative.
+   * @param unit The {@link TimeUnit} of the delay.
+   * @return {@link Executor}
+   */
+  default Executor delayedExecutor(long delay, TimeUnit unit) {
+    return CompletableFuture.delayedExecutor(delay, unit);
   }
 
   /**
@@ -1,6 +1,13 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.StoredKey;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Versioned;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This interface defines the behaviour exposed by a {@link ChordNode} in a {@link ChordNetwork}
@@ -70,6 +77,37 @@ public interface ChordNode extends Node {
    */
   ChordNode findSuccessor(ChordNode caller, Identifier id);
 
+  /**
+   * Asynchronous variant of {@link #findSuccessor(ChordNode, Identifier)}. Allows a caller to have many lookups in flight
+   * without blocking a thread for each of them. The default implementation simply calls the blocking method.
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param id The {@link Identifier} for which to lookup the successor. Does not need to be the ID of an actual {@link ChordNode}!
+   * @return Future of the successor of the node {@code id} from this {@link ChordNode}'s point of view
+   */
+  default CompletableFuture<ChordNode> findSuccessorAsync(ChordNode caller, Identifier id) {
+    try {
+      return CompletableFuture.completedFuture(findSuccessor(caller, id));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Recursive variant of {@link #findSuccessor(ChordNode, Identifier)}: If {@code id} lies between this {@link ChordNode}
+   * and its successor, this {@link ChordNode} replies to {@code origin} directly. Otherwise it forwards the query to its
+   * closest preceding finger, without a round trip to {@code origin}.
+   *
+   * Described in [1], Section 4.
+   *
+   * @param caller The {@link ChordNode} of the previous hop. Used for simulation - not part of the actual chord definition.
+   * @param origin The {@link ChordNode} that issued the lookup and receives the reply.
+   * @param id The {@link Identifier} for which to lookup the successor. Does not need to be the ID of an actual {@link ChordNode}!
+   * @param context The {@link LookupContext} of the query, travelling along with it.
+   * @return Future of the {@link LookupStatistics}, holding the successor of {@code id} and the number of hops taken.
+   */
+  CompletableFuture<LookupStatistics> findSuccessorRecursive(ChordNode caller, ChordNode origin, Identifier id, LookupContext context);
+
   /**
    *  Asks this {@link ChordNode} to find {@code of}'s predecessor {@link ChordNode}
    *
@@ -118,6 +156,22 @@ public interface ChordNode extends Node {
    */
   ChordNode closestPrecedingFinger(ChordNode caller, Identifier id);
 
+  /**
+   * Asynchronous variant of {@link #closestPrecedingFinger(ChordNode, Identifier)}. The default implementation simply
+   * calls the blocking method.
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param id The {@link Identifier} for which the closest preceding finger is looked up.
+   * @return Future of the closest preceding finger of the node {@code of} from this node's point of view
+   */
+  default CompletableFuture<ChordNode> closestPrecedingFingerAsync(ChordNode caller, Identifier id) {
+    try {
+      return CompletableFuture.completedFuture(closestPrecedingFinger(caller, id));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Convenience method (shortcut) for the first finger of this {@link ChordNode} - its successor.
    *
@@ -129,6 +183,151 @@ public interface ChordNode extends Node {
     return finger().successor();
   }
 
+  /**
+   * Returns the successor list of this {@link ChordNode}, i.e. its first r successors in clockwise order, starting with
+   * {@link #successor()}. Used to fail over to the next live successor, if the immediate successor fails.
+   *
+   * Described in [1] as the means to keep the ring connected despite failures.
+   *
+   * @return Unmodifiable list of (at most r) successors.
+   */
+  List<ChordNode> successorList();
+
+  /**
+   * Returns the first live entry of this {@link ChordNode}'s successor list. Falls back to {@link #successor()} if
+   * the successor is online or if no entry of the successor list is.
+   *
+   * @return The first live successor of this {@link ChordNode}.
+   */
+  default ChordNode liveSuccessor() {
+    final ChordNode successor = successor();
+    if (successor == null || successor.status() != NodeStatus.OFFLINE) {
+      return successor;
+    }
+    for (ChordNode candidate : successorList()) {
+      if (candidate.status() != NodeStatus.OFFLINE) {
+        return candidate;
+      }
+    }
+    return successor;
+  }
+
+  /**
+   * Checks whether this {@link ChordNode} is responsible for the given {@link Identifier}, i.e. whether it lies in
+   * (predecessor, this]. Used to verify owners that were not obtained by routing, e.g. from a cache.
+   *
+   * @param id The {@link Identifier} to check.
+   * @return True, if this {@link ChordNode} is responsible for {@code id}.
+   */
+  default boolean isResponsibleFor(Identifier id) {
+    final ChordNode predecessor = predecessor();
+    return predecessor == null || Ring.inLeftOpen(predecessor.getIdentifier(), getIdentifier(), id);
+  }
+
+  /**
+   * Asks this {@link ChordNode} to hand over the data items whose keys lie in the range (from, to] of the identifier
+   * circle, e.g. because {@code caller} has joined and taken over that range. The items are atomically removed from
+   * this {@link ChordNode} and transferred in one piece.
+   *
+   * Not part of [1], which leaves the transfer of keys to the application.
+   *
+   * @param caller The calling {@link ChordNode}, which receives the data items.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The data items removed, ordered by the {@link Identifier} of their keys.
+   */
+  NavigableMap<StoredKey, Versioned> transferKeys(ChordNode caller, Identifier from, Identifier to);
+
+  /**
+   * Reads this {@link ChordNode}'s copy of a data item, without routing. Used to read from the replicas of an item
+   * directly.
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param key The key of the data item.
+   * @return Future of the {@link Versioned} value held by this {@link ChordNode} or of null, if it holds none.
+   */
+  CompletableFuture<Versioned> readReplicaAsync(ChordNode caller, StoredKey key);
+
+  /**
+   * Stores a copy of a data item on this {@link ChordNode}, unless it holds a newer version already. Used by the
+   * {@link ChordNode} responsible for the item to replicate writes.
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param key The key of the data item.
+   * @param value The {@link Versioned} value of the data item.
+   * @return Future completing once the copy has been stored.
+   */
+  CompletableFuture<Void> writeReplicaAsync(ChordNode caller, StoredKey key, Versioned value);
+
+  /**
+   * Number of replica reads this {@link ChordNode} has in progress. Used to send reads to the least-loaded replicas.
+   *
+   * @return Number of reads in progress.
+   */
+  int load();
+
+  /**
+   * Returns the hashes of the copies this {@link ChordNode} holds as a replica, for the given nodes of their
+   * {@link ch.unibas.dmi.dbis.fds.p2p.chord.api.data.MerkleTree}, restricted to the range (from, to].
+   * Used by the {@link ChordNode} responsible for the range to find out which of its replicas' copies differ.
+   *
+   * Not part of [1].
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @param nodes The nodes of the tree.
+   * @return The hashes, in the order of {@code nodes}.
+   */
+  long[] merkleHashes(ChordNode caller, Identifier from, Identifier to, int[] nodes);
+
+  /**
+   * Returns the copies this {@link ChordNode} holds as a replica, for the given nodes of their
+   * {@link ch.unibas.dmi.dbis.fds.p2p.chord.api.data.MerkleTree}, restricted to the range (from, to].
+   *
+   * Not part of [1].
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @param nodes The nodes of the tree, usually leaves.
+   * @return The copies, including tombstones, ordered by the {@link Identifier} of their keys.
+   */
+  NavigableMap<StoredKey, Versioned> merkleItems(ChordNode caller, Identifier from, Identifier to, int[] nodes);
+
+  /**
+   * Stores the given copies on this {@link ChordNode} as a replica, unless it holds newer versions already.
+   *
+   * Not part of [1].
+   *
+   * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+   * @param items The copies, ordered by the {@link Identifier} of their keys.
+   */
+  void mergeReplicas(ChordNode caller, NavigableMap<StoredKey, Versioned> items);
+
+  /**
+   * Called by this {@link ChordNode}'s predecessor when it leaves the network gracefully. This {@link ChordNode} takes
+   * over the data items of the leaving node and adopts its predecessor.
+   *
+   * Not part of [1]. Described in the extended version of [1] as voluntary node departure.
+   *
+   * @param leaving The leaving {@link ChordNode}.
+   * @param predecessor The predecessor of the leaving {@link ChordNode}.
+   * @param items The data items of the leaving {@link ChordNode}, ordered by the {@link Identifier} of their keys.
+   */
+  void predecessorLeaving(ChordNode leaving, ChordNode predecessor, NavigableMap<StoredKey, Versioned> items);
+
+  /**
+   * Called by this {@link ChordNode}'s successor when it leaves the network gracefully. This {@link ChordNode} adopts
+   * the successor of the leaving node, in its successor list and in all fingers that referred to the leaving node.
+   *
+   * Not part of [1]. Described in the extended version of [1] as voluntary node departure.
+   *
+   * @param leaving The leaving {@link ChordNode}.
+   * @param successor The successor of the leaving {@link ChordNode}.
+   */
+  void successorLeaving(ChordNode leaving, ChordNode successor);
+
   /**
    * Returns the predecessor of this {@link ChordNode}.
    *
@@ -218,4 +417,14 @@ public interface ChordNode extends Node {
    * Not part of [1]. Required for dynamic network to handle node failure.
    */
   void checkSuccessor();
+
+  /**
+   * Called periodically in order to bring the replicas of the data items this {@link ChordNode} is responsible for up
+   * to date (anti-entropy). Compares Merkle trees with every replica and only exchanges the items that differ.
+   *
+   * Not part of [1]. Required to restore the replication factor after failures.
+   *
+   * @return Number of data items repaired, on either side.
+   */
+  int synchronizeReplicas();
 }
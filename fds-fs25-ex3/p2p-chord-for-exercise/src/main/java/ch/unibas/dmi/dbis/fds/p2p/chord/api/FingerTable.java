@@ -1,5 +1,6 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api;
 
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircularInterval;
 
 import java.util.Optional;
@@ -16,9 +17,20 @@ public interface FingerTable {
    * @param k The index in the {@link FingerTable} that should be accessed (one-based).
    * @return Start value of the k-th entry in the {@link FingerTable}.
    * @throws IndexOutOfBoundsException If k is > size()
+   * @throws ArithmeticException If the start value does not fit into an int, i.e. on identifier circles of more than 31 bits.
    */
   int start(int k);
 
+  /**
+   * Returns the start {@link Identifier} of the interval of the k-th entry (one-based) in the {@link FingerTable}, i.e.
+   * (n + 2^(k-1)) mod 2^m. Unlike {@link #start(int)}, this works for identifier circles of any width.
+   *
+   * @param k The index in the {@link FingerTable} that should be accessed (one-based).
+   * @return Start {@link Identifier} of the k-th entry in the {@link FingerTable}.
+   * @throws IndexOutOfBoundsException If k is > size()
+   */
+  Identifier startIdentifier(int k);
+
   /**
    * Returns the {@link IdentifierCircularInterval} of the k-th entry (one-based) in the {@link FingerTable}.
    *
@@ -53,4 +65,16 @@ public interface FingerTable {
    * @throws IndexOutOfBoundsException If k is > size()
    */
   Optional<ChordNode> node(int k);
+
+  /**
+   * Returns the k-th entry (one-based) from the {@link FingerTable} or null, if it has not been set yet. Same as
+   * {@link #node(int)} but without wrapping the entry, intended for the routing hot path.
+   *
+   * @param k The index in the {@link FingerTable} that should be accessed (one-based).
+   * @return k-th entry in the {@link FingerTable} or null.
+   * @throws IndexOutOfBoundsException If k is > size()
+   */
+  default ChordNode nodeOrNull(int k) {
+    return node(k).orElse(null);
+  }
 }
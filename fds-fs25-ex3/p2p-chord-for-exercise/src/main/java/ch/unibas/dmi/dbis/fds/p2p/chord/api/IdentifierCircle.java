@@ -15,7 +15,28 @@ public interface IdentifierCircle<T> {
 
   T getIdentifierAt(int i);
   int size();
+
+  /**
+   * Returns the number of bits of the circle, i.e. its size is 2^nbits.
+   */
+  int getNbits();
+
   T next(Identifier id);
   T last(Identifier id);
 
+  /**
+   * Returns the element 2^exponent positions clockwise of {@code id}, i.e. (id + 2^exponent) mod size.
+   */
+  T add(Identifier id, int exponent);
+
+  /**
+   * Returns the element 2^exponent positions counter clockwise of {@code id}, i.e. (id - 2^exponent) mod size.
+   */
+  T subtract(Identifier id, int exponent);
+
+  /**
+   * Returns the element the given key is placed at.
+   */
+  T identifierOf(CharSequence key);
+
 }
@@ -0,0 +1,163 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupStatistics.Outcome;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The state of a single lookup travelling through the {@link ChordNetwork}: its hop budget, the {@link ChordNode}s
+ * visited so far and its deadline. Bounds lookups, which could otherwise loop forever on stale fingers during churn.
+ *
+ * The hops of a lookup happen one after the other, hence a {@link LookupContext} is never modified concurrently. It is
+ * however read by the originating {@link ChordNode} once the deadline has passed.
+ */
+public final class LookupContext {
+
+  /** Maximum number of hops the lookup may take. */
+  private final int hopBudget;
+
+  /** The clock the deadline refers to, in nanoseconds, see {@link ChordNetwork#nanoTime()}. */
+  private final LongSupplier clock;
+
+  /** Deadline of the lookup, in terms of the {@link #clock}. */
+  private final long deadline;
+
+  /** Identifiers of the {@link ChordNode}s visited so far. */
+  private final Set<Identifier> visited = ConcurrentHashMap.newKeySet();
+
+  /** Number of hops taken so far, i.e. {@link ChordNode}s visited after the first one. */
+  private volatile int hops = -1;
+
+  /** The {@link ChordNode} visited last, i.e. the closest known predecessor of the key. */
+  private volatile ChordNode last;
+
+  /** Whether the lookup has fallen back to walking along successors. */
+  private volatile boolean walking;
+
+  /** The {@link Outcome} of the lookup, null while it is in progress. */
+  private volatile Outcome outcome;
+
+  /**
+   * Creates a new {@link LookupContext}.
+   *
+   * @param hopBudget Maximum number of hops the lookup may take.
+   * @param timeout Time the lookup may take, in milliseconds.
+   */
+  public LookupContext(int hopBudget, long timeout) {
+    this(hopBudget, timeout, System::nanoTime);
+  }
+
+  /**
+   * Creates a new {@link LookupContext} whose deadline refers to the given clock.
+   *
+   * @param hopBudget Maximum number of hops the lookup may take.
+   * @param timeout Time the lookup may take, in milliseconds.
+   * @param clock The clock, in nanoseconds.
+   */
+  public LookupContext(int hopBudget, long timeout, LongSupplier clock) {
+    if (hopBudget < 0) {
+      throw new IllegalArgumentException(String.format("The hop budget cannot be negative but was %d.", hopBudget));
+    }
+    if (timeout < 0) {
+      throw new IllegalArgumentException(String.format("The timeout cannot be negative but was %d.", timeout));
+    }
+    this.hopBudget = hopBudget;
+    this.clock = clock;
+    this.deadline = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(timeout);
+  }
+
+  /**
+   * Creates a new {@link LookupContext} with the hop budget and timeout configured for the given {@link ChordNetwork}.
+   *
+   * @param network The {@link ChordNetwork} the lookup takes place in.
+   * @return New {@link LookupContext}.
+   */
+  public static LookupContext of(ChordNetwork network) {
+    return new LookupContext(network.getLookupHopLimit(), network.getLookupTimeout(), network::nanoTime);
+  }
+
+  /**
+   * Records a visit of the given {@link ChordNode}. Every visit but the first counts as a hop.
+   *
+   * @param node The {@link ChordNode} the lookup arrives at.
+   * @return False, if the {@link ChordNode} has been visited before, i.e. the lookup is running in a loop.
+   */
+  public boolean visit(ChordNode node) {
+    if (!this.visited.add(node.getIdentifier())) {
+      return false;
+    }
+    this.hops++;
+    this.last = node;
+    return true;
+  }
+
+  /**
+   * Whether the hop budget has been used up.
+   *
+   * @return True, if no further hop may be taken.
+   */
+  public boolean exhausted() {
+    return this.hops >= this.hopBudget;
+  }
+
+  /**
+   * Whether the deadline has passed.
+   *
+   * @return True, if the lookup should not continue.
+   */
+  public boolean expired() {
+    return this.clock.getAsLong() - this.deadline >= 0;
+  }
+
+  /**
+   * Time left until the deadline.
+   *
+   * @return Remaining time in milliseconds, 0 if the deadline has passed.
+   */
+  public long remaining() {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.deadline - this.clock.getAsLong()));
+  }
+
+  /**
+   * Makes the lookup fall back to walking along successors, e.g. because fingers are stale.
+   */
+  public void startWalking() {
+    this.walking = true;
+  }
+
+  public boolean isWalking() {
+    return walking;
+  }
+
+  public int getHops() {
+    return Math.max(0, hops);
+  }
+
+  public ChordNode getLast() {
+    return last;
+  }
+
+  /**
+   * Ends the lookup with the given {@link Outcome}. Only the first call has an effect.
+   *
+   * @param outcome The {@link Outcome} of the lookup.
+   */
+  public synchronized void complete(Outcome outcome) {
+    if (this.outcome == null) {
+      this.outcome = outcome;
+    }
+  }
+
+  /**
+   * The {@link Outcome} of the lookup.
+   *
+   * @return {@link Outcome} or null, if the lookup is still in progress.
+   */
+  public Outcome getOutcome() {
+    return outcome;
+  }
+}
@@ -0,0 +1,22 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api;
+
+/**
+ * Thrown if a lookup could not find the {@link ChordNode} responsible for a key, e.g. because it exceeded its hop
+ * budget or deadline. Provides the {@link LookupStatistics}, including the closest {@link ChordNode} reached.
+ */
+public class LookupFailedException extends IllegalStateException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The {@link LookupStatistics} of the failed lookup. */
+  private final transient LookupStatistics statistics;
+
+  public LookupFailedException(LookupStatistics statistics) {
+    super(String.format("The lookup did not resolve: %s", statistics));
+    this.statistics = statistics;
+  }
+
+  public LookupStatistics getStatistics() {
+    return statistics;
+  }
+}
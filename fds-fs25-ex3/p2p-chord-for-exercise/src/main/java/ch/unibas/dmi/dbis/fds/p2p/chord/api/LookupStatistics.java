@@ -0,0 +1,152 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api;
+
+/**
+ * Statistics of a single lookup in the {@link ChordNetwork}: its {@link Outcome}, the {@link ChordNode} found, the
+ * {@link RoutingMode} used, the number of hops and the latency as observed by the originating {@link ChordNode}.
+ *
+ * Lookups that did not resolve still report the closest {@link ChordNode} they reached.
+ */
+public final class LookupStatistics {
+
+  /**
+   * The ways a lookup can end.
+   */
+  public enum Outcome {
+    /** Resolved by routing along fingers. */
+    RESOLVED,
+    /** Resolved after falling back to walking along successors. */
+    RESOLVED_BY_WALKING,
+    /** Aborted, because the hop budget was used up. */
+    HOP_LIMIT_EXCEEDED,
+    /** Aborted, because the deadline has passed. */
+    DEADLINE_EXCEEDED,
+    /** Aborted, because neither fingers nor successors led to an unvisited, live {@link ChordNode}. */
+    NO_ROUTE;
+
+    /**
+     * Whether the lookup has found the responsible {@link ChordNode}.
+     *
+     * @return True, if the lookup has resolved.
+     */
+    public boolean isResolved() {
+      return this == RESOLVED || this == RESOLVED_BY_WALKING;
+    }
+  }
+
+  /** The {@link ChordNode} the lookup resolved to, null if it did not resolve. */
+  private final ChordNode owner;
+
+  /** The closest predecessor of the key the lookup has reached. */
+  private final ChordNode closest;
+
+  /** The {@link RoutingMode} used for the lookup. */
+  private final RoutingMode mode;
+
+  /** The {@link Outcome} of the lookup. */
+  private final Outcome outcome;
+
+  /** Number of hops, i.e. {@link ChordNode}s visited after the originating one. */
+  private final int hops;
+
+  /** Latency of the lookup in nanoseconds. */
+  private final long latency;
+
+  private LookupStatistics(ChordNode owner, ChordNode closest, RoutingMode mode, Outcome outcome, int hops, long latency) {
+    this.owner = owner;
+    this.closest = closest;
+    this.mode = mode;
+    this.outcome = outcome;
+    this.hops = hops;
+    this.latency = latency;
+  }
+
+  /**
+   * Creates the {@link LookupStatistics} of a lookup that has resolved to the given owner.
+   *
+   * @param context The {@link LookupContext} of the lookup.
+   * @param owner The {@link ChordNode} responsible for the key.
+   * @param mode The {@link RoutingMode} used for the lookup.
+   * @return New {@link LookupStatistics}.
+   */
+  public static LookupStatistics resolved(LookupContext context, ChordNode owner, RoutingMode mode) {
+    context.complete(context.isWalking() ? Outcome.RESOLVED_BY_WALKING : Outcome.RESOLVED);
+    return new LookupStatistics(owner, context.getLast(), mode, context.getOutcome(), context.getHops(), 0);
+  }
+
+  /**
+   * Creates the {@link LookupStatistics} of a lookup that has been aborted.
+   *
+   * @param context The {@link LookupContext} of the lookup.
+   * @param outcome The reason why the lookup has been aborted.
+   * @param mode The {@link RoutingMode} used for the lookup.
+   * @return New {@link LookupStatistics}.
+   */
+  public static LookupStatistics failed(LookupContext context, Outcome outcome, RoutingMode mode) {
+    context.complete(outcome);
+    return new LookupStatistics(null, context.getLast(), mode, context.getOutcome(), context.getHops(), 0);
+  }
+
+  /**
+   * The {@link ChordNode} the lookup has resolved to.
+   *
+   * @return The responsible {@link ChordNode} or null, if the lookup did not resolve.
+   */
+  public ChordNode getOwner() {
+    return owner;
+  }
+
+  /**
+   * The closest predecessor of the key the lookup has reached. The partial result of lookups that did not resolve.
+   *
+   * @return The {@link ChordNode} visited last.
+   */
+  public ChordNode getClosest() {
+    return closest;
+  }
+
+  public RoutingMode getMode() {
+    return mode;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public boolean isResolved() {
+    return outcome.isResolved();
+  }
+
+  public int getHops() {
+    return hops;
+  }
+
+  /**
+   * Latency of the lookup, i.e. the time between issuing the query and receiving the answer at the origin. Includes
+   * the simulated network delays, if any.
+   *
+   * @return Latency in nanoseconds.
+   */
+  public long getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns a copy of these {@link LookupStatistics} with the given latency.
+   *
+   * @param latency Latency in nanoseconds.
+   * @return New {@link LookupStatistics}.
+   */
+  public LookupStatistics withLatency(long latency) {
+    return new LookupStatistics(this.owner, this.closest, this.mode, this.outcome, this.hops, latency);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("LookupStatistics{outcome=%s, owner=%s, closest=%s, mode=%s, hops=%d, latency=%.3fms}",
+        this.outcome, index(this.owner), index(this.closest), this.mode, this.hops, this.latency / 1e6);
+  }
+
+  private static String index(ChordNode node) {
+    return node == null ? "null" : node.getIdentifier().toIndexString();
+  }
+}
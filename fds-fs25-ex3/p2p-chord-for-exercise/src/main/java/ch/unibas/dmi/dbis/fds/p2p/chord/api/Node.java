@@ -1,7 +1,11 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A simple {@link Node} as used in an arbitrary network. Exposes simple primitives such as joining and leaving and storing + looking up data.
@@ -38,6 +42,97 @@ public interface Node {
      */
     Optional<String> delete(Node origin, String key);
 
+    /**
+     * Asynchronous variant of {@link #store(Node, String, String)}. The returned future completes once the data has been
+     * stored by the responsible node. The default implementation simply calls the blocking method.
+     *
+     * @param origin the node calling the method (purely for logging purposes). Null if it's the client (i.e., not a node in the network)
+     * @param key of data item
+     * @param value of data item
+     * @return Future completing once the data has been stored.
+     */
+    default CompletableFuture<Void> storeAsync(Node origin, String key, String value) {
+        try {
+            store(origin, key, value);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #lookup(Node, String)}. The default implementation simply calls the blocking method.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param key Key of data item
+     * @return Future of the value of data item identified by the key.
+     */
+    default CompletableFuture<Optional<String>> lookupAsync(Node origin, String key) {
+        try {
+            return CompletableFuture.completedFuture(lookup(origin, key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #delete(Node, String)}. The default implementation simply calls the blocking method.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param key Key of data item
+     * @return Future of the value of data item identified by the key.
+     */
+    default CompletableFuture<Optional<String>> deleteAsync(Node origin, String key) {
+        try {
+            return CompletableFuture.completedFuture(delete(origin, key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Saves all the given pieces of data in the network storage. Equivalent to calling {@link #store(Node, String, String)}
+     * for every entry, but implementations may group the entries by the node responsible for them.
+     *
+     * @param origin the node calling the method (purely for logging purposes). Null if it's the client (i.e., not a node in the network)
+     * @param entries Map of keys and values of the data items
+     */
+    default void storeAll(Node origin, Map<String, String> entries) {
+        entries.forEach((key, value) -> store(origin, key, value));
+    }
+
+    /**
+     * Retrieves all pieces of data identified by the provided keys from the network storage. Equivalent to calling
+     * {@link #lookup(Node, String)} for every key, but implementations may group the keys by the node responsible for them.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param keys Keys of the data items
+     * @return Map of the keys that were found and their values.
+     */
+    default Map<String, String> lookupAll(Node origin, Collection<String> keys) {
+        final Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            lookup(origin, key).ifPresent(value -> values.put(key, value));
+        }
+        return values;
+    }
+
+    /**
+     * Removes all pieces of data identified by the provided keys from the network storage. Equivalent to calling
+     * {@link #delete(Node, String)} for every key, but implementations may group the keys by the node responsible for them.
+     *
+     * @param origin Origin of the request. Null if the query comes from client otherwise the first peer in the network
+     * @param keys Keys of the data items
+     * @return Map of the keys that were deleted and their values.
+     */
+    default Map<String, String> deleteAll(Node origin, Collection<String> keys) {
+        final Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            delete(origin, key).ifPresent(value -> values.put(key, value));
+        }
+        return values;
+    }
+
     /**
      * Returns a set of keys held by this {@link Node}.
      *
@@ -53,10 +148,21 @@ public interface Node {
     void join(Node node);
 
     /**
-     * Causes the {@link Node} to leave the network. Changes its {@link NodeStatus} to offline.
+     * Causes the {@link Node} to leave the network gracefully. Changes its {@link NodeStatus} to offline, hands its data
+     * over to its successor and lets its neighbours know, so that no data is lost.
      */
     void leave();
 
+    /**
+     * Causes the {@link Node} to fail, i.e. to go offline without notice. Its data is lost and the network has to
+     * detect the failure by itself. Meant for simulations; not every {@link Node} supports it.
+     *
+     * @throws UnsupportedOperationException If the {@link Node} cannot simulate a failure, the default.
+     */
+    default void fail() {
+        throw new UnsupportedOperationException(String.format("%s does not support simulated failures.", getClass().getSimpleName()));
+    }
+
     /**
      * Current status of the {@link Node} with respect to the network it belongs to.
      *
@@ -0,0 +1,11 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api;
+
+/**
+ * The way the replicas that answer a read are chosen, if data is replicated (see {@link ChordNetwork#getReplicationFactor()}).
+ *
+ * - FIRST_RESPONDING: The read is sent to all live replicas and answered by the first R of them to respond.
+ * - LEAST_LOADED: The read is sent to the R live replicas with the fewest requests in progress.
+ */
+public enum ReadStrategy {
+  FIRST_RESPONDING, LEAST_LOADED
+}
@@ -0,0 +1,15 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api;
+
+/**
+ * The way lookups are routed through a {@link ChordNetwork}, as discussed in [1], Section 4.
+ *
+ * - ITERATIVE: The originating {@link ChordNode} asks each hop for the next one, hence every hop costs a round trip to the origin.
+ * - RECURSIVE: Every hop forwards the query to the next one itself and the last hop replies straight to the origin.
+ *
+ * [1] Ion Stoica, Robert Morris, David Karger, M. Frans Kaashoek, and Hari Balakrishnan. 2001.
+ *     Chord: A scalable peer-to-peer lookup service for internet applications.
+ *     In Proceedings of the 2001 conference on Applications, technologies, architectures, and protocols for computer communications (SIGCOMM '01). ACM, New York, NY, USA, 149-160
+ */
+public enum RoutingMode {
+  ITERATIVE, RECURSIVE
+}
@@ -0,0 +1,197 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Base class of the {@link PeerStore}s that keep their data items in a concurrent map. Implements versioning, the
+ * {@link MerkleTree} and the size accounting on top of a few primitives of the map.
+ *
+ * Reads never block. Modifications of single items may run concurrently, but are mutually exclusive with the
+ * extraction of a range, which is thus atomic.
+ */
+public abstract class AbstractPeerStore implements PeerStore {
+
+  /** Bytes accounted for the version of a data item. */
+  private static final int VERSION_BYTES = Long.BYTES;
+
+  /** The {@link IdentifierCircle} used to place keys. */
+  private final IdentifierCircle<Identifier> circle;
+
+  /** The {@link MerkleTree} over the data items, including tombstones. */
+  private final MerkleTree tree;
+
+  /** Approximate number of bytes stored, see {@link #bytes()}. */
+  private final AtomicLong bytes = new AtomicLong();
+
+  /** Shared by modifications of single items, held exclusively when a range is extracted. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  protected AbstractPeerStore(IdentifierCircle<Identifier> circle) {
+    this.circle = circle;
+    this.tree = new MerkleTree(circle.getNbits());
+  }
+
+  @Override
+  public StoredKey keyOf(String key) {
+    return new StoredKey(this.circle.identifierOf(key), key);
+  }
+
+  @Override
+  public String get(String key) {
+    final Versioned value = get(keyOf(key));
+    return value == null ? null : value.getValue();
+  }
+
+  @Override
+  public String put(String key, String value) {
+    final Versioned previous = apply(keyOf(key), current -> new Versioned(value, current == null ? 1 : current.getVersion() + 1));
+    return previous == null ? null : previous.getValue();
+  }
+
+  @Override
+  public Versioned update(StoredKey key, String value, long floor) {
+    final Versioned[] written = new Versioned[1];
+    apply(key, current -> written[0] = new Versioned(value, Math.max(floor, current == null ? 0 : current.getVersion()) + 1));
+    return written[0];
+  }
+
+  @Override
+  public boolean merge(StoredKey key, Versioned value) {
+    final Versioned previous = apply(key, current -> Versioned.newer(current, value));
+    return previous == null || value.getVersion() > previous.getVersion();
+  }
+
+  @Override
+  public void putAll(SortedMap<StoredKey, Versioned> items) {
+    for (Map.Entry<StoredKey, Versioned> item : items.entrySet()) {
+      merge(item.getKey(), item.getValue());
+    }
+  }
+
+  @Override
+  public String remove(String key) {
+    this.lock.readLock().lock();
+    try {
+      final StoredKey storedKey = keyOf(key);
+      final Versioned removed = removeEntry(storedKey);
+      if (removed == null) {
+        return null;
+      }
+      account(storedKey, removed, null);
+      return removed.getValue();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> extract(Identifier from, Identifier to) {
+    this.lock.writeLock().lock();
+    try {
+      final NavigableMap<StoredKey, Versioned> extracted = removeRange(from, to);
+      for (Map.Entry<StoredKey, Versioned> item : extracted.entrySet()) {
+        account(item.getKey(), item.getValue(), null);
+      }
+      return extracted;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public long bytes() {
+    return this.bytes.get();
+  }
+
+  @Override
+  public MerkleTree tree() {
+    return this.tree;
+  }
+
+  /**
+   * Replaces the value stored for the given key by the result of the given function, applied to the key and the
+   * current value (null if absent), as {@link java.util.concurrent.ConcurrentMap#compute} does. The function may be
+   * applied more than once; the last application must be the one that took effect.
+   *
+   * @param key The key of the data item.
+   * @param function The function computing the new value; never returns null.
+   * @return The value stored now.
+   */
+  protected abstract Versioned computeEntry(StoredKey key, BiFunction<StoredKey, Versioned, Versioned> function);
+
+  /**
+   * Removes the value stored for the given key.
+   *
+   * @param key The key of the data item.
+   * @return The value removed or null, if nothing was stored for the key.
+   */
+  protected abstract Versioned removeEntry(StoredKey key);
+
+  /**
+   * Removes all data items whose keys lie in the range (from, to] and returns them. Called with exclusive access.
+   *
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The data items removed, ordered by the {@link Identifier} of their keys.
+   */
+  protected abstract NavigableMap<StoredKey, Versioned> removeRange(Identifier from, Identifier to);
+
+  /**
+   * Accounts for a data item an implementation has loaded by itself, e.g. when recovering from disk.
+   *
+   * @param key The key of the data item.
+   * @param value The {@link Versioned} value of the data item.
+   */
+  protected void restore(StoredKey key, Versioned value) {
+    account(key, null, value);
+  }
+
+  /**
+   * Replaces the value stored for the given key by the result of {@code function}, applied to the current value, and
+   * updates the {@link MerkleTree} and the size accordingly.
+   *
+   * @return The value previously stored.
+   */
+  private Versioned apply(StoredKey key, UnaryOperator<Versioned> function) {
+    final Versioned[] previous = new Versioned[1];
+    this.lock.readLock().lock();
+    try {
+      final Versioned current = computeEntry(key, (k, value) -> {
+        previous[0] = value;
+        return function.apply(value);
+      });
+      account(key, previous[0], current);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return previous[0];
+  }
+
+  /**
+   * Accounts for the value of a data item being replaced. Either value may be null.
+   */
+  private void account(StoredKey key, Versioned previous, Versioned current) {
+    this.tree.replace(key, previous, current);
+    this.bytes.addAndGet(bytesOf(key, current) - bytesOf(key, previous));
+  }
+
+  /**
+   * Approximate number of bytes of the given data item, zero if the value is null.
+   */
+  private static long bytesOf(StoredKey key, Versioned value) {
+    if (value == null) {
+      return 0;
+    }
+    final long characters = key.getKey().length() + (value.isTombstone() ? 0 : value.getValue().length());
+    return Character.BYTES * characters + VERSION_BYTES;
+  }
+}
@@ -0,0 +1,76 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link PeerStore} that keeps its data items in an unordered hash map on the heap. Single items are read and
+ * written in constant time, but scanning or extracting a range, as well as a snapshot, takes time proportional to the
+ * number of items stored. Suited to networks whose membership rarely changes.
+ */
+public class HashMapStore extends AbstractPeerStore {
+
+  /** The data items. */
+  private final ConcurrentHashMap<StoredKey, Versioned> entries = new ConcurrentHashMap<>();
+
+  public HashMapStore(IdentifierCircle<Identifier> circle) {
+    super(circle);
+  }
+
+  @Override
+  public Versioned get(StoredKey key) {
+    return this.entries.get(key);
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> scan(Identifier from, Identifier to) {
+    final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+    for (Map.Entry<StoredKey, Versioned> entry : this.entries.entrySet()) {
+      if (Ring.inLeftOpen(from, to, entry.getKey().getIdentifier())) {
+        items.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return items;
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> snapshot() {
+    return new TreeMap<>(this.entries);
+  }
+
+  @Override
+  public int size() {
+    return this.entries.size();
+  }
+
+  @Override
+  protected Versioned computeEntry(StoredKey key, BiFunction<StoredKey, Versioned, Versioned> function) {
+    return this.entries.compute(key, function);
+  }
+
+  @Override
+  protected Versioned removeEntry(StoredKey key) {
+    return this.entries.remove(key);
+  }
+
+  @Override
+  protected NavigableMap<StoredKey, Versioned> removeRange(Identifier from, Identifier to) {
+    final NavigableMap<StoredKey, Versioned> extracted = new TreeMap<>();
+    final Iterator<Map.Entry<StoredKey, Versioned>> iterator = this.entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<StoredKey, Versioned> entry = iterator.next();
+      if (Ring.inLeftOpen(from, to, entry.getKey().getIdentifier())) {
+        extracted.put(entry.getKey(), entry.getValue());
+        iterator.remove();
+      }
+    }
+    return extracted;
+  }
+}
@@ -1,11 +1,19 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
 
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
+import java.math.BigInteger;
+
 /**
  * A hash-index tuple.
  *
  * The identifier consists of a hash and its index on the {@link IdentifierCircle}.
  *
- * This particular implementation is immutable
+ * This particular implementation is immutable. The hash is a function of the index and is computed lazily
+ * upon first access, which is why identifiers are compared by their index only.
+ *
+ * The index is stored as fixed-width unsigned number of three words (192 bits), which is enough for identifier
+ * circles of up to 160 bits. Comparison is unsigned and does not allocate. For circles of up to 31 bits, the
+ * index is also available as int through {@link #getIndex()}.
  *
  * <p>
  *   <h4>Chord Context</h4>
@@ -19,17 +27,45 @@ package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
  */
 public class Identifier implements Comparable<Identifier> {
 
-  private final int hash;
-  private final int index;
+  /** The most significant word of the index. */
+  private final long high;
+
+  /** The middle word of the index. */
+  private final long mid;
+
+  /** The least significant word of the index. */
+  private final long low;
+
+  /** The {@link HashFunction} used to compute the hash. */
+  private final HashFunction function;
+
+  /** The cached hash. Zero means not yet computed, unless {@link #hashIsZero} is set. */
+  private int hash;
+
+  /** Set if the hash has been computed and is zero. */
+  private boolean hashIsZero;
 
   /**
-   * Creates a new identifier based on the given arguments
-   * @param hash The hash. In this implementation this must be the hash of the index.
+   * Creates a new identifier whose hash is computed upon first access.
    * @param index The index, must be a valid index of the {@link IdentifierCircle}
+   * @param function The {@link HashFunction} used to hash the index.
+   */
+  Identifier(int index, HashFunction function) {
+    this(0L, 0L, index, function);
+  }
+
+  /**
+   * Creates a new identifier whose hash is computed upon first access.
+   * @param high The most significant word of the index.
+   * @param mid The middle word of the index.
+   * @param low The least significant word of the index.
+   * @param function The {@link HashFunction} used to hash the index.
    */
-  Identifier(int hash, int index) {
-    this.hash = hash;
-    this.index = index;
+  Identifier(long high, long mid, long low, HashFunction function) {
+    this.high = high;
+    this.mid = mid;
+    this.low = low;
+    this.function = function;
   }
 
   /**
@@ -37,28 +73,105 @@ public class Identifier implements Comparable<Identifier> {
    * @return The hash
    */
   public long getHash() {
-    return hash;
+    /* Racy single-check idiom, as in String#hashCode: a non-zero hash is always valid, a zero hash only with hashIsZero set. */
+    int h = this.hash;
+    if (h == 0 && !this.hashIsZero) {
+      h = fitsInt() ? this.function.hash(this.low) : this.function.hash(toIndexString());
+      if (h == 0) {
+        this.hashIsZero = true;
+      } else {
+        this.hash = h;
+      }
+    }
+    return h;
   }
 
   /**
    * Returns the index of this identifier on the {@link IdentifierCircle}
    * @return The index of this identifier on the {@link IdentifierCircle}
+   * @throws ArithmeticException If the index does not fit into an int, which can only happen for circles of more than 31 bits.
    */
   public int getIndex() {
-    return index;
+    if (!fitsInt()) {
+      throw new ArithmeticException(String.format("The index %s does not fit into an int.", toIndexString()));
+    }
+    return (int) this.low;
+  }
+
+  /**
+   * Returns the most significant word of the index (bits 128 to 191).
+   * @return Most significant word of the index.
+   */
+  public long getHigh() {
+    return this.high;
+  }
+
+  /**
+   * Returns the middle word of the index (bits 64 to 127).
+   * @return Middle word of the index.
+   */
+  public long getMid() {
+    return this.mid;
+  }
+
+  /**
+   * Returns the least significant word of the index (bits 0 to 63).
+   * @return Least significant word of the index.
+   */
+  public long getLow() {
+    return this.low;
+  }
+
+  /**
+   * Returns true, if the index of this identifier can be represented as int, i.e. if {@link #getIndex()} can be used.
+   * @return True if the index fits into an int.
+   */
+  public boolean fitsInt() {
+    return this.high == 0L && this.mid == 0L && this.low >= 0L && this.low <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the decimal representation of the index. Intended for display purposes.
+   * @return Decimal representation of the index.
+   */
+  public String toIndexString() {
+    if (this.high == 0L && this.mid == 0L && this.low >= 0L) {
+      return Long.toString(this.low);
+    }
+    final BigInteger h = new BigInteger(Long.toUnsignedString(this.high));
+    final BigInteger m = new BigInteger(Long.toUnsignedString(this.mid));
+    final BigInteger l = new BigInteger(Long.toUnsignedString(this.low));
+    return h.shiftLeft(128).or(m.shiftLeft(64)).or(l).toString();
   }
 
   /**
    * Comparison of identifiers.
-   * Two identifiers are compared by their indices.
+   * Two identifiers are compared by their indices, which are treated as unsigned numbers.
    * Complies with the {@link Comparable} API.
    * @param o The other identifier to compare this with
    * @return A negative number if this identifier is considered less than the other identifier, 0 if they are considered equal and a positive number, if this one is considered greater than the other one.
-   * @see Integer#compare(int, int)
+   * @see Long#compareUnsigned(long, long)
    */
   @Override
   public int compareTo(Identifier o) {
-    return Integer.compare(index,o.index);
+    if (this.high != o.high) {
+      return Long.compareUnsigned(this.high, o.high);
+    }
+    if (this.mid != o.mid) {
+      return Long.compareUnsigned(this.mid, o.mid);
+    }
+    return Long.compareUnsigned(this.low, o.low);
+  }
+
+  /**
+   * Returns true, if this identifier has the given index.
+   * @param high The most significant word of the index.
+   * @param mid The middle word of the index.
+   * @param low The least significant word of the index.
+   * @return True if the indices match.
+   */
+  boolean hasIndex(long high, long mid, long low) {
+    return this.low == low && this.mid == mid && this.high == high;
   }
 
   /**
@@ -74,11 +187,7 @@ public class Identifier implements Comparable<Identifier> {
     }
 
     Identifier that = (Identifier) o;
-
-    if (getHash() != that.getHash()) {
-      return false;
-    }
-    return getIndex() == that.getIndex();
+    return hasIndex(that.high, that.mid, that.low);
   }
 
   /**
@@ -86,8 +195,9 @@ public class Identifier implements Comparable<Identifier> {
    */
   @Override
   public int hashCode() {
-    int result = (int) (getHash() ^ (getHash() >>> 32));
-    result = 31 * result + getIndex();
+    int result = Long.hashCode(this.low);
+    result = 31 * result + Long.hashCode(this.mid);
+    result = 31 * result + Long.hashCode(this.high);
     return result;
   }
 
@@ -97,8 +207,8 @@ public class Identifier implements Comparable<Identifier> {
   @Override
   public String toString() {
     final StringBuffer sb = new StringBuffer("Identifier{");
-    sb.append("hash=").append(hash);
-    sb.append(", index=").append(index);
+    sb.append("hash=").append(getHash());
+    sb.append(", index=").append(toIndexString());
     sb.append('}');
     return sb.toString();
   }
@@ -14,6 +14,15 @@ import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
  * a tuple of index and n-bit hash of the index (e.g. the tuple (hash, index)
  * where hash is the n-bit hash of the index.
  *
+ * Identifiers are created on demand rather than precomputed for all 2^nbits indices,
+ * so that memory and startup time do not depend on the size of the identifier space.
+ * Recently used identifiers are kept in a small, bounded cache.
+ *
+ * Circles of up to {@link HashFunction#MAX_BITS} bits are supported. The int based accessors ({@link #getIdentifierAt(int)},
+ * {@link #size()}) remain available for narrow circles; wide circles are navigated using {@link #add(Identifier, int)},
+ * {@link #subtract(Identifier, int)} and {@link #identifierOf(CharSequence)}, which operate on the words of the
+ * {@link Identifier} directly.
+ *
  * <p>
  *   <h4>Chord Context</h4>
  *   The {@link IdentifierCircle} is used to retrieve successor and predecessor
@@ -25,11 +34,27 @@ import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
 public class IdentifierCircle implements
     ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle<Identifier> {
 
-  /** The number of bits. The circle's size is 2 to the power of this number. (Math.pow(2, nbits)) */
+  /** The default number of slots in the identifier cache. */
+  public static final int DEFAULT_CACHE_SIZE = 1024;
+
+  /** The number of bits. The circle's size is 2 to the power of this number. */
   private final int nbits;
 
-  /** The array of identifiers */
-  private final Identifier[] identifiers;
+  /** The {@link HashFunction} used to hash the indices. */
+  private final HashFunction function;
+
+  /** Masks applied to the words of an index to reduce it modulo 2^nbits. */
+  private final long maskHigh, maskMid, maskLow;
+
+  /** Per-thread buffers receiving wide key hashes. */
+  private static final ThreadLocal<long[]> WORDS = ThreadLocal.withInitial(() -> new long[3]);
+
+  /**
+   * Direct-mapped cache of identifiers, indexed by the low bits of the index. Identifiers are immutable (their lazily
+   * computed hash is safe to race on), hence unsynchronized access is fine: a reader either sees a complete identifier
+   * or creates a new, equal one.
+   */
+  private final Identifier[] cache;
 
   /**
    * Creates a new identifier circle for the given number of bytes.
@@ -37,20 +62,47 @@ public class IdentifierCircle implements
    * @param nbits The number of bytes used for hashing, thus determining the size of the circle
    */
   public IdentifierCircle(int nbits){
+    this(nbits, new HashFunction(nbits));
+  }
+
+  /**
+   * Creates a new identifier circle for the given number of bytes, whose identifiers are hashed with the given {@link HashFunction}.
+   * Ultimately, the circle's size is 2^number of bytes
+   * @param nbits The number of bytes used for hashing, thus determining the size of the circle
+   * @param f The {@link HashFunction} used to hash the indices.
+   */
+  public IdentifierCircle(int nbits, HashFunction f){
+    this(nbits, f, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a new identifier circle for the given number of bytes, whose identifiers are hashed with the given {@link HashFunction}.
+   * Ultimately, the circle's size is 2^number of bytes
+   * @param nbits The number of bytes used for hashing, thus determining the size of the circle
+   * @param f The {@link HashFunction} used to hash the indices.
+   * @param cacheSize Upper bound for the number of cached identifiers. Rounded down to a power of two; 0 disables caching.
+   */
+  public IdentifierCircle(int nbits, HashFunction f, int cacheSize){
+    if (nbits < 1 || nbits > HashFunction.MAX_BITS) {
+      throw new IllegalArgumentException(String.format("The number of bits must be between 1 and %d but was %d.", HashFunction.MAX_BITS, nbits));
+    }
     this.nbits = nbits;
-    identifiers = new Identifier[size()];
-    preComputeIdentifiers();
+    this.function = f;
+    this.maskLow = mask(nbits);
+    this.maskMid = mask(nbits - Long.SIZE);
+    this.maskHigh = mask(nbits - 2 * Long.SIZE);
+    final int capacity = nbits < Integer.SIZE - 1 ? Math.min(Integer.highestOneBit(Math.max(cacheSize, 1)), 1 << nbits) : Integer.highestOneBit(Math.max(cacheSize, 1));
+    this.cache = new Identifier[cacheSize <= 0 ? 0 : capacity];
   }
 
   /**
-   * Precomputes the identifiers.
-   * Identifiers are immutable and can be pre-computed therefore
+   * Returns the mask keeping the lowest {@code bits} bits of a word.
    */
-  private void preComputeIdentifiers(){
-    final HashFunction f = new HashFunction(nbits);
-    for(int i=0; i<size(); i++){
-      identifiers[i] = new Identifier(f.hash(i),i);
+  private static long mask(int bits) {
+    if (bits <= 0) {
+      return 0L;
     }
+    return bits >= Long.SIZE ? -1L : (1L << bits) - 1;
   }
 
   /**
@@ -65,16 +117,137 @@ public class IdentifierCircle implements
    */
   @Override
   public Identifier getIdentifierAt(int i) {
-    return identifiers[Math.floorMod(i, size())]; // Makes it possible to get the -1st identifier, which is the last one (in array form): e.g. with size=8: -1 + 8 = 7, 7 % 8 = 7
+    /* Sign-extending and masking is the floor modulo by 2^nbits, e.g. with nbits=3: -1 is ...111, masked to 111 = 7. */
+    final long sign = i < 0 ? -1L : 0L;
+    return getIdentifier(sign, sign, i);
+  }
+
+  /**
+   * Returns the identifier with the given index, given as three words (most significant first), modulo the circle's size.
+   * @param high The most significant word of the index.
+   * @param mid The middle word of the index.
+   * @param low The least significant word of the index.
+   *
+   * @return The identifier at the given position.
+   */
+  public Identifier getIdentifier(long high, long mid, long low) {
+    high &= this.maskHigh;
+    mid &= this.maskMid;
+    low &= this.maskLow;
+    if (this.cache.length == 0) {
+      return new Identifier(high, mid, low, this.function);
+    }
+    final int slot = (int) low & (this.cache.length - 1);
+    final Identifier cached = this.cache[slot];
+    if (cached != null && cached.hasIndex(high, mid, low)) {
+      return cached;
+    }
+    final Identifier identifier = new Identifier(high, mid, low, this.function);
+    this.cache[slot] = identifier;
+    return identifier;
+  }
+
+  /**
+   * Returns the identifier 2^exponent positions clockwise of the given identifier, i.e. (id + 2^exponent) mod 2^nbits.
+   * @param id The identifier to start from.
+   * @param exponent The exponent of the distance, 0 &lt;= exponent &lt; nbits.
+   *
+   * @return The identifier at the given distance.
+   */
+  @Override
+  public Identifier add(Identifier id, int exponent) {
+    checkExponent(exponent);
+    long low = id.getLow(), mid = id.getMid(), high = id.getHigh();
+    if (exponent < Long.SIZE) {
+      final long sum = low + (1L << exponent);
+      if (Long.compareUnsigned(sum, low) < 0 && ++mid == 0L) {
+        high++;
+      }
+      low = sum;
+    } else if (exponent < 2 * Long.SIZE) {
+      final long sum = mid + (1L << (exponent - Long.SIZE));
+      if (Long.compareUnsigned(sum, mid) < 0) {
+        high++;
+      }
+      mid = sum;
+    } else {
+      high += 1L << (exponent - 2 * Long.SIZE);
+    }
+    return getIdentifier(high, mid, low);
+  }
+
+  /**
+   * Returns the identifier 2^exponent positions counter clockwise of the given identifier, i.e. (id - 2^exponent) mod 2^nbits.
+   * @param id The identifier to start from.
+   * @param exponent The exponent of the distance, 0 &lt;= exponent &lt; nbits.
+   *
+   * @return The identifier at the given distance.
+   */
+  @Override
+  public Identifier subtract(Identifier id, int exponent) {
+    checkExponent(exponent);
+    long low = id.getLow(), mid = id.getMid(), high = id.getHigh();
+    if (exponent < Long.SIZE) {
+      final long difference = low - (1L << exponent);
+      if (Long.compareUnsigned(difference, low) > 0 && mid-- == 0L) {
+        high--;
+      }
+      low = difference;
+    } else if (exponent < 2 * Long.SIZE) {
+      final long difference = mid - (1L << (exponent - Long.SIZE));
+      if (Long.compareUnsigned(difference, mid) > 0) {
+        high--;
+      }
+      mid = difference;
+    } else {
+      high -= 1L << (exponent - 2 * Long.SIZE);
+    }
+    return getIdentifier(high, mid, low);
+  }
+
+  /**
+   * Returns the identifier the given key is placed at, i.e. its hash on this circle.
+   * For up to {@link HashFunction#INT_BITS} bits, this is {@code getIdentifierAt(function.hash(key))}.
+   * @param key The key to place on the circle.
+   *
+   * @return The identifier of the key.
+   */
+  @Override
+  public Identifier identifierOf(CharSequence key) {
+    if (this.nbits <= HashFunction.INT_BITS) {
+      return getIdentifierAt(this.function.hash(key));
+    }
+    final long[] words = WORDS.get();
+    this.function.hashWide(key, words);
+    return getIdentifier(words[0], words[1], words[2]);
+  }
+
+  private void checkExponent(int exponent) {
+    if (exponent < 0 || exponent >= this.nbits) {
+      throw new IllegalArgumentException(String.format("The exponent must be between 0 and %d but was %d.", this.nbits - 1, exponent));
+    }
   }
 
   /**
    * Returns the size of the identifier circle, e.g the amount of items on the circle.
    * @return The size of the identifier circle, e.g the amount of items on the circle.
+   * @throws ArithmeticException If the size does not fit into an int, i.e. for more than 30 bits.
    */
   @Override
   public int size() {
-    return (int)Math.pow(2, nbits);
+    if (this.nbits >= Integer.SIZE - 1) {
+      throw new ArithmeticException(String.format("The size of a circle with %d bits does not fit into an int.", this.nbits));
+    }
+    return 1 << this.nbits;
+  }
+
+  /**
+   * Returns the number of bits of this circle, i.e. its size is 2^nbits.
+   * @return The number of bits.
+   */
+  @Override
+  public int getNbits() {
+    return this.nbits;
   }
 
   /**
@@ -85,7 +258,7 @@ public class IdentifierCircle implements
    */
   @Override
   public Identifier next(Identifier id) {
-    return identifiers[id.getIndex() + 1 % size()];
+    return add(id, 0);
   }
 
   /**
@@ -96,6 +269,6 @@ public class IdentifierCircle implements
    */
   @Override
   public Identifier last(Identifier id) {
-    return identifiers[(id.getIndex() + size() - id.getIndex()) % size()];
+    return subtract(id, 0);
   }
 }
@@ -38,7 +38,7 @@ public class IdentifierCircularInterval extends CircularInterval<Identifier> {
 
   @Override
   public String toString() {
-    return ""+(isLeftClosed() ? "[" : "(" )+ getLeftBound().getIndex()+","+getRightBound().getIndex()+ (isRightClosed() ? "]" : ")");
+    return ""+(isLeftClosed() ? "[" : "(" )+ getLeftBound().toIndexString()+","+getRightBound().toIndexString()+ (isRightClosed() ? "]" : ")");
   }
 
 }
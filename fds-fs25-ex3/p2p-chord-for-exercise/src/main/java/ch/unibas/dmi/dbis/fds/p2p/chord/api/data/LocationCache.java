@@ -0,0 +1,173 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNode;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+
+import java.util.TreeMap;
+
+/**
+ * A bounded cache mapping ranges of the identifier circle to the {@link ChordNode} responsible for them, i.e. a node n
+ * owning the range (n.predecessor, n]. Used to resolve keys without routing, if their owner has been looked up before.
+ *
+ * Ranges are indexed by their right bound (the owner's identifier), hence a key is resolved by looking up the first
+ * range ending at or after it. Entries are evicted using the CLOCK algorithm once the capacity is reached.
+ *
+ * Cached entries may become stale when the ring changes. The cache does not guarantee correctness, callers are
+ * expected to verify the owner and to invalidate wrong entries.
+ */
+public class LocationCache {
+
+  /** Cached ranges, indexed by their right bound. */
+  private final TreeMap<Identifier, Entry> ranges = new TreeMap<>();
+
+  /** The slots of the CLOCK. */
+  private final Entry[] clock;
+
+  /** Position of the CLOCK hand. */
+  private int hand;
+
+  /**
+   * Creates a new {@link LocationCache}.
+   *
+   * @param capacity Maximum number of ranges to cache. 0 disables the cache.
+   */
+  public LocationCache(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException(String.format("The capacity cannot be negative but was %d.", capacity));
+    }
+    this.clock = new Entry[capacity];
+  }
+
+  /**
+   * Returns the cached owner of the given key, if any.
+   *
+   * @param key The {@link Identifier} of the key.
+   * @return The owner of the range containing the key or null, if no cached range contains it.
+   */
+  public synchronized ChordNode get(Identifier key) {
+    if (this.ranges.isEmpty()) {
+      return null;
+    }
+    Identifier right = this.ranges.ceilingKey(key);
+    if (right == null) {
+      right = this.ranges.firstKey(); /* Wraps around. */
+    }
+    final Entry entry = this.ranges.get(right);
+    if (Ring.inLeftOpen(entry.left, right, key)) {
+      entry.referenced = true;
+      return entry.owner;
+    }
+    return null;
+  }
+
+  /**
+   * Caches the range (left, owner] for the given owner, replacing any range previously cached for it.
+   *
+   * @param left The exclusive left bound of the range, i.e. the identifier of the owner's predecessor.
+   * @param owner The {@link ChordNode} responsible for the range.
+   */
+  public synchronized void put(Identifier left, ChordNode owner) {
+    if (this.clock.length == 0) {
+      return;
+    }
+    final Entry existing = this.ranges.get(owner.getIdentifier());
+    if (existing != null) {
+      final Entry replacement = new Entry(left, owner, existing.slot);
+      this.clock[existing.slot] = replacement;
+      this.ranges.put(owner.getIdentifier(), replacement);
+      return;
+    }
+    final int slot = victim();
+    if (this.clock[slot] != null) {
+      this.ranges.remove(this.clock[slot].owner.getIdentifier());
+    }
+    final Entry entry = new Entry(left, owner, slot);
+    this.clock[slot] = entry;
+    this.ranges.put(owner.getIdentifier(), entry);
+  }
+
+  /**
+   * Removes all cached ranges containing the given {@link Identifier}. To be called when a node joins at that
+   * identifier, since it splits the range it falls into.
+   *
+   * @param id The {@link Identifier} whose ranges should be invalidated.
+   */
+  public synchronized void invalidate(Identifier id) {
+    for (int i = 0; i < this.clock.length; i++) {
+      final Entry entry = this.clock[i];
+      if (entry != null && Ring.inLeftOpen(entry.left, entry.owner.getIdentifier(), id)) {
+        remove(entry);
+      }
+    }
+  }
+
+  /**
+   * Removes the range cached for the given owner, e.g. because it has failed or turned out to be wrong.
+   *
+   * @param owner The {@link ChordNode} whose range should be invalidated.
+   */
+  public synchronized void invalidateOwner(ChordNode owner) {
+    final Entry entry = this.ranges.get(owner.getIdentifier());
+    if (entry != null && entry.owner == owner) {
+      remove(entry);
+    }
+  }
+
+  /**
+   * Removes all cached ranges.
+   */
+  public synchronized void clear() {
+    this.ranges.clear();
+    for (int i = 0; i < this.clock.length; i++) {
+      this.clock[i] = null;
+    }
+  }
+
+  /**
+   * Number of cached ranges.
+   *
+   * @return Number of cached ranges.
+   */
+  public synchronized int size() {
+    return this.ranges.size();
+  }
+
+  private void remove(Entry entry) {
+    this.ranges.remove(entry.owner.getIdentifier());
+    this.clock[entry.slot] = null;
+  }
+
+  /**
+   * Advances the CLOCK hand to the next free slot or the first entry that has not been referenced since the hand
+   * last passed it. Referenced entries get a second chance.
+   *
+   * @return The slot to use.
+   */
+  private int victim() {
+    while (true) {
+      final int slot = this.hand;
+      this.hand = (this.hand + 1) % this.clock.length;
+      final Entry entry = this.clock[slot];
+      if (entry == null || !entry.referenced) {
+        return slot;
+      }
+      entry.referenced = false;
+    }
+  }
+
+  /**
+   * A cached range (left, owner].
+   */
+  private static final class Entry {
+    private final Identifier left;
+    private final ChordNode owner;
+    private final int slot;
+    private boolean referenced;
+
+    private Entry(Identifier left, ChordNode owner, int slot) {
+      this.left = left;
+      this.owner = owner;
+      this.slot = slot;
+    }
+  }
+}
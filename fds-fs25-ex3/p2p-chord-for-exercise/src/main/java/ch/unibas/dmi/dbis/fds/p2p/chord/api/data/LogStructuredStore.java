@@ -0,0 +1,794 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A persistent {@link PeerStore}: every modification is appended to a log of memory-mapped segment files, while an
+ * in-memory index, ordered like the {@link SkipListStore}, points to the latest record of every key. A peer that is
+ * restarted with the same store finds its data again.
+ *
+ * - Group commit: writes only append to the mapped segments and return. Every {@link #COMMIT_INTERVAL} ms, the dirty
+ *   segments are forced to disk at once; {@link #commit()} waits for the next such commit. Hence a write is not durable
+ *   when it returns: a crash loses the writes of up to the last {@link #COMMIT_INTERVAL} ms. Callers that need a write
+ *   to survive a crash wait on {@link #commit()} after it.
+ * - Checkpoints: every {@link #CHECKPOINT_INTERVAL} ms, segments that are at most half live are compacted (their live
+ *   records are appended anew) and the index is written to a checkpoint file. Recovery loads the checkpoint and only
+ *   replays the log written after it.
+ * - Neither blocks the writers while it does I/O: the segments to force and the index to checkpoint are taken under
+ *   the lock, forced and written outside of it, and compaction relocates records in batches of {@link #BATCH}.
+ * - Records carry a CRC, hence a record torn by a crash ends the log.
+ *
+ * Record layout: length, CRC, identifier (three words), version, length of key, length of value (-1 for a tombstone,
+ * -2 for a removal), key and value (UTF-8).
+ */
+public class LogStructuredStore extends AbstractPeerStore {
+
+  /** Default size of a segment in bytes. */
+  public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+  /** Interval between group commits in milliseconds. */
+  public static final long COMMIT_INTERVAL = 10;
+
+  /** Interval between compactions and checkpoints in milliseconds. */
+  public static final long CHECKPOINT_INTERVAL = 10_000;
+
+  /** Number of records a compaction relocates per acquisition of the lock. */
+  private static final int BATCH = 256;
+
+  /** Bytes of the header of a record. */
+  private static final int HEADER = 2 * Integer.BYTES + 4 * Long.BYTES + 2 * Integer.BYTES;
+
+  /** Offset of the identifier in a record. */
+  private static final int IDENTIFIER = 2 * Integer.BYTES;
+
+  /** Offset of the version in a record. */
+  private static final int VERSION = IDENTIFIER + 3 * Long.BYTES;
+
+  /** Offset of the length of the key in a record. */
+  private static final int KEY_LENGTH = VERSION + Long.BYTES;
+
+  /** Offset of the length of the value in a record. */
+  private static final int VALUE_LENGTH = KEY_LENGTH + Integer.BYTES;
+
+  /** Length of the value of a record that removes its key. */
+  private static final int REMOVED = -2;
+
+  /** Marks a valid checkpoint file. */
+  private static final int CHECKPOINT_MAGIC = 0x43484b50;
+
+  /** Name of the checkpoint file. */
+  private static final String CHECKPOINT = "checkpoint";
+
+  /** Commits, compacts and checkpoints all open stores. */
+  private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+    final Thread thread = new Thread(r, "log-store-commit");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** A memory-mapped segment of the log. */
+  private static final class Segment {
+    final int id;
+    final Path file;
+    final MappedByteBuffer buffer;
+    /** Offset up to which records have been appended. */
+    int end;
+    /** Bytes of the records the index points to. */
+    long live;
+    /** Whether records have been appended since the last commit. */
+    boolean dirty;
+
+    Segment(int id, Path file, MappedByteBuffer buffer) {
+      this.id = id;
+      this.file = file;
+      this.buffer = buffer;
+    }
+  }
+
+  /** The directory holding the segments and the checkpoint. */
+  private final Path directory;
+
+  /** Size of new segments in bytes. */
+  private final int segmentSize;
+
+  /** Location (segment id and offset) of the latest record of every key. */
+  private final ConcurrentSkipListMap<StoredKey, Long> index = new ConcurrentSkipListMap<>();
+
+  /** The segments, by id. The last one is appended to. */
+  private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+  /** Futures waiting for the next group commit. */
+  private List<CompletableFuture<Void>> waiting = new ArrayList<>();
+
+  /** Readers share, writers and compactions are exclusive. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Serializes group commits and checkpoints, which do their I/O outside of {@link #lock}. */
+  private final Lock maintenance = new ReentrantLock();
+
+  /** The periodic group commit and checkpoint. */
+  private final List<ScheduledFuture<?>> tasks;
+
+  /**
+   * Opens the store in the given directory with segments of the default size, recovering the data found there.
+   *
+   * @param circle The {@link IdentifierCircle} used to place keys.
+   * @param directory The directory of the store, created if it does not exist.
+   */
+  public LogStructuredStore(IdentifierCircle<Identifier> circle, Path directory) {
+    this(circle, directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens the store in the given directory, recovering the data found there.
+   *
+   * @param circle The {@link IdentifierCircle} used to place keys.
+   * @param directory The directory of the store, created if it does not exist.
+   * @param segmentSize Size of new segments in bytes.
+   */
+  public LogStructuredStore(IdentifierCircle<Identifier> circle, Path directory, int segmentSize) {
+    super(circle);
+    if (segmentSize < HEADER) {
+      throw new IllegalArgumentException(String.format("The segment size must be at least %d but was %d.", HEADER, segmentSize));
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.tasks = Arrays.asList(
+        schedule(this, LogStructuredStore::groupCommit, COMMIT_INTERVAL),
+        schedule(this, LogStructuredStore::checkpointQuietly, CHECKPOINT_INTERVAL));
+  }
+
+  /**
+   * Returns a {@link PeerStore.Factory} that keeps the stores of a network in subdirectories of the given directory,
+   * named after the stores. Anonymous stores get a new subdirectory.
+   *
+   * @param root The directory of the stores.
+   * @return {@link PeerStore.Factory}
+   */
+  public static PeerStore.Factory factory(Path root) {
+    return new PeerStore.Factory() {
+      @Override
+      public PeerStore create(IdentifierCircle<Identifier> circle) {
+        try {
+          Files.createDirectories(root);
+          return new LogStructuredStore(circle, Files.createTempDirectory(root, "store-"));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public PeerStore create(IdentifierCircle<Identifier> circle, String name) {
+        return new LogStructuredStore(circle, root.resolve(name));
+      }
+    };
+  }
+
+  @Override
+  public Versioned get(StoredKey key) {
+    this.lock.readLock().lock();
+    try {
+      final Long location = this.index.get(key);
+      return location == null ? null : valueAt(location);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> scan(Identifier from, Identifier to) {
+    this.lock.readLock().lock();
+    try {
+      final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+      for (ConcurrentNavigableMap<StoredKey, Long> range : ranges(from, to)) {
+        for (Map.Entry<StoredKey, Long> entry : range.entrySet()) {
+          items.put(entry.getKey(), valueAt(entry.getValue()));
+        }
+      }
+      return items;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> snapshot() {
+    this.lock.readLock().lock();
+    try {
+      final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+      for (Map.Entry<StoredKey, Long> entry : this.index.entrySet()) {
+        items.put(entry.getKey(), valueAt(entry.getValue()));
+      }
+      return items;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.index.size();
+  }
+
+  /**
+   * Returns a future that completes once all writes issued so far are durable, i.e. after the next group commit.
+   *
+   * @return Future completing after the next group commit.
+   */
+  public CompletableFuture<Void> commit() {
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    this.lock.writeLock().lock();
+    try {
+      this.waiting.add(future);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    return future;
+  }
+
+  /**
+   * Compacts the segments that are at most half live and writes a checkpoint of the index, such that recovery only
+   * has to replay the log written afterwards. Segments that have been compacted are deleted.
+   *
+   * @return Number of segments deleted.
+   * @throws UncheckedIOException If the checkpoint cannot be written.
+   */
+  public int checkpoint() {
+    this.maintenance.lock();
+    try {
+      final Set<Integer> sparse = new HashSet<>();
+      this.lock.writeLock().lock();
+      try {
+        final Segment active = this.segments.lastEntry().getValue();
+        for (Segment segment : this.segments.values()) {
+          if (segment != active && 2 * segment.live <= segment.end) {
+            sparse.add(segment.id);
+          }
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+      if (!sparse.isEmpty()) {
+        compact(sparse);
+      }
+
+      /* Take the index along with the end of the log it reflects, force the log up to there and write them out. */
+      final List<Map.Entry<StoredKey, Long>> entries = new ArrayList<>(this.index.size());
+      final int[] position = new int[2];
+      final List<Segment> dirty;
+      this.lock.writeLock().lock();
+      try {
+        final Segment active = this.segments.lastEntry().getValue();
+        position[0] = active.id;
+        position[1] = active.end;
+        entries.addAll(this.index.entrySet());
+        dirty = takeDirty();
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+      force(dirty);
+      writeCheckpoint(position, entries);
+
+      final List<Segment> deleted = new ArrayList<>(sparse.size());
+      this.lock.writeLock().lock();
+      try {
+        for (Integer id : sparse) {
+          deleted.add(this.segments.remove(id));
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+      for (Segment segment : deleted) {
+        Files.deleteIfExists(segment.file);
+      }
+      return sparse.size();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      this.maintenance.unlock();
+    }
+  }
+
+  /**
+   * Commits all writes, writes a checkpoint and stops the periodic tasks. The store must not be used afterwards.
+   */
+  @Override
+  public void close() {
+    for (ScheduledFuture<?> task : this.tasks) {
+      task.cancel(false);
+    }
+    checkpoint();
+    groupCommit();
+  }
+
+  @Override
+  protected Versioned computeEntry(StoredKey key, BiFunction<StoredKey, Versioned, Versioned> function) {
+    this.lock.writeLock().lock();
+    try {
+      final Long location = this.index.get(key);
+      final Versioned current = function.apply(key, location == null ? null : valueAt(location));
+      this.index.put(key, append(key, current.getValue(), current.isTombstone() ? -1 : 0, current.getVersion()));
+      if (location != null) {
+        release(location);
+      }
+      return current;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  protected Versioned removeEntry(StoredKey key) {
+    this.lock.writeLock().lock();
+    try {
+      final Long location = this.index.remove(key);
+      if (location == null) {
+        return null;
+      }
+      final Versioned removed = valueAt(location);
+      release(location);
+      append(key, null, REMOVED, 0);
+      return removed;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  protected NavigableMap<StoredKey, Versioned> removeRange(Identifier from, Identifier to) {
+    this.lock.writeLock().lock();
+    try {
+      final NavigableMap<StoredKey, Versioned> extracted = new TreeMap<>();
+      for (ConcurrentNavigableMap<StoredKey, Long> range : ranges(from, to)) {
+        for (Map.Entry<StoredKey, Long> entry : range.entrySet()) {
+          extracted.put(entry.getKey(), valueAt(entry.getValue()));
+          release(entry.getValue());
+          append(entry.getKey(), null, REMOVED, 0);
+        }
+        range.clear();
+      }
+      return extracted;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Appends a record to the active segment, starting a new segment if it does not fit.
+   *
+   * @param valueLength 0 for a value, -1 for a tombstone or -2 for a removal.
+   * @return The location of the record.
+   */
+  private long append(StoredKey key, String value, int valueLength, long version) {
+    final byte[] keyBytes = key.getKey().getBytes(StandardCharsets.UTF_8);
+    final byte[] valueBytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    final int length = HEADER + keyBytes.length + valueBytes.length;
+    final Segment segment = reserve(length);
+    final ByteBuffer record = segment.buffer.duplicate();
+    record.position(segment.end);
+    record.putInt(length).putInt(0);
+    record.putLong(key.getIdentifier().getHigh()).putLong(key.getIdentifier().getMid()).putLong(key.getIdentifier().getLow());
+    record.putLong(version).putInt(keyBytes.length).putInt(value == null ? valueLength : valueBytes.length);
+    record.put(keyBytes).put(valueBytes);
+    segment.buffer.putInt(segment.end + Integer.BYTES, crc(segment.buffer, segment.end, length));
+    final long location = location(segment.id, segment.end);
+    segment.end += length;
+    segment.dirty = true;
+    if (valueLength != REMOVED) {
+      segment.live += length;
+    }
+    return location;
+  }
+
+  /**
+   * Moves the records the index points to in the given segments to the active segment, {@link #BATCH} at a time, such
+   * that writers only wait for one batch. The segments are neither active nor appended to, hence no record can move
+   * into them meanwhile; a key that is written meanwhile simply does not point to them anymore.
+   */
+  private void compact(Set<Integer> sparse) {
+    final List<Map.Entry<StoredKey, Long>> batch = new ArrayList<>(BATCH);
+    for (Map.Entry<StoredKey, Long> entry : this.index.entrySet()) {
+      if (sparse.contains(segmentOf(entry.getValue()))) {
+        batch.add(entry);
+        if (batch.size() == BATCH) {
+          relocate(batch);
+          batch.clear();
+        }
+      }
+    }
+    relocate(batch);
+  }
+
+  private void relocate(List<Map.Entry<StoredKey, Long>> batch) {
+    this.lock.writeLock().lock();
+    try {
+      for (Map.Entry<StoredKey, Long> entry : batch) {
+        final Long location = entry.getValue();
+        if (location.equals(this.index.get(entry.getKey()))) {
+          this.index.put(entry.getKey(), relocate(this.segments.get(segmentOf(location)), offsetOf(location)));
+        }
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the record at the given offset of the given segment to the active segment.
+   */
+  private long relocate(Segment source, int offset) {
+    final int length = source.buffer.getInt(offset);
+    final Segment target = reserve(length);
+    final ByteBuffer from = source.buffer.duplicate();
+    from.position(offset).limit(offset + length);
+    final ByteBuffer to = target.buffer.duplicate();
+    to.position(target.end);
+    to.put(from);
+    final long location = location(target.id, target.end);
+    target.end += length;
+    target.live += length;
+    target.dirty = true;
+    source.live -= length;
+    return location;
+  }
+
+  /**
+   * Returns the active segment, after starting a new one if the given number of bytes does not fit.
+   */
+  private Segment reserve(int length) {
+    final Segment active = this.segments.lastEntry().getValue();
+    if (active.buffer.capacity() - active.end >= length) {
+      return active;
+    }
+    try {
+      return open(active.id + 1, Math.max(this.segmentSize, length));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Accounts for the record at the given location not being referenced by the index anymore.
+   */
+  private void release(long location) {
+    final Segment segment = this.segments.get(segmentOf(location));
+    segment.live -= segment.buffer.getInt(offsetOf(location));
+  }
+
+  private Versioned valueAt(long location) {
+    final ByteBuffer buffer = this.segments.get(segmentOf(location)).buffer;
+    final int offset = offsetOf(location);
+    final int valueLength = buffer.getInt(offset + VALUE_LENGTH);
+    final String value = valueLength < 0 ? null : decode(buffer, offset + HEADER + buffer.getInt(offset + KEY_LENGTH), valueLength);
+    return new Versioned(value, buffer.getLong(offset + VERSION));
+  }
+
+  /**
+   * Forces all dirty segments to disk and completes the futures waiting for it.
+   */
+  private void groupCommit() {
+    final List<CompletableFuture<Void>> committed;
+    final List<Segment> dirty;
+    RuntimeException failure = null;
+    this.maintenance.lock();
+    try {
+      this.lock.writeLock().lock();
+      try {
+        dirty = takeDirty();
+        committed = this.waiting;
+        this.waiting = new ArrayList<>();
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+      try {
+        force(dirty);
+      } catch (UncheckedIOException e) {
+        failure = e;
+      }
+    } finally {
+      this.maintenance.unlock();
+    }
+    for (CompletableFuture<Void> future : committed) {
+      if (failure == null) {
+        future.complete(null);
+      } else {
+        future.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /**
+   * Returns the segments appended to since the last commit and marks them clean; the caller holds the write lock.
+   */
+  private List<Segment> takeDirty() {
+    final List<Segment> dirty = new ArrayList<>();
+    for (Segment segment : this.segments.values()) {
+      if (segment.dirty) {
+        dirty.add(segment);
+        segment.dirty = false;
+      }
+    }
+    return dirty;
+  }
+
+  /**
+   * Forces the given segments to disk. Records appended to them meanwhile may or may not be forced along; they marked
+   * their segment dirty again, hence the next commit forces them. If forcing fails, the segments are marked dirty again.
+   */
+  private void force(List<Segment> dirty) {
+    try {
+      for (Segment segment : dirty) {
+        segment.buffer.force();
+      }
+    } catch (UncheckedIOException e) {
+      this.lock.writeLock().lock();
+      try {
+        for (Segment segment : dirty) {
+          segment.dirty = true;
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+      throw e;
+    }
+  }
+
+  private void checkpointQuietly() {
+    try {
+      checkpoint();
+    } catch (UncheckedIOException e) {
+      /* Recovery falls back to the previous checkpoint and a longer replay. */
+    }
+  }
+
+  /**
+   * Writes the index, along with the end of the log it reflects, to a new checkpoint file, which atomically replaces
+   * the previous one.
+   *
+   * @param position The segment and offset the index reflects the log up to.
+   * @param entries The entries of the index.
+   */
+  private void writeCheckpoint(int[] position, List<Map.Entry<StoredKey, Long>> entries) throws IOException {
+    final Path temporary = this.directory.resolve(CHECKPOINT + ".tmp");
+    final CRC32 crc = new CRC32();
+    try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)), crc))) {
+      out.writeInt(CHECKPOINT_MAGIC);
+      out.writeInt(position[0]);
+      out.writeInt(position[1]);
+      out.writeInt(entries.size());
+      for (Map.Entry<StoredKey, Long> entry : entries) {
+        final byte[] key = entry.getKey().getKey().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(entry.getValue());
+      }
+      out.flush();
+      out.writeLong(crc.getValue());
+    }
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+    Files.move(temporary, this.directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Loads the segments and the checkpoint and replays the log written after the checkpoint. Without a valid
+   * checkpoint, the whole log is replayed.
+   */
+  private void recover() throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (Stream<Path> listing = Files.list(this.directory)) {
+      listing.filter(f -> f.getFileName().toString().endsWith(".log")).forEach(files::add);
+    }
+    Collections.sort(files);
+    for (Path file : files) {
+      final int id = Integer.parseInt(file.getFileName().toString().replace(".log", ""));
+      final Segment segment = open(id, (int) Files.size(file));
+      segment.end = segment.buffer.capacity();
+    }
+    if (this.segments.isEmpty()) {
+      open(0, this.segmentSize);
+    }
+
+    int fromSegment = this.segments.firstKey();
+    int fromOffset = 0;
+    final int[] position = readCheckpoint();
+    if (position != null) {
+      fromSegment = position[0];
+      fromOffset = position[1];
+    }
+    for (Segment segment : this.segments.values()) {
+      if (segment.id < fromSegment) {
+        continue;
+      }
+      int offset = segment.id == fromSegment ? fromOffset : 0;
+      while (offset + HEADER <= segment.buffer.capacity()) {
+        final int length = segment.buffer.getInt(offset);
+        if (length < HEADER || offset + length > segment.buffer.capacity()
+            || segment.buffer.getInt(offset + Integer.BYTES) != crc(segment.buffer, offset, length)) {
+          break;
+        }
+        final StoredKey key = keyOf(decode(segment.buffer, offset + HEADER, segment.buffer.getInt(offset + KEY_LENGTH)));
+        if (segment.buffer.getInt(offset + VALUE_LENGTH) == REMOVED) {
+          this.index.remove(key);
+        } else {
+          this.index.put(key, location(segment.id, offset));
+        }
+        offset += length;
+      }
+      segment.end = offset;
+    }
+
+    /* Anything behind the end of the log is a torn record; clear it, such that it is not mistaken for a record later on. */
+    final Segment active = this.segments.lastEntry().getValue();
+    for (int offset = active.end; offset < active.buffer.capacity(); offset++) {
+      active.buffer.put(offset, (byte) 0);
+    }
+    for (Map.Entry<StoredKey, Long> entry : this.index.entrySet()) {
+      final Segment segment = this.segments.get(segmentOf(entry.getValue()));
+      segment.live += segment.buffer.getInt(offsetOf(entry.getValue()));
+      restore(entry.getKey(), valueAt(entry.getValue()));
+    }
+  }
+
+  /**
+   * Loads the checkpoint into the index.
+   *
+   * @return The segment and offset the checkpoint reflects the log up to, or null if there is no valid checkpoint.
+   */
+  private int[] readCheckpoint() {
+    final Path file = this.directory.resolve(CHECKPOINT);
+    final CRC32 crc = new CRC32();
+    final Map<StoredKey, Long> entries = new TreeMap<>();
+    final int[] position = new int[2];
+    try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), crc))) {
+      final long size = Files.size(file);
+      if (in.readInt() != CHECKPOINT_MAGIC) {
+        return null;
+      }
+      position[0] = in.readInt();
+      position[1] = in.readInt();
+      final int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        final int length = in.readInt();
+        if (length < 0 || length > size) {
+          return null;
+        }
+        final byte[] key = new byte[length];
+        in.readFully(key);
+        entries.put(keyOf(new String(key, StandardCharsets.UTF_8)), in.readLong());
+      }
+      final long expected = crc.getValue();
+      if (in.readLong() != expected) {
+        return null;
+      }
+    } catch (IOException e) {
+      return null; /* Missing, torn or corrupt; replay the whole log. */
+    }
+    for (Map.Entry<StoredKey, Long> entry : entries.entrySet()) {
+      if (!this.segments.containsKey(segmentOf(entry.getValue()))) {
+        return null;
+      }
+    }
+    this.index.putAll(entries);
+    return position;
+  }
+
+  /**
+   * Schedules a periodic task of the given store, which is cancelled once the store has been garbage collected.
+   */
+  private static ScheduledFuture<?> schedule(LogStructuredStore store, Consumer<LogStructuredStore> task, long interval) {
+    final WeakReference<LogStructuredStore> reference = new WeakReference<>(store);
+    return SCHEDULER.scheduleWithFixedDelay(() -> {
+      final LogStructuredStore current = reference.get();
+      if (current == null) {
+        throw new CancellationException("The store has been collected.");
+      }
+      task.accept(current);
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private Segment open(int id, int size) throws IOException {
+    final Path file = this.directory.resolve(String.format("%08d.log", id));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final Segment segment = new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size())));
+      this.segments.put(id, segment);
+      return segment;
+    }
+  }
+
+  /**
+   * Returns views of the index whose keys lie in (from, to]; two views, if the range wraps around.
+   */
+  private List<ConcurrentNavigableMap<StoredKey, Long>> ranges(Identifier from, Identifier to) {
+    final StoredKey lower = StoredKey.upperBound(from);
+    final StoredKey upper = StoredKey.upperBound(to);
+    if (from.compareTo(to) < 0) {
+      return Collections.singletonList(this.index.subMap(lower, false, upper, true));
+    }
+    if (from.equals(to)) {
+      return Collections.singletonList(this.index);
+    }
+    return Arrays.asList(this.index.tailMap(lower, false), this.index.headMap(upper, true));
+  }
+
+  /**
+   * CRC of a record, over everything but its length and CRC.
+   */
+  private static int crc(ByteBuffer buffer, int offset, int length) {
+    final ByteBuffer record = buffer.duplicate();
+    record.position(offset + IDENTIFIER).limit(offset + length);
+    final CRC32 crc = new CRC32();
+    crc.update(record);
+    return (int) crc.getValue();
+  }
+
+  private static String decode(ByteBuffer buffer, int offset, int length) {
+    final byte[] bytes = new byte[length];
+    final ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long location(int segment, int offset) {
+    return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int segmentOf(long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offsetOf(long location) {
+    return (int) location;
+  }
+}
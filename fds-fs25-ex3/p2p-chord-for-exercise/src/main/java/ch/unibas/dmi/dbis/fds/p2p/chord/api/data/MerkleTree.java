@@ -0,0 +1,243 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Merkle tree over the identifier circle, used to compare the data items held by two peers without transferring
+ * them. The circle is split into 2^depth equally sized leaves by the leading bits of the {@link Identifier}s; every
+ * node of the tree covers a contiguous range of leaves.
+ *
+ * The hash of a node is the XOR of the hashes of all data items in its range. Hence, it does not depend on the order
+ * in which items were written and is updated in O(depth) whenever an item changes, without rehashing the range.
+ *
+ * Nodes are numbered as in a binary heap: the root is 1 and the children of node n are 2n and 2n+1, hence the leaves
+ * are the nodes [2^depth, 2^(depth+1)).
+ */
+public final class MerkleTree {
+
+  /** Maximum depth of the tree, i.e. at most 2^MAX_DEPTH leaves. */
+  public static final int MAX_DEPTH = 8;
+
+  /** Coverage of a node of the tree by a range of the identifier circle. */
+  public enum Coverage {
+    /** All identifiers of the node lie in the range. */
+    INSIDE,
+    /** Some identifiers of the node lie in the range. */
+    PARTIAL,
+    /** No identifier of the node lies in the range. */
+    OUTSIDE
+  }
+
+  /** Depth of the tree; the number of leading bits of an {@link Identifier} that select its leaf. */
+  private final int depth;
+
+  /** Number of bits of an {@link Identifier} that do not select its leaf. */
+  private final int shift;
+
+  /** The hashes of the nodes, indexed as in a binary heap. Index 0 is unused. */
+  private final AtomicLongArray hashes;
+
+  /**
+   * Creates an empty {@link MerkleTree} for a circle with the given number of bits.
+   *
+   * @param nbits The number of bits of the identifier circle.
+   */
+  public MerkleTree(int nbits) {
+    this.depth = Math.min(nbits, MAX_DEPTH);
+    this.shift = nbits - this.depth;
+    this.hashes = new AtomicLongArray(2 << this.depth);
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Number of leaves of the tree, i.e. 2^depth.
+   *
+   * @return Number of leaves.
+   */
+  public int leaves() {
+    return 1 << this.depth;
+  }
+
+  /**
+   * Returns whether the given node is a leaf.
+   *
+   * @param node The node.
+   * @return True, if {@code node} is a leaf.
+   */
+  public boolean isLeaf(int node) {
+    return node >= leaves();
+  }
+
+  /**
+   * Returns the node of the leaf the given {@link Identifier} belongs to.
+   *
+   * @param id The {@link Identifier}.
+   * @return The leaf node.
+   */
+  public int leafOf(Identifier id) {
+    final long prefix;
+    if (this.shift < 64) {
+      prefix = this.shift == 0 ? id.getLow() : (id.getLow() >>> this.shift) | (id.getMid() << (64 - this.shift));
+    } else if (this.shift < 128) {
+      prefix = this.shift == 64 ? id.getMid() : (id.getMid() >>> (this.shift - 64)) | (id.getHigh() << (128 - this.shift));
+    } else {
+      prefix = id.getHigh() >>> (this.shift - 128);
+    }
+    return leaves() + (int) (prefix & (leaves() - 1));
+  }
+
+  /**
+   * Returns the current hash of the given node.
+   *
+   * @param node The node.
+   * @return The hash of all data items in the range of {@code node}.
+   */
+  public long hash(int node) {
+    return this.hashes.get(node);
+  }
+
+  /**
+   * Returns how the given node is covered by the range (from, to] of the identifier circle. As for the other ranges on
+   * the circle, the range wraps around if from >= to and spans the whole circle if from = to. The leaves of {@code from}
+   * and {@code to} are considered partially covered.
+   *
+   * @param node The node.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return {@link Coverage} of {@code node}.
+   */
+  public Coverage coverage(int node, Identifier from, Identifier to) {
+    if (from.equals(to)) {
+      return Coverage.INSIDE;
+    }
+    final int first = firstLeaf(node);
+    final int last = lastLeaf(node);
+    final int left = leafOf(from);
+    final int right = leafOf(to);
+    if ((left >= first && left <= last) || (right >= first && right <= last)) {
+      return Coverage.PARTIAL;
+    }
+    final boolean inside = from.compareTo(to) < 0 ? first > left && first < right : first > left || first < right;
+    return inside ? Coverage.INSIDE : Coverage.OUTSIDE;
+  }
+
+  /**
+   * Returns the first of the leaves in the range of the given node.
+   *
+   * @param node The node.
+   * @return The first leaf node below {@code node}.
+   */
+  public int firstLeaf(int node) {
+    return node << (this.depth - level(node));
+  }
+
+  /**
+   * Returns the last of the leaves in the range of the given node.
+   *
+   * @param node The node.
+   * @return The last leaf node below {@code node}.
+   */
+  public int lastLeaf(int node) {
+    return firstLeaf(node) + (1 << (this.depth - level(node))) - 1;
+  }
+
+  /**
+   * Returns the level of the given node, 0 for the root.
+   */
+  private static int level(int node) {
+    return 31 - Integer.numberOfLeadingZeros(node);
+  }
+
+  /**
+   * Returns the greatest {@link Identifier} of the given leaf.
+   *
+   * @param leaf The leaf node.
+   * @return The last {@link Identifier} of {@code leaf}.
+   */
+  Identifier lastOf(int leaf) {
+    final long prefix = leaf - leaves();
+    final long[] words = new long[3];
+    for (int w = 0; w < words.length; w++) {
+      final int s = this.shift - 64 * w;
+      if (s >= 0 && s < 64) {
+        words[w] = prefix << s;
+      } else if (s < 0 && s > -64) {
+        words[w] = prefix >>> -s;
+      }
+      final int ones = Math.min(64, Math.max(0, s));
+      words[w] |= ones == 64 ? -1L : (1L << ones) - 1;
+    }
+    return new Identifier(words[2], words[1], words[0], null);
+  }
+
+  /**
+   * Accounts for a data item being removed.
+   *
+   * @param key The key of the data item.
+   * @param value The {@link Versioned} value of the data item.
+   */
+  void remove(StoredKey key, Versioned value) {
+    toggle(leafOf(key.getIdentifier()), hash(key, value));
+  }
+
+  /**
+   * Accounts for the value of a data item being replaced. Either value may be null.
+   *
+   * @param key The key of the data item.
+   * @param previous The previous {@link Versioned} value, null if the item has been added.
+   * @param current The current {@link Versioned} value, null if the item has been removed.
+   */
+  void replace(StoredKey key, Versioned previous, Versioned current) {
+    if (previous == current) {
+      return;
+    }
+    long h = 0L;
+    if (previous != null) {
+      h ^= hash(key, previous);
+    }
+    if (current != null) {
+      h ^= hash(key, current);
+    }
+    toggle(leafOf(key.getIdentifier()), h);
+  }
+
+  /**
+   * XORs the given hash into the given leaf and all of its ancestors. As XOR commutes, concurrent updates need not be ordered.
+   */
+  private void toggle(int leaf, long h) {
+    for (int node = leaf; node > 0; node >>>= 1) {
+      this.hashes.accumulateAndGet(node, h, (a, b) -> a ^ b);
+    }
+  }
+
+  /**
+   * Hashes a data item by its key, version and whether it is a tombstone. Versions identify values, hence the value
+   * itself is not hashed.
+   *
+   * @param key The key of the data item.
+   * @param value The {@link Versioned} value of the data item.
+   * @return The 64 bit hash of the data item.
+   */
+  static long hash(StoredKey key, Versioned value) {
+    final Identifier id = key.getIdentifier();
+    long h = mix(id.getLow() ^ mix(id.getMid() ^ mix(id.getHigh())));
+    h = mix(h ^ key.getKey().hashCode());
+    h = mix(h ^ value.getVersion());
+    return value.isTombstone() ? mix(~h) : h;
+  }
+
+  /**
+   * The finalization step of MurmurHash3, which spreads every input bit over the whole word.
+   */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93e2fe2ba53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,412 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link PeerStore} that keeps its data items off the heap, in direct {@link ByteBuffer}s allocated by a
+ * {@link SlabAllocator}. The heap only holds an open-addressing index of primitive arrays (the hash of every key and
+ * the address of its record), hence the load on the garbage collector does not grow with the amount of data stored.
+ *
+ * A record consists of the {@link Identifier} of the key (three words), the version, the lengths of key and value
+ * (-1 for a tombstone) and the UTF-8 encoded key and value. Records are rewritten in place while they fit into their
+ * chunk. Once removals and relocations have left a slab sparse (see {@link SlabAllocator#free(long)}), or after a
+ * range has been extracted, the slabs that are at most half full are compacted, which returns their memory.
+ *
+ * Single items are read and written in constant time; scanning or extracting a range takes time proportional to the
+ * number of items stored, as for the {@link HashMapStore}.
+ */
+public class OffHeapStore extends AbstractPeerStore {
+
+  /** Bytes of the header of a record: identifier, version and the lengths of key and value. */
+  private static final int HEADER = 4 * Long.BYTES + 2 * Integer.BYTES;
+
+  /** Offset of the version in a record. */
+  private static final int VERSION = 3 * Long.BYTES;
+
+  /** Offset of the length of the key in a record. */
+  private static final int KEY_LENGTH = 4 * Long.BYTES;
+
+  /** Offset of the length of the value in a record. */
+  private static final int VALUE_LENGTH = KEY_LENGTH + Integer.BYTES;
+
+  /** Marks an empty slot of the index. */
+  private static final long EMPTY = -1L;
+
+  /** Initial number of slots of the index. */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The off-heap memory. */
+  private final SlabAllocator slabs = new SlabAllocator();
+
+  /** Addresses of the records, indexed by the hash of their keys (linear probing). */
+  private long[] addresses;
+
+  /** Hashes of the keys of the records, in the slots of {@link #addresses}. */
+  private int[] hashes;
+
+  /** Number of records stored. */
+  private int size;
+
+  /** Guards the index and the slabs. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public OffHeapStore(IdentifierCircle<Identifier> circle) {
+    super(circle);
+    this.addresses = new long[INITIAL_CAPACITY];
+    this.hashes = new int[INITIAL_CAPACITY];
+    Arrays.fill(this.addresses, EMPTY);
+  }
+
+  @Override
+  public Versioned get(StoredKey key) {
+    this.lock.readLock().lock();
+    try {
+      final int slot = find(key.getKey().getBytes(StandardCharsets.UTF_8), hash(key.getKey()));
+      return slot < 0 ? null : valueAt(this.addresses[slot]);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> scan(Identifier from, Identifier to) {
+    return collect(from, to);
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> snapshot() {
+    return collect(null, null);
+  }
+
+  /**
+   * Decodes the records whose {@link Identifier}s lie in (from, to], all records if the bounds are null.
+   */
+  private NavigableMap<StoredKey, Versioned> collect(Identifier from, Identifier to) {
+    this.lock.readLock().lock();
+    try {
+      final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+      for (long address : this.addresses) {
+        if (address != EMPTY && (from == null || inRange(address, from, to))) {
+          items.put(keyOf(keyAt(address)), valueAt(address));
+        }
+      }
+      return items;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    this.lock.readLock().lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Bytes of off-heap memory reserved, whether in use or not.
+   *
+   * @return Number of bytes.
+   */
+  public long reservedBytes() {
+    this.lock.readLock().lock();
+    try {
+      return this.slabs.reserved();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Moves the records out of the slabs that are at most half full and releases these slabs.
+   *
+   * @return Number of records moved.
+   */
+  public int compact() {
+    this.lock.writeLock().lock();
+    try {
+      return compactLocked();
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Compacts the slabs; the caller holds the write lock.
+   */
+  private int compactLocked() {
+    final BitSet evacuated = this.slabs.evacuate();
+    if (evacuated.isEmpty()) {
+      return 0;
+    }
+    int moved = 0;
+    for (int slot = 0; slot < this.addresses.length; slot++) {
+      final long address = this.addresses[slot];
+      if (address != EMPTY && SlabAllocator.in(evacuated, address)) {
+        final int length = lengthOf(address);
+        final long target = this.slabs.allocate(length);
+        copy(address, target, length);
+        this.addresses[slot] = target;
+        moved++;
+      }
+    }
+    this.slabs.release(evacuated);
+    return moved;
+  }
+
+  @Override
+  protected Versioned computeEntry(StoredKey key, BiFunction<StoredKey, Versioned, Versioned> function) {
+    this.lock.writeLock().lock();
+    try {
+      final byte[] bytes = key.getKey().getBytes(StandardCharsets.UTF_8);
+      final int hash = hash(key.getKey());
+      final int slot = find(bytes, hash);
+      final Versioned current = function.apply(key, slot < 0 ? null : valueAt(this.addresses[slot]));
+      final byte[] value = current.isTombstone() ? null : current.getValue().getBytes(StandardCharsets.UTF_8);
+      final int length = HEADER + bytes.length + (value == null ? 0 : value.length);
+      if (slot >= 0 && this.slabs.capacity(this.addresses[slot]) >= length) {
+        write(this.addresses[slot], key.getIdentifier(), bytes, value, current.getVersion());
+        return current;
+      }
+      final long address = this.slabs.allocate(length);
+      write(address, key.getIdentifier(), bytes, value, current.getVersion());
+      if (slot < 0) {
+        insert(address, hash);
+        return current;
+      }
+      final boolean sparse = this.slabs.free(this.addresses[slot]);
+      this.addresses[slot] = address;
+      if (sparse) {
+        compactLocked();
+      }
+      return current;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  protected Versioned removeEntry(StoredKey key) {
+    this.lock.writeLock().lock();
+    try {
+      final int slot = find(key.getKey().getBytes(StandardCharsets.UTF_8), hash(key.getKey()));
+      if (slot < 0) {
+        return null;
+      }
+      final Versioned removed = valueAt(this.addresses[slot]);
+      final boolean sparse = this.slabs.free(this.addresses[slot]);
+      delete(slot);
+      if (sparse) {
+        compactLocked();
+      }
+      return removed;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  protected NavigableMap<StoredKey, Versioned> removeRange(Identifier from, Identifier to) {
+    final NavigableMap<StoredKey, Versioned> extracted = scan(from, to);
+    if (extracted.isEmpty()) {
+      return extracted;
+    }
+    this.lock.writeLock().lock();
+    try {
+      for (StoredKey key : extracted.keySet()) {
+        final int slot = find(key.getKey().getBytes(StandardCharsets.UTF_8), hash(key.getKey()));
+        this.slabs.free(this.addresses[slot]);
+        delete(slot);
+      }
+      if (this.size < this.addresses.length / 8 && this.addresses.length > INITIAL_CAPACITY) {
+        resize(this.addresses.length / 2);
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    compact();
+    return extracted;
+  }
+
+  /**
+   * Returns the slot of the record with the given key, or -1 if there is none.
+   */
+  private int find(byte[] key, int hash) {
+    final int mask = this.addresses.length - 1;
+    for (int slot = hash & mask; this.addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (this.hashes[slot] == hash && keyEquals(this.addresses[slot], key)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a record to the index, which must not contain its key.
+   */
+  private void insert(long address, int hash) {
+    if (2 * (this.size + 1) > this.addresses.length) {
+      resize(2 * this.addresses.length);
+    }
+    place(address, hash);
+    this.size++;
+  }
+
+  private void place(long address, int hash) {
+    final int mask = this.addresses.length - 1;
+    int slot = hash & mask;
+    while (this.addresses[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    this.addresses[slot] = address;
+    this.hashes[slot] = hash;
+  }
+
+  /**
+   * Empties the given slot and shifts the records of its probe sequence back, such that no lookup stops early.
+   */
+  private void delete(int slot) {
+    final int mask = this.addresses.length - 1;
+    int gap = slot;
+    for (int next = (gap + 1) & mask; this.addresses[next] != EMPTY; next = (next + 1) & mask) {
+      final int home = this.hashes[next] & mask;
+      final boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+      if (!stays) {
+        this.addresses[gap] = this.addresses[next];
+        this.hashes[gap] = this.hashes[next];
+        gap = next;
+      }
+    }
+    this.addresses[gap] = EMPTY;
+    this.size--;
+  }
+
+  private void resize(int capacity) {
+    final long[] addresses = this.addresses;
+    final int[] hashes = this.hashes;
+    this.addresses = new long[capacity];
+    this.hashes = new int[capacity];
+    Arrays.fill(this.addresses, EMPTY);
+    for (int slot = 0; slot < addresses.length; slot++) {
+      if (addresses[slot] != EMPTY) {
+        place(addresses[slot], hashes[slot]);
+      }
+    }
+  }
+
+  private void write(long address, Identifier id, byte[] key, byte[] value, long version) {
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    buffer.putLong(offset, id.getHigh());
+    buffer.putLong(offset + Long.BYTES, id.getMid());
+    buffer.putLong(offset + 2 * Long.BYTES, id.getLow());
+    buffer.putLong(offset + VERSION, version);
+    buffer.putInt(offset + KEY_LENGTH, key.length);
+    buffer.putInt(offset + VALUE_LENGTH, value == null ? -1 : value.length);
+    final ByteBuffer payload = buffer.duplicate();
+    payload.position(offset + HEADER);
+    payload.put(key);
+    if (value != null) {
+      payload.put(value);
+    }
+  }
+
+  private Versioned valueAt(long address) {
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    final int valueLength = buffer.getInt(offset + VALUE_LENGTH);
+    final String value = valueLength < 0 ? null : decode(buffer, offset + HEADER + buffer.getInt(offset + KEY_LENGTH), valueLength);
+    return new Versioned(value, buffer.getLong(offset + VERSION));
+  }
+
+  private String keyAt(long address) {
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    return decode(buffer, offset + HEADER, buffer.getInt(offset + KEY_LENGTH));
+  }
+
+  private boolean keyEquals(long address, byte[] key) {
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    if (buffer.getInt(offset + KEY_LENGTH) != key.length) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(offset + HEADER + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int lengthOf(long address) {
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    return HEADER + buffer.getInt(offset + KEY_LENGTH) + Math.max(0, buffer.getInt(offset + VALUE_LENGTH));
+  }
+
+  private void copy(long source, long target, int length) {
+    final ByteBuffer from = this.slabs.buffer(source).duplicate();
+    from.position(SlabAllocator.offset(source)).limit(SlabAllocator.offset(source) + length);
+    final ByteBuffer to = this.slabs.buffer(target).duplicate();
+    to.position(SlabAllocator.offset(target));
+    to.put(from);
+  }
+
+  /**
+   * Checks whether the {@link Identifier} of the record at the given address lies in (from, to], without decoding it.
+   */
+  private boolean inRange(long address, Identifier from, Identifier to) {
+    final int ab = from.compareTo(to);
+    if (ab == 0) {
+      return true;
+    }
+    final ByteBuffer buffer = this.slabs.buffer(address);
+    final int offset = SlabAllocator.offset(address);
+    final long high = buffer.getLong(offset);
+    final long mid = buffer.getLong(offset + Long.BYTES);
+    final long low = buffer.getLong(offset + 2 * Long.BYTES);
+    final boolean afterLeft = compare(high, mid, low, from) > 0;
+    final boolean beforeRight = compare(high, mid, low, to) <= 0;
+    return ab < 0 ? afterLeft && beforeRight : afterLeft || beforeRight;
+  }
+
+  private static int compare(long high, long mid, long low, Identifier id) {
+    if (high != id.getHigh()) {
+      return Long.compareUnsigned(high, id.getHigh());
+    }
+    if (mid != id.getMid()) {
+      return Long.compareUnsigned(mid, id.getMid());
+    }
+    return Long.compareUnsigned(low, id.getLow());
+  }
+
+  private static String decode(ByteBuffer buffer, int offset, int length) {
+    final byte[] bytes = new byte[length];
+    final ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Spreads the hash code of the key, such that the index can use its low bits.
+   */
+  private static int hash(String key) {
+    final int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
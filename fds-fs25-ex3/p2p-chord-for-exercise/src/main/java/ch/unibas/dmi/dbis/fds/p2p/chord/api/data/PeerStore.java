@@ -0,0 +1,258 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The storage engine of a peer. Holds the data items along with their versions (see {@link Versioned}) and supports
+ * the range operations the peers need to hand over parts of the identifier circle.
+ *
+ * Ranges are given as (from, to] of the identifier circle. As for the other ranges on the circle, a range wraps around
+ * if from >= to and spans the whole circle if from = to.
+ *
+ * Implementations must be thread safe and keep a {@link MerkleTree} over the stored items up to date.
+ */
+public interface PeerStore extends AutoCloseable {
+
+  /**
+   * Creates the {@link PeerStore}s of the peers of a network.
+   */
+  @FunctionalInterface
+  interface Factory {
+    /**
+     * Creates an empty {@link PeerStore}.
+     *
+     * @param circle The {@link IdentifierCircle} used to place keys.
+     * @return The new {@link PeerStore}.
+     */
+    PeerStore create(IdentifierCircle<Identifier> circle);
+
+    /**
+     * Creates the {@link PeerStore} with the given name, e.g. of a peer that is restarted. Persistent stores use the
+     * name to find their data; the default implementation ignores it.
+     *
+     * @param circle The {@link IdentifierCircle} used to place keys.
+     * @param name The name of the store, unique within the network.
+     * @return The {@link PeerStore}.
+     */
+    default PeerStore create(IdentifierCircle<Identifier> circle, String name) {
+      return create(circle);
+    }
+  }
+
+  /**
+   * Returns the {@link StoredKey} of the given key, i.e. the key along with its {@link Identifier}.
+   *
+   * @param key The key of a data item.
+   * @return {@link StoredKey}
+   */
+  StoredKey keyOf(String key);
+
+  /**
+   * Returns the value stored for the given key.
+   *
+   * @param key The key of the data item.
+   * @return The value or null, if no value is stored for the key or it has been deleted.
+   */
+  String get(String key);
+
+  /**
+   * Returns the {@link Versioned} value stored for the given key, including tombstones.
+   *
+   * @param key The key of the data item, along with its {@link Identifier}.
+   * @return The {@link Versioned} value or null, if nothing is stored for the key.
+   */
+  Versioned get(StoredKey key);
+
+  /**
+   * Stores the given data item with a version one above the current one.
+   *
+   * @param key The key of the data item.
+   * @param value The value of the data item.
+   * @return The value previously stored for the key, if any.
+   */
+  String put(String key, String value);
+
+  /**
+   * Writes the given value with a version one above both the current version and {@code floor}, e.g. the version
+   * of a copy held elsewhere. A value of null writes a tombstone.
+   *
+   * @param key The key of the data item.
+   * @param value The value of the data item, null to delete it.
+   * @param floor Lower bound for the version.
+   * @return The {@link Versioned} value written.
+   */
+  Versioned update(StoredKey key, String value, long floor);
+
+  /**
+   * Stores the given {@link Versioned} value, unless a newer or equal version is stored already. Used for copies
+   * written by other peers, e.g. replicas.
+   *
+   * @param key The key of the data item, along with its {@link Identifier}.
+   * @param value The {@link Versioned} value of the data item.
+   * @return True, if the value has been stored.
+   */
+  boolean merge(StoredKey key, Versioned value);
+
+  /**
+   * Stores all the given data items, e.g. a range extracted from another {@link PeerStore}. Keeps newer versions
+   * that are stored already.
+   *
+   * @param items The data items to store.
+   */
+  void putAll(SortedMap<StoredKey, Versioned> items);
+
+  /**
+   * Removes the data item with the given key, without leaving a tombstone.
+   *
+   * @param key The key of the data item.
+   * @return The value removed or null, if no value was stored for the key.
+   */
+  String remove(String key);
+
+  /**
+   * Returns a copy of the data items whose keys lie in the range (from, to], including tombstones.
+   *
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The data items, ordered by the {@link Identifier} of their keys.
+   */
+  NavigableMap<StoredKey, Versioned> scan(Identifier from, Identifier to);
+
+  /**
+   * Atomically removes all data items whose keys lie in the range (from, to] and returns them.
+   *
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The data items removed, including tombstones, ordered by the {@link Identifier} of their keys.
+   */
+  NavigableMap<StoredKey, Versioned> extract(Identifier from, Identifier to);
+
+  /**
+   * Returns a copy of all data items, including tombstones.
+   *
+   * @return The data items, ordered by the {@link Identifier} of their keys.
+   */
+  NavigableMap<StoredKey, Versioned> snapshot();
+
+  /**
+   * Number of entries stored, including tombstones.
+   *
+   * @return Number of entries.
+   */
+  int size();
+
+  /**
+   * Approximate number of bytes of the data stored: the characters of keys and values and the versions. The overhead of
+   * the data structures is not accounted for, as it depends on the implementation.
+   *
+   * @return Number of bytes.
+   */
+  long bytes();
+
+  /**
+   * The {@link MerkleTree} over the stored items.
+   *
+   * @return {@link MerkleTree}
+   */
+  MerkleTree tree();
+
+  /**
+   * Returns the hashes of the data items, including tombstones, that belong to the given nodes of the {@link MerkleTree}
+   * and whose keys lie in the range (from, to]. Nodes inside the range are answered from the {@link MerkleTree},
+   * partially covered nodes are hashed item by item.
+   *
+   * @param nodes The nodes, see {@link MerkleTree}.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The hashes, in the order of {@code nodes}.
+   */
+  default long[] hashes(int[] nodes, Identifier from, Identifier to) {
+    final long[] hashes = new long[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      switch (tree().coverage(nodes[i], from, to)) {
+        case INSIDE:
+          hashes[i] = tree().hash(nodes[i]);
+          break;
+        case PARTIAL:
+          for (Map.Entry<StoredKey, Versioned> item : items(new int[]{nodes[i]}, from, to).entrySet()) {
+            hashes[i] ^= MerkleTree.hash(item.getKey(), item.getValue());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return hashes;
+  }
+
+  /**
+   * Returns a copy of the data items, including tombstones, that belong to the given nodes of the {@link MerkleTree}
+   * and whose keys lie in the range (from, to].
+   *
+   * @param nodes The nodes, see {@link MerkleTree}.
+   * @param from The exclusive left bound of the range.
+   * @param to The inclusive right bound of the range.
+   * @return The data items, ordered by the {@link Identifier} of their keys.
+   */
+  default NavigableMap<StoredKey, Versioned> items(int[] nodes, Identifier from, Identifier to) {
+    final MerkleTree tree = tree();
+    final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+    for (int node : nodes) {
+      final int first = tree.firstLeaf(node);
+      final int previous = first == tree.leaves() ? 2 * tree.leaves() - 1 : first - 1;
+      for (Map.Entry<StoredKey, Versioned> item : scan(tree.lastOf(previous), tree.lastOf(tree.lastLeaf(node))).entrySet()) {
+        if (Ring.inLeftOpen(from, to, item.getKey().getIdentifier())) {
+          items.put(item.getKey(), item.getValue());
+        }
+      }
+    }
+    return items;
+  }
+
+  /**
+   * Releases the resources held by this {@link PeerStore}, e.g. files. Persistent stores make all writes durable
+   * first. Does nothing by default.
+   */
+  @Override
+  default void close() {
+  }
+
+  /**
+   * Returns a copy of the keys stored, ordered by their {@link Identifier}s. Deleted items are left out.
+   *
+   * @return Set of keys.
+   */
+  default Set<String> keys() {
+    final Set<String> keys = new LinkedHashSet<>();
+    for (Map.Entry<StoredKey, Versioned> entry : snapshot().entrySet()) {
+      if (!entry.getValue().isTombstone()) {
+        keys.add(entry.getKey().getKey());
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Returns a copy of the data items stored, ordered by the {@link Identifier}s of their keys. Deleted items are left out.
+   *
+   * @return Map of keys and values.
+   */
+  default Map<String, String> toMap() {
+    final Map<String, String> map = new LinkedHashMap<>();
+    for (Map.Entry<StoredKey, Versioned> entry : snapshot().entrySet()) {
+      if (!entry.getValue().isTombstone()) {
+        map.put(entry.getKey().getKey(), entry.getValue().getValue());
+      }
+    }
+    return map;
+  }
+}
@@ -0,0 +1,85 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link PeerStore} that keeps its data items in a skip list, ordered by the {@link Identifier} of their keys.
+ * Scans and extracts a range in time proportional to the number of keys in the range, e.g. when a joining peer takes
+ * over part of the keys of its successor. The default {@link PeerStore}.
+ */
+public class SkipListStore extends AbstractPeerStore {
+
+  /** The data items, ordered by the {@link Identifier} of their keys. */
+  private final ConcurrentSkipListMap<StoredKey, Versioned> entries = new ConcurrentSkipListMap<>();
+
+  public SkipListStore(IdentifierCircle<Identifier> circle) {
+    super(circle);
+  }
+
+  @Override
+  public Versioned get(StoredKey key) {
+    return this.entries.get(key);
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> scan(Identifier from, Identifier to) {
+    final NavigableMap<StoredKey, Versioned> items = new TreeMap<>();
+    for (ConcurrentNavigableMap<StoredKey, Versioned> range : ranges(from, to)) {
+      items.putAll(range);
+    }
+    return items;
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> snapshot() {
+    return new TreeMap<>(this.entries);
+  }
+
+  @Override
+  public int size() {
+    return this.entries.size();
+  }
+
+  @Override
+  protected Versioned computeEntry(StoredKey key, BiFunction<StoredKey, Versioned, Versioned> function) {
+    return this.entries.compute(key, function);
+  }
+
+  @Override
+  protected Versioned removeEntry(StoredKey key) {
+    return this.entries.remove(key);
+  }
+
+  @Override
+  protected NavigableMap<StoredKey, Versioned> removeRange(Identifier from, Identifier to) {
+    final NavigableMap<StoredKey, Versioned> extracted = new TreeMap<>();
+    for (ConcurrentNavigableMap<StoredKey, Versioned> range : ranges(from, to)) {
+      extracted.putAll(range);
+      range.clear();
+    }
+    return extracted;
+  }
+
+  /**
+   * Returns views of the entries whose keys lie in (from, to]; two views, if the range wraps around.
+   */
+  private Iterable<ConcurrentNavigableMap<StoredKey, Versioned>> ranges(Identifier from, Identifier to) {
+    final StoredKey lower = StoredKey.upperBound(from);
+    final StoredKey upper = StoredKey.upperBound(to);
+    if (from.compareTo(to) < 0) {
+      return Collections.singletonList(this.entries.subMap(lower, false, upper, true));
+    }
+    if (from.equals(to)) {
+      return Collections.singletonList(this.entries);
+    }
+    return Arrays.asList(this.entries.tailMap(lower, false), this.entries.headMap(upper, true));
+  }
+}
@@ -0,0 +1,240 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Allocates chunks of off-heap memory from direct {@link ByteBuffer}s (slabs). Every slab is split into chunks of one
+ * size class, a power of two between {@link #MIN_CHUNK} and {@link #SLAB_SIZE}; a request is served by the smallest
+ * class it fits into. Freed chunks are kept in one free list per size class and reused first. Requests larger than a
+ * slab get a slab of their own, which is released as soon as its chunk is freed.
+ *
+ * A chunk is addressed by a long holding the index of its slab in the upper and its offset in the lower 32 bits.
+ *
+ * Not thread safe.
+ */
+final class SlabAllocator {
+
+  /** Size of a slab in bytes. */
+  static final int SLAB_SIZE = 1 << 20;
+
+  /** Size of the smallest chunks in bytes. */
+  static final int MIN_CHUNK = 64;
+
+  /** Number of size classes. */
+  private static final int CLASSES = Integer.numberOfTrailingZeros(SLAB_SIZE / MIN_CHUNK) + 1;
+
+  /** A slab is sparse once at most 1 / SPARSE of its chunks is in use, see {@link #free(long)}. */
+  private static final int SPARSE = 4;
+
+  /** Size class of the slabs that hold a single large chunk. */
+  private static final int HUGE = -1;
+
+  /** A slab of chunks of one size class. */
+  private static final class Slab {
+    final ByteBuffer buffer;
+    final int sizeClass;
+    final int chunkSize;
+    /** Number of chunks handed out so far, freed or not. */
+    int carved;
+    /** Number of chunks in use. */
+    int live;
+
+    Slab(int capacity, int sizeClass, int chunkSize) {
+      this.buffer = ByteBuffer.allocateDirect(capacity);
+      this.sizeClass = sizeClass;
+      this.chunkSize = chunkSize;
+    }
+
+    int chunks() {
+      return this.buffer.capacity() / this.chunkSize;
+    }
+  }
+
+  /** The slabs, indexed by their number. Null for released slabs, whose numbers are reused. */
+  private final List<Slab> slabs = new ArrayList<>();
+
+  /** The free lists, one stack of chunk addresses per size class. */
+  private final long[][] free = new long[CLASSES][];
+
+  /** Number of addresses on each free list. */
+  private final int[] freeCount = new int[CLASSES];
+
+  /** Number of the slab chunks of each size class are carved from, -1 if none. */
+  private final int[] current = new int[CLASSES];
+
+  /** Bytes reserved by all slabs. */
+  private long reserved;
+
+  SlabAllocator() {
+    for (int c = 0; c < CLASSES; c++) {
+      this.free[c] = new long[16];
+    }
+    Arrays.fill(this.current, -1);
+  }
+
+  /**
+   * Allocates a chunk of at least the given size.
+   *
+   * @param size The size in bytes.
+   * @return The address of the chunk.
+   */
+  long allocate(int size) {
+    if (size > SLAB_SIZE) {
+      final int slab = install(new Slab(size, HUGE, size));
+      this.slabs.get(slab).carved = this.slabs.get(slab).live = 1;
+      return address(slab, 0);
+    }
+    final int c = classOf(size);
+    if (this.freeCount[c] > 0) {
+      final long address = this.free[c][--this.freeCount[c]];
+      this.slabs.get(slabOf(address)).live++;
+      return address;
+    }
+    Slab slab = this.current[c] < 0 ? null : this.slabs.get(this.current[c]);
+    if (slab == null || slab.carved == slab.chunks()) {
+      this.current[c] = install(new Slab(SLAB_SIZE, c, MIN_CHUNK << c));
+      slab = this.slabs.get(this.current[c]);
+    }
+    slab.live++;
+    return address(this.current[c], slab.chunkSize * slab.carved++);
+  }
+
+  /**
+   * Frees the chunk at the given address.
+   *
+   * @param address The address of the chunk.
+   * @return Whether the slab of the chunk has just become sparse, i.e. at most a quarter of its chunks is in use, such
+   *         that a compaction pays off. Reported once per slab, when it crosses the threshold.
+   */
+  boolean free(long address) {
+    final Slab slab = this.slabs.get(slabOf(address));
+    slab.live--;
+    if (slab.sizeClass == HUGE) {
+      release(slabOf(address));
+      return false;
+    }
+    final int c = slab.sizeClass;
+    if (this.freeCount[c] == this.free[c].length) {
+      this.free[c] = Arrays.copyOf(this.free[c], 2 * this.free[c].length);
+    }
+    this.free[c][this.freeCount[c]++] = address;
+    return this.current[c] != slabOf(address) && slab.live == slab.chunks() / SPARSE;
+  }
+
+  /**
+   * Returns the slab holding the chunk at the given address. Use with {@link #offset(long)}.
+   *
+   * @param address The address of the chunk.
+   * @return The {@link ByteBuffer} of the slab.
+   */
+  ByteBuffer buffer(long address) {
+    return this.slabs.get(slabOf(address)).buffer;
+  }
+
+  /**
+   * Returns the size of the chunk at the given address.
+   *
+   * @param address The address of the chunk.
+   * @return The size of the chunk in bytes.
+   */
+  int capacity(long address) {
+    return this.slabs.get(slabOf(address)).chunkSize;
+  }
+
+  static int offset(long address) {
+    return (int) address;
+  }
+
+  /**
+   * Starts a compaction: selects the slabs that are at most half full and are not being carved, and removes their
+   * chunks from the free lists, such that no chunk is allocated from them anymore. The caller must move the live chunks
+   * of the selected slabs elsewhere and {@link #release(BitSet) release} them.
+   *
+   * @return The numbers of the selected slabs.
+   */
+  BitSet evacuate() {
+    final BitSet evacuated = new BitSet();
+    for (int i = 0; i < this.slabs.size(); i++) {
+      final Slab slab = this.slabs.get(i);
+      if (slab != null && slab.sizeClass != HUGE && this.current[slab.sizeClass] != i && 2 * slab.live <= slab.chunks()) {
+        evacuated.set(i);
+      }
+    }
+    if (evacuated.isEmpty()) {
+      return evacuated;
+    }
+    for (int c = 0; c < CLASSES; c++) {
+      int kept = 0;
+      for (int i = 0; i < this.freeCount[c]; i++) {
+        if (!evacuated.get(slabOf(this.free[c][i]))) {
+          this.free[c][kept++] = this.free[c][i];
+        }
+      }
+      this.freeCount[c] = kept;
+    }
+    return evacuated;
+  }
+
+  /**
+   * Releases the given slabs, e.g. after a compaction. Their chunks must not be used anymore.
+   *
+   * @param slabs The numbers of the slabs.
+   */
+  void release(BitSet slabs) {
+    for (int i = slabs.nextSetBit(0); i >= 0; i = slabs.nextSetBit(i + 1)) {
+      release(i);
+    }
+  }
+
+  /**
+   * Returns whether the chunk at the given address lies in one of the given slabs.
+   */
+  static boolean in(BitSet slabs, long address) {
+    return slabs.get(slabOf(address));
+  }
+
+  /**
+   * Bytes reserved by all slabs, whether their chunks are in use or not.
+   *
+   * @return Number of bytes.
+   */
+  long reserved() {
+    return this.reserved;
+  }
+
+  private int install(Slab slab) {
+    this.reserved += slab.buffer.capacity();
+    final int free = this.slabs.indexOf(null);
+    if (free >= 0) {
+      this.slabs.set(free, slab);
+      return free;
+    }
+    this.slabs.add(slab);
+    return this.slabs.size() - 1;
+  }
+
+  /**
+   * Drops the given slab; its memory is returned once the {@link ByteBuffer} is collected.
+   */
+  private void release(int slab) {
+    this.reserved -= this.slabs.get(slab).buffer.capacity();
+    this.slabs.set(slab, null);
+  }
+
+  private static int classOf(int size) {
+    final int chunks = (Math.max(size, MIN_CHUNK) + MIN_CHUNK - 1) / MIN_CHUNK;
+    return 32 - Integer.numberOfLeadingZeros(chunks - 1);
+  }
+
+  private static long address(int slab, int offset) {
+    return ((long) slab << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int slabOf(long address) {
+    return (int) (address >>> 32);
+  }
+}
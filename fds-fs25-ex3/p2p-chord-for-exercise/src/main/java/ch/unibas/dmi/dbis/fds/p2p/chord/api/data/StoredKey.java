@@ -0,0 +1,82 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import java.util.Objects;
+
+/**
+ * A key of a data item along with its {@link Identifier} on the identifier circle. Ordered by the {@link Identifier}
+ * first and the key second, hence keys whose identifiers collide are kept apart.
+ */
+public final class StoredKey implements Comparable<StoredKey> {
+
+  /** The {@link Identifier} of the key. */
+  private final Identifier id;
+
+  /** The key. Null for the upper bound of an {@link Identifier}, which succeeds all of its keys. */
+  private final String key;
+
+  public StoredKey(Identifier id, String key) {
+    if (id == null || key == null) {
+      throw new IllegalArgumentException("Neither the identifier nor the key of a stored key can be null.");
+    }
+    this.id = id;
+    this.key = key;
+  }
+
+  private StoredKey(Identifier id) {
+    this.id = id;
+    this.key = null;
+  }
+
+  /**
+   * Returns a bound succeeding all keys with the given {@link Identifier} and preceding all keys with greater ones.
+   * Used to address ranges of the identifier circle.
+   *
+   * @param id The {@link Identifier}.
+   * @return The upper bound of {@code id}.
+   */
+  static StoredKey upperBound(Identifier id) {
+    return new StoredKey(id);
+  }
+
+  public Identifier getIdentifier() {
+    return id;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  @Override
+  public int compareTo(StoredKey o) {
+    final int c = this.id.compareTo(o.id);
+    if (c != 0) {
+      return c;
+    }
+    if (this.key == null || o.key == null) {
+      return this.key == null ? (o.key == null ? 0 : 1) : -1;
+    }
+    return this.key.compareTo(o.key);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof StoredKey)) {
+      return false;
+    }
+    final StoredKey that = (StoredKey) o;
+    return this.id.equals(that.id) && Objects.equals(this.key, that.key);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.id.hashCode() + Objects.hashCode(this.key);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s@%s", this.key, this.id.toIndexString());
+  }
+}
@@ -0,0 +1,79 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import java.util.Objects;
+
+/**
+ * The value of a data item along with its version. Versions are assigned by the {@link ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNode}
+ * responsible for the item and increase with every write, hence replicas can tell which of their copies is the newest.
+ *
+ * A value of null marks a deleted item (tombstone), which must outlive older copies of the item on other replicas.
+ */
+public final class Versioned {
+
+  /** The value, null for a deleted item. */
+  private final String value;
+
+  /** The version of the value. */
+  private final long version;
+
+  public Versioned(String value, long version) {
+    this.value = value;
+    this.version = version;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Whether this marks a deleted item.
+   *
+   * @return True, if the value is null.
+   */
+  public boolean isTombstone() {
+    return this.value == null;
+  }
+
+  /**
+   * Returns the newer of the two given {@link Versioned} values. Null is older than any value; on equal versions, the first one is returned.
+   *
+   * @param a The first value, may be null.
+   * @param b The second value, may be null.
+   * @return The newer value or null, if both are null.
+   */
+  public static Versioned newer(Versioned a, Versioned b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return b.version > a.version ? b : a;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Versioned)) {
+      return false;
+    }
+    final Versioned that = (Versioned) o;
+    return this.version == that.version && Objects.equals(this.value, that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(this.version) + Objects.hashCode(this.value);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s@v%d", this.value, this.version);
+  }
+}
@@ -112,74 +112,10 @@ public class CircularInterval<T extends Comparable<T>> {
     (4,4] contains elements 4, but not 0,1,2,3,5,6,7
     */
 
-    if(leftBound.compareTo(rightBound) == 0) {
-      // x in a,b -> a==b
-      if(t.compareTo(leftBound) == 0){
-        // x in a,b --> x == a == b
-          return leftClosed || rightClosed;
-      }else{
-        // x in a,b --> x != a == b
-        return true; /* Important: [a,a] contains all elements between a and a when following the circle clockwise. */
-      }
-    }else if(leftBound.compareTo(rightBound) > 0){
-      // Circular
-      boolean temp = inverse().contains(t);
-      return !temp; // will jump to 'normal' interval comparison
-    }else{
-      // Normal
-      if(leftClosed && rightClosed){
-        return containsClosed(t);
-      }else if(leftClosed){
-        return containsLeftClosed(t);
-      }else if(rightClosed){
-        return containsRightClosed(t);
-      }else { // open
-        return containsOpen(t);
-      }
-    }
-  }
-
-  /**
-   * Test a < t < b (with [a,b])
-   *
-   * @param t
-   * @return
-   */
-  private boolean containsOpen(T t){
-    return leftBound.compareTo(t) < 0 && t.compareTo(rightBound) < 0;
-  }
-
-  /**
-   * Test a <= t < b (with [a,b])
-   *
-   * @param t
-   * @return
-   */
-  private boolean containsLeftClosed(T t){
-    return leftBound.compareTo(t) <= 0 && t.compareTo(rightBound) < 0;
+    /* Delegates to the allocation-free test; the comparisons are equivalent to testing !inverse().contains(t) for a > b. */
+    return Ring.in(leftBound.compareTo(rightBound), t.compareTo(leftBound), t.compareTo(rightBound), leftClosed, rightClosed);
   }
 
-  /**
-   * Test a < t <= b (with [a,b])
-   *
-   * @param t
-   * @return
-   */
-  private boolean containsRightClosed(T t){
-    return leftBound.compareTo(t) < 0 && t.compareTo(rightBound) <= 0;
-  }
-
-  /**
-   * Test a <= t <= b (with [a,b])
-   *
-   * @param t
-   * @return
-   */
-  private boolean containsClosed(T t){
-    return leftBound.compareTo(t) <= 0 && t.compareTo(rightBound) <= 0;
-  }
-
-
   @Override
   public String toString() {
     return (leftClosed ? "[" : "(" )+ leftBound + "," + rightBound + (rightClosed ? "]" : ")");
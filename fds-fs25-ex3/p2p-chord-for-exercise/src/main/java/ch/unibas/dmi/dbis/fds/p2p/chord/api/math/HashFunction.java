@@ -1,62 +1,281 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
 
 import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 
 /**
- * TODO: write JavaDoc
+ * Hashes keys onto the identifier circle using a {@link HashStrategy} (SHA-1 by default).
+ *
+ * All scratch buffers are kept per thread and reused across calls, so that hashing a {@link CharSequence}, a byte
+ * array or a {@link ByteBuffer} does not allocate intermediate copies. Character input is hashed as its UTF-8 encoding.
  *
  * @author loris.sauter
  */
 public class HashFunction {
+  /** The maximum number of bits supported, i.e. the width of a SHA-1 hash. */
+  public static final int MAX_BITS = 160;
+
+  /** Number of bits up to which {@link #hash(CharSequence)} and friends cover the full hash. */
+  public static final int INT_BITS = 31;
+
+  /** Initial size of the per-thread scratch buffer used to encode input before it is hashed. Grows on demand. */
+  private static final int SCRATCH_SIZE = 512;
+
+  /** The per-thread scratch buffers. */
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
   /** The number if bits to keep for the hash. */
   private final int numberOfBits;
 
   /** The bit-mask to apply to extract the hash. */
   private final int mask;
 
+  /** The {@link HashStrategy} used by this {@link HashFunction}. */
+  private final HashStrategy strategy;
+
   /**
-   * Constructor for {@link HashFunction},
+   * Constructor for {@link HashFunction}, using SHA-1 as {@link HashStrategy}.
    *
    * @param numberOfBits  The number if bits to keep for the hash.
    */
   public HashFunction(int numberOfBits) {
+    this(numberOfBits, HashStrategy.SHA1);
+  }
+
+  /**
+   * Constructor for {@link HashFunction},
+   *
+   * @param numberOfBits  The number if bits to keep for the hash.
+   * @param strategy The {@link HashStrategy} to use.
+   */
+  public HashFunction(int numberOfBits, HashStrategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("The hash strategy cannot be null.");
+    }
+    if (numberOfBits < 1 || numberOfBits > MAX_BITS) {
+      throw new IllegalArgumentException(String.format("The number of bits must be between 1 and %d but was %d.", MAX_BITS, numberOfBits));
+    }
+    if (numberOfBits > INT_BITS && numberOfBits > strategy.bits()) {
+      throw new IllegalArgumentException(String.format("The hash strategy %s only provides %d bits, %d requested.", strategy.name(), strategy.bits(), numberOfBits));
+    }
     this.numberOfBits = numberOfBits;
-    this.mask = (int) Math.pow(2, numberOfBits) - 1;
+    this.mask = numberOfBits >= INT_BITS ? Integer.MAX_VALUE : (1 << numberOfBits) - 1;
+    this.strategy = strategy;
   }
 
   /**
-   * Hashes the given input string using SHA-1 as hash algorithm and returns the first {@link HashFunction#numberOfBits} bits as int value.
+   * Hashes the given input string using the {@link HashStrategy} and returns the first {@link HashFunction#numberOfBits} bits as int value.
+   * For more than {@link #INT_BITS} bits, only {@link #INT_BITS} bits are returned; use {@link #hashWide(CharSequence, long[])} instead.
    *
    * @param value The value to hash
    * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
    */
   public final int hash(String value){
-    try {
-      final MessageDigest ms = MessageDigest.getInstance("SHA");
-      final ByteBuffer bytes = ByteBuffer.wrap(ms.digest(value.getBytes()));
-      final int extractedLong = Math.abs(bytes.getInt());
-      return (extractedLong & this.mask);
-    } catch (NoSuchAlgorithmException e) {
-      System.err.println("Couldn't find Hash Algorithm *SHA*.");
-      System.exit(-1);
-      return 0;
+    return hash((CharSequence) value);
+  }
+
+  /**
+   * Hashes the UTF-8 encoding of the given {@link CharSequence}. The characters are encoded into a per-thread scratch
+   * buffer, hence no intermediate byte array is created.
+   *
+   * @param value The value to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
+  public final int hash(CharSequence value) {
+    final byte[] scratch = scratch(3 * value.length());
+    return hash(scratch, 0, encode(value, scratch));
+  }
+
+  /**
+   * Hashes the UTF-8 encoding of the given {@link CharSequence} and writes the first {@link HashFunction#numberOfBits}
+   * bits of the hash to {@code words}, right-aligned and most significant word first (i.e. {@code words[2]} holds the
+   * lowest 64 bits). Supports up to {@link #MAX_BITS} bits.
+   *
+   * @param value The value to hash
+   * @param words Array of (at least) three words receiving the hash.
+   */
+  public final void hashWide(CharSequence value, long[] words) {
+    final byte[] scratch = scratch(3 * value.length());
+    hashWide(scratch, 0, encode(value, scratch), words);
+  }
+
+  /**
+   * Hashes {@code length} bytes of the given array, starting at {@code offset}, and writes the first
+   * {@link HashFunction#numberOfBits} bits of the hash to {@code words}, right-aligned and most significant word first.
+   *
+   * @param value The array holding the bytes to hash
+   * @param offset Offset of the first byte to hash
+   * @param length Number of bytes to hash
+   * @param words Array of (at least) three words receiving the hash.
+   */
+  public final void hashWide(byte[] value, int offset, int length, long[] words) {
+    final long[] digest = SCRATCH.get().words;
+    digest[1] = 0;
+    digest[2] = 0;
+    this.strategy.hashWords(value, offset, length, digest);
+
+    /* The digest is a 192 bit, big-endian number; keep its leading numberOfBits bits. */
+    final int shift = 3 * Long.SIZE - this.numberOfBits;
+    final long d0 = digest[0], d1 = digest[1], d2 = digest[2];
+    if (shift >= 2 * Long.SIZE) {
+      words[0] = 0;
+      words[1] = 0;
+      words[2] = d0 >>> (shift - 2 * Long.SIZE);
+    } else if (shift >= Long.SIZE) {
+      final int t = shift - Long.SIZE;
+      words[0] = 0;
+      words[1] = t == 0 ? d0 : d0 >>> t;
+      words[2] = t == 0 ? d1 : (d1 >>> t) | (d0 << (Long.SIZE - t));
+    } else {
+      words[0] = d0 >>> shift;
+      words[1] = (d1 >>> shift) | (d0 << (Long.SIZE - shift));
+      words[2] = (d2 >>> shift) | (d1 << (Long.SIZE - shift));
     }
   }
 
+  /**
+   * Encodes the given {@link CharSequence} as UTF-8 into the given buffer, which must hold at least three bytes per char.
+   *
+   * @return Number of bytes written.
+   */
+  private static int encode(CharSequence value, byte[] scratch) {
+    final int length = value.length();
+    int fill = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        scratch[fill++] = (byte) c;
+      } else if (c < 0x800) {
+        scratch[fill++] = (byte) (0xC0 | (c >> 6));
+        scratch[fill++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+        final int cp = Character.toCodePoint(c, value.charAt(++i));
+        scratch[fill++] = (byte) (0xF0 | (cp >> 18));
+        scratch[fill++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        scratch[fill++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        scratch[fill++] = (byte) (0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        scratch[fill++] = '?'; /* Unpaired surrogate; replaced the same way String#getBytes does. */
+      } else {
+        scratch[fill++] = (byte) (0xE0 | (c >> 12));
+        scratch[fill++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        scratch[fill++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return fill;
+  }
+
+  /**
+   * Hashes the given byte array.
+   *
+   * @param value The bytes to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
+  public final int hash(byte[] value) {
+    return hash(value, 0, value.length);
+  }
+
+  /**
+   * Hashes {@code length} bytes of the given array, starting at {@code offset}.
+   *
+   * @param value The array holding the bytes to hash
+   * @param offset Offset of the first byte to hash
+   * @param length Number of bytes to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
+  public final int hash(byte[] value, int offset, int length) {
+    final int extracted = (int) (this.strategy.hash64(value, offset, length) >>> 32);
+    return Math.abs(extracted) & this.mask;
+  }
+
+  /**
+   * Hashes the remaining bytes of the given {@link ByteBuffer}. The position of the buffer is left untouched.
+   * Direct buffers are copied into a per-thread scratch buffer first.
+   *
+   * @param value The buffer holding the bytes to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
+  public final int hash(ByteBuffer value) {
+    if (value.hasArray()) {
+      return hash(value.array(), value.arrayOffset() + value.position(), value.remaining());
+    }
+    final int position = value.position();
+    final int length = value.remaining();
+    final byte[] scratch = scratch(length);
+    value.get(scratch, 0, length);
+    value.position(position);
+    return hash(scratch, 0, length);
+  }
+
+  /**
+   * Hashes the decimal representation of the given int, i.e. {@code hash(String.valueOf(i))}, without creating the string.
+   *
+   * @param i The value to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
   public final int hash(int i){
-    return hash(String.valueOf(i));
+    return hash((long) i);
   }
 
+  /**
+   * Hashes the decimal representation of the given long, i.e. {@code hash(String.valueOf(l))}, without creating the string.
+   *
+   * @param l The value to hash
+   * @return The first {@link HashFunction#numberOfBits} bits of the hash, represented as integer.
+   */
   public final int hash(long l){
-    return hash(String.valueOf(l));
+    if (l == Long.MIN_VALUE) {
+      return hash(String.valueOf(l));
+    }
+    final byte[] scratch = scratch(20);
+    int start = 20;
+    long remainder = Math.abs(l);
+    do {
+      scratch[--start] = (byte) ('0' + (remainder % 10));
+      remainder /= 10;
+    } while (remainder > 0);
+    if (l < 0) {
+      scratch[--start] = '-';
+    }
+    return hash(scratch, start, 20 - start);
   }
 
   public final int hash(double d){
     return hash(String.valueOf(d));
   }
 
+  /**
+   * Hashes all the given values in one go. Intended for bulk loads, where the per-call overhead should be kept minimal.
+   *
+   * @param values The values to hash.
+   * @return Array of hashes, in iteration order of {@code values}.
+   */
+  public final int[] hashAll(Collection<? extends CharSequence> values) {
+    final int[] hashes = new int[values.size()];
+    int i = 0;
+    for (CharSequence value : values) {
+      hashes[i++] = hash(value);
+    }
+    return hashes;
+  }
+
+  /**
+   * Hashes all the given values into the provided array, i.e. {@code out[i] = hash(values[i])}.
+   *
+   * @param values The values to hash.
+   * @param out The array the hashes are written to. Must be at least as long as {@code values}.
+   * @return The array {@code out}.
+   */
+  public final int[] hashAll(CharSequence[] values, int[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(String.format("Output array of length %d cannot hold %d hashes.", out.length, values.length));
+    }
+    for (int i = 0; i < values.length; i++) {
+      out[i] = hash(values[i]);
+    }
+    return out;
+  }
+
   /**
    * Getter for {@link HashFunction#numberOfBits}.
    *
@@ -65,4 +284,35 @@ public class HashFunction {
   public final int getNumberOfBits() {
     return this.numberOfBits;
   }
+
+  /**
+   * Getter for the {@link HashStrategy} used by this {@link HashFunction}.
+   *
+   * @return {@link HashStrategy}
+   */
+  public final HashStrategy getStrategy() {
+    return this.strategy;
+  }
+
+  /**
+   * Returns the per-thread scratch buffer, making sure it can hold at least {@code capacity} bytes.
+   *
+   * @param capacity The required capacity.
+   * @return Scratch buffer. Only valid until the next call on this thread.
+   */
+  private static byte[] scratch(int capacity) {
+    final Scratch scratch = SCRATCH.get();
+    if (scratch.bytes.length < capacity) {
+      scratch.bytes = new byte[Math.max(capacity, 2 * scratch.bytes.length)];
+    }
+    return scratch.bytes;
+  }
+
+  /**
+   * Per-thread buffers used to encode input and to receive wide hashes.
+   */
+  private static final class Scratch {
+    private byte[] bytes = new byte[SCRATCH_SIZE];
+    private final long[] words = new long[3];
+  }
 }
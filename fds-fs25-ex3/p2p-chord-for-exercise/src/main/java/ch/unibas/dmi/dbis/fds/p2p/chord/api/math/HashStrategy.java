@@ -0,0 +1,88 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+/**
+ * A hash algorithm that can be used by a {@link HashFunction} to place identifiers and keys on the identifier circle.
+ *
+ * Implementations must be thread-safe and should not allocate per call, since they sit on the store / lookup hot path.
+ *
+ * <p>
+ *   <h4>Chord Context</h4>
+ *   The chord paper uses SHA-1, which makes it hard for an adversary to choose node identifiers or keys that land
+ *   on a particular position of the ring. In trusted deployments, a non-cryptographic hash spreads keys just as
+ *   evenly at a fraction of the cost.
+ * </p>
+ */
+public interface HashStrategy {
+
+  /** SHA-1, as used in the chord paper. */
+  HashStrategy SHA1 = new Sha1HashStrategy();
+
+  /** MurmurHash3 (x64, 128 bit variant). */
+  HashStrategy MURMUR3 = new Murmur3HashStrategy();
+
+  /** xxHash64. */
+  HashStrategy XXHASH64 = new XxHash64HashStrategy();
+
+  /**
+   * The name of this {@link HashStrategy}, as used for configuration and reporting.
+   *
+   * @return Name of the {@link HashStrategy}.
+   */
+  String name();
+
+  /**
+   * Number of bits produced by the underlying hash algorithm.
+   *
+   * @return Native output width in bits.
+   */
+  int bits();
+
+  /**
+   * Whether this {@link HashStrategy} is a cryptographic hash, i.e. whether it resists targeted placement of identifiers.
+   *
+   * @return True for cryptographic hashes, false otherwise.
+   */
+  boolean isCryptographic();
+
+  /**
+   * Hashes {@code length} bytes of {@code input}, starting at {@code offset}, and returns the leading 64 bits of the
+   * hash. For digest based algorithms, these are the first eight bytes of the digest in big-endian order; for word
+   * based algorithms it is the first 64 bit word of the result.
+   *
+   * @param input The array holding the bytes to hash.
+   * @param offset Offset of the first byte to hash.
+   * @param length Number of bytes to hash.
+   * @return The leading 64 bits of the hash.
+   */
+  long hash64(byte[] input, int offset, int length);
+
+  /**
+   * Hashes {@code length} bytes of {@code input}, starting at {@code offset}, and writes the hash to {@code words},
+   * most significant word first. For {@link #bits()} not being a multiple of 64, the last word is left-aligned.
+   * {@code words[0]} always equals {@link #hash64(byte[], int, int)}.
+   *
+   * @param input The array holding the bytes to hash.
+   * @param offset Offset of the first byte to hash.
+   * @param length Number of bytes to hash.
+   * @param words Array receiving the hash. Must hold at least {@code ceil(bits() / 64)} words.
+   */
+  default void hashWords(byte[] input, int offset, int length, long[] words) {
+    words[0] = hash64(input, offset, length);
+  }
+
+  /**
+   * Returns the {@link HashStrategy} with the given name (case insensitive).
+   *
+   * @param name Name of the {@link HashStrategy}, i.e. one of <i>sha1</i>, <i>murmur3</i> or <i>xxhash64</i>.
+   * @return The {@link HashStrategy}
+   * @throws IllegalArgumentException If no {@link HashStrategy} with the given name exists.
+   */
+  static HashStrategy forName(String name) {
+    for (HashStrategy strategy : new HashStrategy[]{SHA1, MURMUR3, XXHASH64}) {
+      if (strategy.name().equalsIgnoreCase(name)) {
+        return strategy;
+      }
+    }
+    throw new IllegalArgumentException(String.format("Unknown hash strategy '%s'.", name));
+  }
+}
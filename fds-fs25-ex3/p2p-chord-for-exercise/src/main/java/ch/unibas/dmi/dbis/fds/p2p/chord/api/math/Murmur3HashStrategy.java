@@ -0,0 +1,120 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+/**
+ * {@link HashStrategy} based on MurmurHash3, x64 128 bit variant (seed 0). Stateless and allocation-free.
+ *
+ * Not a cryptographic hash: only use it in deployments, where peers can be trusted not to pick their identifiers.
+ */
+public final class Murmur3HashStrategy implements HashStrategy {
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  Murmur3HashStrategy() {}
+
+  @Override
+  public String name() {
+    return "murmur3";
+  }
+
+  @Override
+  public int bits() {
+    return 128;
+  }
+
+  @Override
+  public boolean isCryptographic() {
+    return false;
+  }
+
+  @Override
+  public long hash64(byte[] input, int offset, int length) {
+    return hash(input, offset, length, null);
+  }
+
+  @Override
+  public void hashWords(byte[] input, int offset, int length, long[] words) {
+    hash(input, offset, length, words);
+  }
+
+  /**
+   * Computes the hash and returns its first word h1. If {@code words} is not null, h1 and h2 are written to it.
+   * The tail is mixed in by a switch whose cases deliberately fall through, as in the reference implementation.
+   */
+  @SuppressWarnings("fallthrough")
+  private static long hash(byte[] input, int offset, int length, long[] words) {
+    long h1 = 0;
+    long h2 = 0;
+    final int blocks = length >>> 4;
+    for (int i = 0; i < blocks; i++) {
+      final int p = offset + (i << 4);
+      long k1 = getLong(input, p);
+      long k2 = getLong(input, p + 8);
+
+      k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+      h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+      k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+      h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    final int tail = offset + (blocks << 4);
+    long k1 = 0;
+    long k2 = 0;
+    switch (length & 15) {
+      case 15: k2 ^= (long) (input[tail + 14] & 0xFF) << 48;
+      case 14: k2 ^= (long) (input[tail + 13] & 0xFF) << 40;
+      case 13: k2 ^= (long) (input[tail + 12] & 0xFF) << 32;
+      case 12: k2 ^= (long) (input[tail + 11] & 0xFF) << 24;
+      case 11: k2 ^= (long) (input[tail + 10] & 0xFF) << 16;
+      case 10: k2 ^= (long) (input[tail + 9] & 0xFF) << 8;
+      case 9:
+        k2 ^= (input[tail + 8] & 0xFF);
+        k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+      case 8: k1 ^= (long) (input[tail + 7] & 0xFF) << 56;
+      case 7: k1 ^= (long) (input[tail + 6] & 0xFF) << 48;
+      case 6: k1 ^= (long) (input[tail + 5] & 0xFF) << 40;
+      case 5: k1 ^= (long) (input[tail + 4] & 0xFF) << 32;
+      case 4: k1 ^= (long) (input[tail + 3] & 0xFF) << 24;
+      case 3: k1 ^= (long) (input[tail + 2] & 0xFF) << 16;
+      case 2: k1 ^= (long) (input[tail + 1] & 0xFF) << 8;
+      case 1:
+        k1 ^= (input[tail] & 0xFF);
+        k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+      default:
+        break;
+    }
+
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix(h1);
+    h2 = fmix(h2);
+    h1 += h2;
+    if (words != null) {
+      words[0] = h1;
+      words[1] = h2 + h1;
+    }
+    return h1;
+  }
+
+  private static long getLong(byte[] b, int p) {
+    return (b[p] & 0xFFL) | (b[p + 1] & 0xFFL) << 8 | (b[p + 2] & 0xFFL) << 16 | (b[p + 3] & 0xFFL) << 24
+        | (b[p + 4] & 0xFFL) << 32 | (b[p + 5] & 0xFFL) << 40 | (b[p + 6] & 0xFFL) << 48 | (b[p + 7] & 0xFFL) << 56;
+  }
+
+  private static long fmix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
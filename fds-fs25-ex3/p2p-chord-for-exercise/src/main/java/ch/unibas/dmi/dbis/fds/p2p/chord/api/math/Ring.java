@@ -0,0 +1,120 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+/**
+ * Static, allocation-free membership tests for circular intervals. These are equivalent to
+ * {@link CircularInterval#contains(Comparable)} on an interval with the same bounds, but neither create an interval
+ * object nor box primitive values, which makes them suitable for the routing hot path.
+ *
+ * As with {@link CircularInterval}, an interval whose left bound is greater than its right bound wraps around,
+ * and an interval with equal bounds spans the whole circle: (a,a) contains everything but a, while [a,a), (a,a]
+ * and [a,a] contain everything.
+ */
+public final class Ring {
+
+  private Ring() {}
+
+  /**
+   * Tests whether {@code x} lies in the open interval (a,b).
+   */
+  public static boolean inOpen(int a, int b, int x) {
+    return in(Integer.compare(a, b), Integer.compare(x, a), Integer.compare(x, b), false, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the left open interval (a,b].
+   */
+  public static boolean inLeftOpen(int a, int b, int x) {
+    return in(Integer.compare(a, b), Integer.compare(x, a), Integer.compare(x, b), false, true);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the right open interval [a,b).
+   */
+  public static boolean inRightOpen(int a, int b, int x) {
+    return in(Integer.compare(a, b), Integer.compare(x, a), Integer.compare(x, b), true, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the closed interval [a,b].
+   */
+  public static boolean inClosed(int a, int b, int x) {
+    return in(Integer.compare(a, b), Integer.compare(x, a), Integer.compare(x, b), true, true);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the open interval (a,b).
+   */
+  public static boolean inOpen(long a, long b, long x) {
+    return in(Long.compare(a, b), Long.compare(x, a), Long.compare(x, b), false, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the left open interval (a,b].
+   */
+  public static boolean inLeftOpen(long a, long b, long x) {
+    return in(Long.compare(a, b), Long.compare(x, a), Long.compare(x, b), false, true);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the right open interval [a,b).
+   */
+  public static boolean inRightOpen(long a, long b, long x) {
+    return in(Long.compare(a, b), Long.compare(x, a), Long.compare(x, b), true, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the closed interval [a,b].
+   */
+  public static boolean inClosed(long a, long b, long x) {
+    return in(Long.compare(a, b), Long.compare(x, a), Long.compare(x, b), true, true);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the open interval (a,b). Intended for types whose comparison does not allocate,
+   * such as identifiers.
+   */
+  public static <T extends Comparable<? super T>> boolean inOpen(T a, T b, T x) {
+    return in(a.compareTo(b), x.compareTo(a), x.compareTo(b), false, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the left open interval (a,b].
+   */
+  public static <T extends Comparable<? super T>> boolean inLeftOpen(T a, T b, T x) {
+    return in(a.compareTo(b), x.compareTo(a), x.compareTo(b), false, true);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the right open interval [a,b).
+   */
+  public static <T extends Comparable<? super T>> boolean inRightOpen(T a, T b, T x) {
+    return in(a.compareTo(b), x.compareTo(a), x.compareTo(b), true, false);
+  }
+
+  /**
+   * Tests whether {@code x} lies in the closed interval [a,b].
+   */
+  public static <T extends Comparable<? super T>> boolean inClosed(T a, T b, T x) {
+    return in(a.compareTo(b), x.compareTo(a), x.compareTo(b), true, true);
+  }
+
+  /**
+   * Tests interval membership given the results of the three comparisons a:b, x:a and x:b.
+   *
+   * @param ab Result of comparing the left to the right bound.
+   * @param xa Result of comparing the element to the left bound.
+   * @param xb Result of comparing the element to the right bound.
+   * @param leftClosed Whether the left bound is part of the interval.
+   * @param rightClosed Whether the right bound is part of the interval.
+   * @return True, if the element is part of the interval.
+   */
+  static boolean in(int ab, int xa, int xb, boolean leftClosed, boolean rightClosed) {
+    if (ab == 0) {
+      /* Full circle; only the open interval excludes its (single) bound. */
+      return xa != 0 || leftClosed || rightClosed;
+    }
+    final boolean afterLeft = xa > 0 || (leftClosed && xa == 0);
+    final boolean beforeRight = xb < 0 || (rightClosed && xb == 0);
+    return ab < 0 ? afterLeft && beforeRight : afterLeft || beforeRight;
+  }
+}
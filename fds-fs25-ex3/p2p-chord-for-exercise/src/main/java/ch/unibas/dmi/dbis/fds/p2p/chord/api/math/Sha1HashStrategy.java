@@ -0,0 +1,90 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * {@link HashStrategy} based on SHA-1. The {@link MessageDigest} and the buffer receiving the digest are kept per thread.
+ */
+public final class Sha1HashStrategy implements HashStrategy {
+  /** The name of the hash algorithm. */
+  private static final String ALGORITHM = "SHA";
+
+  /** The per-thread {@link MessageDigest}s. */
+  private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      System.err.println("Couldn't find Hash Algorithm *SHA*.");
+      System.exit(-1);
+      return null;
+    }
+  });
+
+  /** The per-thread buffers the digest is written to. */
+  private static final ThreadLocal<byte[]> OUT = ThreadLocal.withInitial(() -> new byte[20]);
+
+  Sha1HashStrategy() {}
+
+  @Override
+  public String name() {
+    return "sha1";
+  }
+
+  @Override
+  public int bits() {
+    return 160;
+  }
+
+  @Override
+  public boolean isCryptographic() {
+    return true;
+  }
+
+  @Override
+  public long hash64(byte[] input, int offset, int length) {
+    return word(digest(input, offset, length), 0, 8);
+  }
+
+  @Override
+  public void hashWords(byte[] input, int offset, int length, long[] words) {
+    final byte[] out = digest(input, offset, length);
+    words[0] = word(out, 0, 8);
+    words[1] = word(out, 8, 8);
+    words[2] = word(out, 16, 4) << 32;
+  }
+
+  /**
+   * Reads {@code n} bytes starting at {@code from} as big-endian number.
+   */
+  private static long word(byte[] b, int from, int n) {
+    long result = 0;
+    for (int i = from; i < from + n; i++) {
+      result = (result << 8) | (b[i] & 0xFF);
+    }
+    return result;
+  }
+
+  /**
+   * Computes the full SHA-1 digest into the per-thread output buffer.
+   *
+   * @return The per-thread output buffer, holding the 20 byte digest. Only valid until the next call on this thread.
+   */
+  byte[] digest(byte[] input, int offset, int length) {
+    final MessageDigest digest = DIGESTS.get();
+    final byte[] out = OUT.get();
+    digest.update(input, offset, length);
+    try {
+      digest.digest(out, 0, out.length);
+    } catch (DigestException e) {
+      throw new IllegalStateException("Failed to complete digest.", e);
+    }
+    return out;
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
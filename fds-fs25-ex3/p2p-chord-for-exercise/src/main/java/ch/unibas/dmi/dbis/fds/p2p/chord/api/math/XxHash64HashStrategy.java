@@ -0,0 +1,110 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+/**
+ * {@link HashStrategy} based on xxHash64 (seed 0). Stateless and allocation-free.
+ *
+ * Not a cryptographic hash: only use it in deployments, where peers can be trusted not to pick their identifiers.
+ */
+public final class XxHash64HashStrategy implements HashStrategy {
+
+  private static final long P1 = 0x9E3779B185EBCA87L;
+  private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long P3 = 0x165667B19E3779F9L;
+  private static final long P4 = 0x85EBCA77C2B2AE63L;
+  private static final long P5 = 0x27D4EB2F165667C5L;
+
+  XxHash64HashStrategy() {}
+
+  @Override
+  public String name() {
+    return "xxhash64";
+  }
+
+  @Override
+  public int bits() {
+    return 64;
+  }
+
+  @Override
+  public boolean isCryptographic() {
+    return false;
+  }
+
+  @Override
+  public long hash64(byte[] input, int offset, int length) {
+    final int end = offset + length;
+    int p = offset;
+    long h;
+    if (length >= 32) {
+      long v1 = P1 + P2;
+      long v2 = P2;
+      long v3 = 0;
+      long v4 = -P1;
+      final int limit = end - 32;
+      do {
+        v1 = round(v1, getLong(input, p));
+        v2 = round(v2, getLong(input, p + 8));
+        v3 = round(v3, getLong(input, p + 16));
+        v4 = round(v4, getLong(input, p + 24));
+        p += 32;
+      } while (p <= limit);
+      h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      h = mergeRound(h, v1);
+      h = mergeRound(h, v2);
+      h = mergeRound(h, v3);
+      h = mergeRound(h, v4);
+    } else {
+      h = P5;
+    }
+
+    h += length;
+
+    while (p + 8 <= end) {
+      h ^= round(0, getLong(input, p));
+      h = Long.rotateLeft(h, 27) * P1 + P4;
+      p += 8;
+    }
+    if (p + 4 <= end) {
+      h ^= (getInt(input, p) & 0xFFFFFFFFL) * P1;
+      h = Long.rotateLeft(h, 23) * P2 + P3;
+      p += 4;
+    }
+    while (p < end) {
+      h ^= (input[p] & 0xFFL) * P5;
+      h = Long.rotateLeft(h, 11) * P1;
+      p++;
+    }
+
+    h ^= h >>> 33;
+    h *= P2;
+    h ^= h >>> 29;
+    h *= P3;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * P2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * P1;
+  }
+
+  private static long mergeRound(long acc, long val) {
+    acc ^= round(0, val);
+    return acc * P1 + P4;
+  }
+
+  private static long getLong(byte[] b, int p) {
+    return (b[p] & 0xFFL) | (b[p + 1] & 0xFFL) << 8 | (b[p + 2] & 0xFFL) << 16 | (b[p + 3] & 0xFFL) << 24
+        | (b[p + 4] & 0xFFL) << 32 | (b[p + 5] & 0xFFL) << 40 | (b[p + 6] & 0xFFL) << 48 | (b[p + 7] & 0xFFL) << 56;
+  }
+
+  private static int getInt(byte[] b, int p) {
+    return (b[p] & 0xFF) | (b[p + 1] & 0xFF) << 8 | (b[p + 2] & 0xFF) << 16 | (b[p + 3] & 0xFF) << 24;
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
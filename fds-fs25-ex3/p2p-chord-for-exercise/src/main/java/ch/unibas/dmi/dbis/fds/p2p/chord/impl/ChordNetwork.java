@@ -1,9 +1,13 @@
 package ch.unibas.dmi.dbis.fds.p2p.chord.impl;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.ReadStrategy;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.RoutingMode;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.CircularInterval;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.PeerStore;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.SkipListStore;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashStrategy;
 
 /**
  * Reference implementation of the {@link ChordNetwork} as described in [1].
@@ -12,6 +16,9 @@ import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
  */
 public class ChordNetwork implements ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNetwork {
 
+  /** Default length r of the successor lists. */
+  public static final int DEFAULT_SUCCESSOR_LIST_LENGTH = 3;
+
   /** Number of bits to use for the chord ring (value of <strong>m</strong> in the paper). */
   private final int nbits;
 
@@ -21,6 +28,21 @@ public class ChordNetwork implements ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordN
   /** The {@link HashFunction} used to hash keys. */
   private final HashFunction function;
 
+  /** Length r of the successor list maintained by each peer. */
+  private final int successorListLength;
+
+  /** Replication factor r, read quorum R and write quorum W; replaced together. */
+  private volatile int[] replication = {1, 1, 1};
+
+  /** The {@link ReadStrategy} used to choose the replicas answering a read. */
+  private volatile ReadStrategy readStrategy = ReadStrategy.FIRST_RESPONDING;
+
+  /** The {@link PeerStore.Factory} used to create the storage of the peers. */
+  private volatile PeerStore.Factory storeFactory = SkipListStore::new;
+
+  /** The {@link RoutingMode} used to route lookups. */
+  private volatile RoutingMode routingMode = RoutingMode.ITERATIVE;
+
   /** */
   protected final IdentifierCircle<Identifier> circle;
 
@@ -40,10 +62,40 @@ public class ChordNetwork implements ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordN
    * @param dynamic  Whether the {@link ChordNetwork} should exhibit dynamic behaviour (e.g. uses stabilize / fix-fingers)
    */
   public ChordNetwork(int nbits, boolean dynamic){
+    this(nbits, dynamic, HashStrategy.SHA1);
+  }
+
+  /**
+   * Constructor for {@link ChordNetwork}.
+   *
+   * @param nbits Number of bits to use for the chord ring (value of <strong>m</strong> in the paper).
+   * @param dynamic  Whether the {@link ChordNetwork} should exhibit dynamic behaviour (e.g. uses stabilize / fix-fingers)
+   * @param strategy The {@link HashStrategy} used to place keys and identifiers on the ring.
+   */
+  public ChordNetwork(int nbits, boolean dynamic, HashStrategy strategy){
+    this(nbits, dynamic, strategy, DEFAULT_SUCCESSOR_LIST_LENGTH);
+  }
+
+  /**
+   * Constructor for {@link ChordNetwork}.
+   *
+   * @param nbits Number of bits to use for the chord ring (value of <strong>m</strong> in the paper).
+   * @param dynamic  Whether the {@link ChordNetwork} should exhibit dynamic behaviour (e.g. uses stabilize / fix-fingers)
+   * @param strategy The {@link HashStrategy} used to place keys and identifiers on the ring.
+   * @param successorListLength Length r of the successor list maintained by each peer (at least 1).
+   */
+  public ChordNetwork(int nbits, boolean dynamic, HashStrategy strategy, int successorListLength){
+    if (successorListLength < 1) {
+      throw new IllegalArgumentException(String.format("The successor list length must be at least 1 but was %d.", successorListLength));
+    }
+    this.successorListLength = successorListLength;
+    if (nbits < 1 || nbits > HashFunction.MAX_BITS) {
+      throw new IllegalArgumentException(String.format("The number of bits must be between 1 and %d but was %d.", HashFunction.MAX_BITS, nbits));
+    }
     this.nbits = nbits;
-    this.function = new HashFunction(nbits);
+    this.function = new HashFunction(nbits, strategy);
     this.dynamic = dynamic;
-    this.circle = new ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircle(nbits);
+    this.circle = new ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircle(nbits, this.function);
   }
 
   /**
@@ -74,6 +126,130 @@ public class ChordNetwork implements ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordN
     return nbits;
   }
 
+  /**
+   * Length r of the successor list maintained by each peer.
+   *
+   * @return Length of the successor list.
+   */
+  @Override
+  public int getSuccessorListLength() {
+    return successorListLength;
+  }
+
+  /**
+   * Replication factor r: every data item is stored by the responsible peer and copied to its next r-1 successors.
+   *
+   * @return Replication factor.
+   */
+  @Override
+  public int getReplicationFactor() {
+    return replication[0];
+  }
+
+  /**
+   * Read quorum R: number of replicas that must answer a read.
+   *
+   * @return Read quorum.
+   */
+  @Override
+  public int getReadQuorum() {
+    return replication[1];
+  }
+
+  /**
+   * Write quorum W: number of replicas that must acknowledge a write.
+   *
+   * @return Write quorum.
+   */
+  @Override
+  public int getWriteQuorum() {
+    return replication[2];
+  }
+
+  /**
+   * Configures the replication of data items. Replicas are placed on the successor list, hence the replication
+   * factor is limited by the length of the successor list. Affects operations issued afterwards.
+   *
+   * @param factor Replication factor r, between 1 and the successor list length + 1.
+   * @param readQuorum Read quorum R, between 1 and r.
+   * @param writeQuorum Write quorum W, between 1 and r.
+   */
+  public void setReplication(int factor, int readQuorum, int writeQuorum) {
+    if (factor < 1 || factor > this.successorListLength + 1) {
+      throw new IllegalArgumentException(String.format("The replication factor must be between 1 and %d but was %d.", this.successorListLength + 1, factor));
+    }
+    if (readQuorum < 1 || readQuorum > factor || writeQuorum < 1 || writeQuorum > factor) {
+      throw new IllegalArgumentException(String.format("The read and write quorums must be between 1 and %d but were %d and %d.", factor, readQuorum, writeQuorum));
+    }
+    this.replication = new int[]{factor, readQuorum, writeQuorum};
+  }
+
+  /**
+   * The {@link ReadStrategy} used to choose the replicas answering a read.
+   *
+   * @return {@link ReadStrategy} of the reads.
+   */
+  @Override
+  public ReadStrategy getReadStrategy() {
+    return readStrategy;
+  }
+
+  /**
+   * Sets the {@link ReadStrategy} used to choose the replicas answering a read.
+   *
+   * @param readStrategy The new {@link ReadStrategy}.
+   */
+  public void setReadStrategy(ReadStrategy readStrategy) {
+    if (readStrategy == null) {
+      throw new IllegalArgumentException("The read strategy cannot be null.");
+    }
+    this.readStrategy = readStrategy;
+  }
+
+  /**
+   * The {@link PeerStore.Factory} used to create the storage of the peers of this {@link ChordNetwork}.
+   *
+   * @return {@link PeerStore.Factory} of the storage.
+   */
+  @Override
+  public PeerStore.Factory getStoreFactory() {
+    return storeFactory;
+  }
+
+  /**
+   * Sets the {@link PeerStore.Factory} used to create the storage of the peers. Affects peers created afterwards.
+   *
+   * @param storeFactory The new {@link PeerStore.Factory}, e.g. {@code HashMapStore::new}.
+   */
+  public void setStoreFactory(PeerStore.Factory storeFactory) {
+    if (storeFactory == null) {
+      throw new IllegalArgumentException("The store factory cannot be null.");
+    }
+    this.storeFactory = storeFactory;
+  }
+
+  /**
+   * The {@link RoutingMode} used by the peers of this {@link ChordNetwork} to route lookups.
+   *
+   * @return {@link RoutingMode} of the lookups.
+   */
+  @Override
+  public RoutingMode getRoutingMode() {
+    return routingMode;
+  }
+
+  /**
+   * Sets the {@link RoutingMode} used by the peers of this {@link ChordNetwork}. Affects lookups issued afterwards.
+   *
+   * @param routingMode The new {@link RoutingMode}.
+   */
+  public void setRoutingMode(RoutingMode routingMode) {
+    if (routingMode == null) {
+      throw new IllegalArgumentException("The routing mode cannot be null.");
+    }
+    this.routingMode = routingMode;
+  }
+
   /**
    * Indicates whether or not this {@link ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNetwork} uses dynamic mode:
    *
@@ -95,11 +271,20 @@ public class ChordNetwork implements ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordN
    * @return The newly created {@link ChordPeer}.
    */
   public ChordPeer createChordPeer(int index){
-    final CircularInterval<Integer> interval = CircularInterval.createClosed(0, (int)Math.pow(2, size()));
-    if(!interval.contains(index)){
-      throw new IllegalArgumentException(String.format("The requested index %d is not part of the interval %s.", index, interval.toString()));
+    if (index < 0 || (this.nbits < Integer.SIZE - 1 && index >= size())) {
+      throw new IllegalArgumentException(String.format("The requested index %d is not part of the identifier circle with %d bits.", index, this.nbits));
     }
-    final Identifier id = this.circle.getIdentifierAt(index);
+    return createChordPeer(this.circle.getIdentifierAt(index));
+  }
+
+  /**
+   * Convenience method to create a new {@link ChordPeer} at the given {@link Identifier}. Required for identifier circles
+   * whose indices do not fit into an int. The newly created peer is NOT part of the {@link ChordNetwork} yet!
+   *
+   * @param id The {@link Identifier} (i.e. position) of the {@link ChordPeer}.
+   * @return The newly created {@link ChordPeer}.
+   */
+  public ChordPeer createChordPeer(Identifier id){
     return new ChordPeer(id, this);
   }
 }
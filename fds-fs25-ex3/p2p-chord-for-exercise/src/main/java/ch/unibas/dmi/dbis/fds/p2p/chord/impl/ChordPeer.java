@@ -2,16 +2,15 @@ package ch.unibas.dmi.dbis.fds.p2p.chord.impl;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.*;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNetwork;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupStatistics.Outcome;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
 // import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircle;
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircularInterval;
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.CircularInterval;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
 
-import static ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircularInterval.createLeftOpen;
-import static ch.unibas.dmi.dbis.fds.p2p.chord.api.data.IdentifierCircularInterval.createOpen;
-
-import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
 * @author loris.sauter
@@ -21,6 +20,9 @@ public class ChordPeer extends AbstractChordPeer {
     /** Random for fixFingers */
     private final Random rng = new Random();
 
+    /** Whether this node has joined a dynamic network, but not yet taken over its keys from its successor. */
+    private volatile boolean keysPending;
+
     /**
     *
     * @param identifier
@@ -42,33 +44,209 @@ public class ChordPeer extends AbstractChordPeer {
     @Override
     public ChordNode findSuccessor(ChordNode caller, Identifier id) {
         ChordNode n0 = this.findPredecessor(this, id);
-        return n0.successor();
+        return n0.liveSuccessor();
     }
     
+    /**
+    * Asynchronous variant of {@link #findSuccessor(ChordNode, Identifier)}, routed according to the network's
+    * {@link RoutingMode}. See {@link #traceSuccessor(Identifier)}.
+    *
+    * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
+    * @param id The {@link Identifier} for which to lookup the successor. Does not need to be the ID of an actual {@link ChordNode}!
+    * @return Future of the successor of the node {@code id}. Fails with a {@link LookupFailedException}, if the lookup does not resolve.
+    */
+    @Override
+    public CompletableFuture<ChordNode> findSuccessorAsync(ChordNode caller, Identifier id) {
+        return this.traceSuccessor(id).thenApply(statistics -> {
+            if (!statistics.isResolved()) {
+                throw new LookupFailedException(statistics);
+            }
+            return statistics.getOwner();
+        });
+    }
+
+    /**
+    * Looks up {@code id}'s successor, starting at this {@link ChordNode}, and reports the outcome, the number of hops
+    * and the latency of the lookup. Routes iteratively or recursively, depending on the network's {@link RoutingMode}.
+    * No thread is blocked while waiting for a hop.
+    *
+    * The lookup is bounded by a {@link LookupContext}: it falls back to walking along successors if fingers lead nowhere
+    * or in a loop, and it is aborted once its hop budget or deadline is exceeded. Aborted lookups still report the
+    * closest {@link ChordNode} they reached.
+    *
+    * @param id The {@link Identifier} for which to lookup the successor. Does not need to be the ID of an actual {@link ChordNode}!
+    * @return Future of the {@link LookupStatistics}, holding the successor of {@code id} if the lookup has resolved.
+    */
+    public CompletableFuture<LookupStatistics> traceSuccessor(Identifier id) {
+        final long start = getNetwork().nanoTime();
+        final RoutingMode mode = getNetwork().getRoutingMode();
+        final LookupContext context = LookupContext.of(getNetwork());
+        context.visit(this);
+        final CompletableFuture<LookupStatistics> lookup;
+        if (mode == RoutingMode.RECURSIVE) {
+            lookup = this.findSuccessorRecursive(this, this, id, context);
+        } else {
+            lookup = this.findPredecessorAsync(this, id, context).thenApply(p -> p == null
+                ? LookupStatistics.failed(context, context.getOutcome(), mode)
+                : LookupStatistics.resolved(context, p.liveSuccessor(), mode));
+        }
+        /* The deadline runs on the network's clock, which is virtual in a simulation. */
+        final CompletableFuture<LookupStatistics> deadline = new CompletableFuture<>();
+        getNetwork().delayedExecutor(context.remaining(), TimeUnit.MILLISECONDS)
+            .execute(() -> deadline.complete(LookupStatistics.failed(context, Outcome.DEADLINE_EXCEEDED, mode)));
+        return lookup
+            .applyToEither(deadline, Function.identity())
+            .thenApply(statistics -> {
+                LookupStatistics traced = statistics.withLatency(getNetwork().nanoTime() - start);
+                this.onLookup(traced);
+                return traced;
+            });
+    }
+
+    /**
+    * Asynchronous, iterative search for {@code id}'s predecessor, starting at {@code n}: every hop is an asynchronous
+    * call to {@link ChordNode#closestPrecedingFingerAsync(ChordNode, Identifier)} issued by this {@link ChordNode}.
+    *
+    * @param n The {@link ChordNode} of the current hop.
+    * @param id The {@link Identifier} for which to lookup the predecessor.
+    * @param context The {@link LookupContext} of the lookup.
+    * @return Future of the predecessor of {@code id} or of null, if the lookup has been aborted.
+    */
+    private CompletableFuture<ChordNode> findPredecessorAsync(ChordNode n, Identifier id, LookupContext context) {
+        // while id ∉ (n, n.successor]
+        if (Ring.inLeftOpen(n.id(), n.liveSuccessor().id(), id)) {
+            return CompletableFuture.completedFuture(n);
+        }
+        if (!proceed(context)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<ChordNode> candidate = context.isWalking()
+            ? CompletableFuture.completedFuture(n.liveSuccessor())
+            : n.closestPrecedingFingerAsync(this, id);
+        return candidate.thenCompose(c -> {
+            ChordNode next = advance(n, c, context);
+            return next == null ? CompletableFuture.completedFuture(null) : this.findPredecessorAsync(next, id, context);
+        });
+    }
+
+    /**
+    * Recursive variant of {@link #findSuccessor(ChordNode, Identifier)}: forwards the query to the closest preceding
+    * finger until it reaches {@code id}'s predecessor, which replies to {@code origin} directly. Aborted lookups are
+    * reported to {@code origin} by the {@link ChordNode} they end at.
+    *
+    * Described in [1], Section 4.
+    *
+    * @param caller The {@link ChordNode} of the previous hop. Used for simulation - not part of the actual chord definition.
+    * @param origin The {@link ChordNode} that issued the lookup and receives the reply.
+    * @param id The {@link Identifier} for which to lookup the successor.
+    * @param context The {@link LookupContext} of the query, travelling along with it.
+    * @return Future of the {@link LookupStatistics}, holding the successor of {@code id}.
+    */
+    @Override
+    public CompletableFuture<LookupStatistics> findSuccessorRecursive(ChordNode caller, ChordNode origin, Identifier id, LookupContext context) {
+        ChordNode succ = this.liveSuccessor();
+        if (Ring.inLeftOpen(this.id(), succ.id(), id)) {
+            return this.reply(origin, LookupStatistics.resolved(context, succ, RoutingMode.RECURSIVE));
+        }
+        if (!proceed(context)) {
+            return this.reply(origin, LookupStatistics.failed(context, context.getOutcome(), RoutingMode.RECURSIVE));
+        }
+        ChordNode candidate = context.isWalking() ? succ : this.closestPrecedingFinger(this, id);
+        ChordNode next = advance(this, candidate, context);
+        if (next == null) {
+            return this.reply(origin, LookupStatistics.failed(context, context.getOutcome(), RoutingMode.RECURSIVE));
+        }
+        return next.findSuccessorRecursive(this, origin, id, context);
+    }
+
+    /**
+    * Checks whether a lookup may take another hop and aborts it otherwise.
+    *
+    * @param context The {@link LookupContext} of the lookup.
+    * @return True, if the lookup may continue.
+    */
+    private static boolean proceed(LookupContext context) {
+        if (context.expired()) {
+            context.complete(Outcome.DEADLINE_EXCEEDED);
+        } else if (context.exhausted()) {
+            context.complete(Outcome.HOP_LIMIT_EXCEEDED);
+        }
+        return context.getOutcome() == null;
+    }
+
+    /**
+    * Determines the next hop of a lookup at {@code n}. Takes {@code candidate} if it makes progress, i.e. if it is live
+    * and has not been visited yet. Otherwise the lookup falls back to walking along successors, starting with
+    * {@code n}'s successor.
+    *
+    * @param n The {@link ChordNode} of the current hop.
+    * @param candidate The proposed next hop, i.e. the closest preceding finger or the successor of {@code n}.
+    * @param context The {@link LookupContext} of the lookup.
+    * @return The next hop or null, if there is none. In that case, the lookup is aborted.
+    */
+    private static ChordNode advance(ChordNode n, ChordNode candidate, LookupContext context) {
+        if (candidate != null && candidate != n && candidate.status() != NodeStatus.OFFLINE && context.visit(candidate)) {
+            return candidate;
+        }
+        if (!context.isWalking()) {
+            context.startWalking();
+            ChordNode succ = n.liveSuccessor();
+            if (succ != null && succ != n && succ.status() != NodeStatus.OFFLINE && context.visit(succ)) {
+                return succ;
+            }
+        }
+        context.complete(Outcome.NO_ROUTE);
+        return null;
+    }
+
+    /**
+    * Sends the result of a recursive lookup back to the {@link ChordNode} that issued it.
+    *
+    * @param origin The {@link ChordNode} that issued the lookup.
+    * @param result The result to send.
+    * @return Future of the result, as received by {@code origin}.
+    */
+    protected <T> CompletableFuture<T> reply(ChordNode origin, T result) {
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+    * Called whenever a lookup issued by this {@link ChordNode} has completed. Does nothing by default.
+    *
+    * @param statistics The {@link LookupStatistics} of the lookup.
+    */
+    protected void onLookup(LookupStatistics statistics) {
+    }
+
     /**
     * Asks this {@link ChordNode} to find {@code id}'s predecessor {@link ChordNode}
     *
-    * Defined in [1], Figure 4
+    * Defined in [1], Figure 4. The search is bounded by a {@link LookupContext}, see {@link #traceSuccessor(Identifier)}.
     *
     * @param caller The calling {@link ChordNode}. Used for simulation - not part of the actual chord definition.
     * @param id The {@link Identifier} for which to lookup the predecessor. Does not need to be the ID of an actual {@link ChordNode}!
     * @return The predecessor of or the node {@code of} from this {@link ChordNode}'s point of view
+    * @throws LookupFailedException If the search has been aborted; the closest predecessor reached is reported.
     */
     @Override
-    public ChordNode findPredecessor(ChordNode caller, Identifier id) {        
+    public ChordNode findPredecessor(ChordNode caller, Identifier id) {
+        LookupContext context = LookupContext.of(getNetwork());
         ChordNode n = this;
-        
+        context.visit(n);
+
         // while id ∉ (n, n.successor]
-        while (true) {
-            ChordNode succ = n.successor();
-            boolean inLeftOpen = IdentifierCircularInterval.createLeftOpen(n.id(), succ.id()).contains(id);
-            if (inLeftOpen) {
-                return n;
-            } else {
-                ChordNode next = n.closestPrecedingFinger(n, id);
-                n = next;
+        while (!Ring.inLeftOpen(n.id(), n.liveSuccessor().id(), id)) {
+            if (!proceed(context)) {
+                throw new LookupFailedException(LookupStatistics.failed(context, context.getOutcome(), RoutingMode.ITERATIVE));
+            }
+            ChordNode candidate = context.isWalking() ? n.liveSuccessor() : n.closestPrecedingFinger(n, id);
+            ChordNode next = advance(n, candidate, context);
+            if (next == null) {
+                throw new LookupFailedException(LookupStatistics.failed(context, context.getOutcome(), RoutingMode.ITERATIVE));
             }
+            n = next;
         }
+        return n;
     }
     
     /**
@@ -95,21 +273,12 @@ public class ChordPeer extends AbstractChordPeer {
 //   }
     public ChordNode closestPrecedingFinger(ChordNode caller, Identifier id) {
         if (this.status() == NodeStatus.OFFLINE) return null;
-        
-        int m = getNetwork().getNbits();
-        
-        // Search fingers in reverse order
-        for (int i = m; i >= 1; i--) {
-            if (this.fingerTable.node(i).isPresent()) {
-                ChordNode fingerNode = this.fingerTable.node(i).get();
-                // Check if finger lies in (self, id)
-                if (IdentifierCircularInterval.createOpen(this.id(), id).contains(fingerNode.id())) {
-                    return fingerNode;
-                }
-            }
-        }
+
+        // Finger with the greatest distance in (self, id), found by binary search
+        ChordNode fingerNode = this.fingerTable.closestPreceding(id);
+
         // No suitable finger, return self
-        return this;
+        return fingerNode != null ? fingerNode : this;
     }
     
     /**
@@ -128,8 +297,8 @@ public class ChordPeer extends AbstractChordPeer {
         if (nprime != null) {
             initFingerTable(nprime);
             updateOthers();
-            // Move / copy keys: see discussion; copy-only with current public API
-            redistributeKeys();
+            // Move the keys in (predecessor, this] from the successor
+            takeOverKeys(this.successor());
         } else {
             for (int i = 1; i <= getNetwork().getNbits(); i++) {
                 this.fingerTable.setNode(i, this);
@@ -138,30 +307,6 @@ public class ChordPeer extends AbstractChordPeer {
         }
     }
 
-    /** Copy-only redistribution with current API (cannot delete source without local API). */
-    private void redistributeKeys() {
-        ChordNode succ = this.successor();
-        if (succ == null || succ == this) {
-            return; // nothing to do
-        }
-
-        Map<String, String> succData = ((AbstractChordPeer) succ).dump();
-
-        for (Map.Entry<String, String> entry : succData.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-
-            // Determine the correct owner after join
-            ChordNode owner = this.lookupNodeForItem(key);
-
-            // If this node should be the owner, copy key from successor → this
-            if (owner == this) {
-                this.store(null, key, value); // routes but owner is now 'this'
-            }
-        }
-    }
-
-    
     /**
     * Called on this {@link ChordNode} if it wishes to join the {@link ChordNetwork}. {@code nprime} references
     * another {@link ChordNode} that is already member of the {@link ChordNetwork}.
@@ -181,6 +326,8 @@ public class ChordPeer extends AbstractChordPeer {
         } else {
             this.fingerTable.setNode(1, nprime.findSuccessor(this,this));
         }
+        updateSuccessorList(this.successor());
+        this.keysPending = nprime != null;
     }
     
     /**
@@ -192,11 +339,10 @@ public class ChordPeer extends AbstractChordPeer {
     */
     private void initFingerTable(ChordNode nprime) {
         int m = getNetwork().getNbits();
-        IdentifierCircle<Identifier> circle = getNetwork().getIdentifierCircle();
 
         // Step 1: finger[1].node = n'.findSuccessor(start[1])
         // 实际上是要 n' 去找 (n+1) 的直接后继
-        Identifier start1 = circle.getIdentifierAt(this.finger().start(1));
+        Identifier start1 = this.finger().startIdentifier(1);
         ChordNode succ1 = nprime.findSuccessor(this, start1);
         this.fingerTable.setNode(1, succ1);     // n.finger[1].node = (n+1) 的 successor
 
@@ -209,20 +355,16 @@ public class ChordPeer extends AbstractChordPeer {
         // 下面是构建完整的 finger table
         // Step 3: for i = 1 .. m-1
         for (int i = 1; i < m; i++) {
-            Identifier startNext = circle.getIdentifierAt(this.finger().start(i + 1));
-            ChordNode fi = this.finger().node(i).orElse(null);
+            Identifier startNext = this.finger().startIdentifier(i + 1);
+            ChordNode fi = this.finger().nodeOrNull(i);
 
             // if start[i+1] ∈ [n, finger[i])
-            boolean inRange =
-                IdentifierCircularInterval
-                    .createRightOpen(this.id(), fi.id())
-                    .contains(startNext);
+            boolean inRange = Ring.inRightOpen(this.id(), fi.id(), startNext);
 
             if (inRange) {
                 this.fingerTable.setNode(i + 1, fi);
             } else {
-                Identifier start = getNetwork().getIdentifierCircle().getIdentifierAt(this.finger().start(i + 1));
-                this.fingerTable.setNode(i + 1, nprime.findSuccessor(this, start));
+                this.fingerTable.setNode(i + 1, nprime.findSuccessor(this, startNext));
             }
         }
     }
@@ -234,12 +376,11 @@ public class ChordPeer extends AbstractChordPeer {
     */
     private void updateOthers() {
         int m = getNetwork().getNbits();
+        IdentifierCircle<Identifier> circle = getNetwork().getIdentifierCircle();
 
         for (int i = 1; i <= m; i++) {
-            int offset = (int) Math.pow(2, i - 1);
-            int idIndex = this.id().getIndex() - offset;
-
-            Identifier id = getNetwork().getIdentifierCircle().getIdentifierAt(idIndex);
+            // n - 2^(i-1)
+            Identifier id = circle.subtract(this.id(), i - 1);
 
             // Must lookup using the old network, not the new node
             ChordNode p = this.findPredecessor(this, id);
@@ -263,7 +404,7 @@ public class ChordPeer extends AbstractChordPeer {
     @Override
     public void updateFingerTable(ChordNode s, int i) {
         finger().node(i).ifPresent(node -> {
-        if (createLeftOpen(this.id(), node.id()).contains(s.id())) {
+        if (Ring.inLeftOpen(this.id(), node.id(), s.id())) {
             this.fingerTable.setNode(i, s);
             ChordNode p = this.predecessor();
             p.updateFingerTable(s, i);
@@ -277,14 +418,22 @@ public class ChordPeer extends AbstractChordPeer {
     *
     * Defined in [1], Figure 7
     *
+    * Synchronized, since several nodes may notify this {@link ChordNode} concurrently, e.g. in parallel rounds of
+    * stabilization.
+    *
     * @param nprime The alleged predecessor of this {@link ChordNode}
     */
     @Override
-    public void notify(ChordNode nprime) {
+    public synchronized void notify(ChordNode nprime) {
         if (this.status() == NodeStatus.OFFLINE || this.status() == NodeStatus.JOINING) return;
 
-        if (this.predecessor() == null || IdentifierCircularInterval.createOpen(this.predecessor().id(), this.id()).contains(nprime.id())) {
+        if (this.predecessor() == null || Ring.inOpen(this.predecessor().id(), this.id(), nprime.id())) {
+            if (this.predecessor() == null && this.getNetwork().getReplicationFactor() > 1) {
+                // The predecessor has failed: this node is now responsible for the copies it holds of its range
+                promoteReplicas(nprime.getIdentifier(), this.getIdentifier());
+            }
             this.setPredecessor(nprime);
+            this.locationCache.invalidate(nprime.id());
         }
     }
     
@@ -300,10 +449,14 @@ public class ChordPeer extends AbstractChordPeer {
         int m = getNetwork().getNbits();
         // pick random index i > 1
         int i = 2 + rng.nextInt(Math.max(1, m - 1)); // range [2, m]
-        int startIdx = this.finger().start(i);
-        Identifier startId = getNetwork().getIdentifierCircle().getIdentifierAt(startIdx);
+        Identifier startId = this.finger().startIdentifier(i);
 
-        ChordNode s = this.findSuccessor(this, startId);
+        final ChordNode s;
+        try {
+            s = this.findSuccessor(this, startId);
+        } catch (LookupFailedException e) {
+            return; /* The finger is fixed in a later round. */
+        }
         if (s != null) {
             this.fingerTable.setNode(i, s);
         }
@@ -319,16 +472,31 @@ public class ChordPeer extends AbstractChordPeer {
     public void stabilize() {
         if (this.status() == NodeStatus.OFFLINE || this.status() == NodeStatus.JOINING) return;
 
+        // Fail over to the first live entry of the successor list
+        ChordNode succ = this.liveSuccessor();
+        if (succ != this.successor()) {
+            this.locationCache.invalidateOwner(this.successor());
+            this.fingerTable.setNode(1, succ);
+        }
+
         // 询问我自己的后继的前驱是谁
         ChordNode x = this.successor().predecessor();
         if (x != null ) {
-            boolean inOpen = IdentifierCircularInterval.createOpen(this.id(), this.successor().id()).contains(x.id());
+            boolean inOpen = Ring.inOpen(this.id(), this.successor().id(), x.id());
             if (inOpen) {
+                this.locationCache.invalidate(x.id());
                 this.fingerTable.setNode(1, x); // successor = x
             }
         }
 
+        updateSuccessorList(this.successor());
         this.successor().notify(this);
+
+        // Once the successor has accepted this node as its predecessor, take over the keys in (predecessor, this]
+        if (this.keysPending && this.successor().predecessor() == this) {
+            this.keysPending = false;
+            takeOverKeys(this.successor());
+        }
     }
     
     /**
@@ -357,7 +525,13 @@ public class ChordPeer extends AbstractChordPeer {
     public void checkSuccessor() {
         if (this.status() == NodeStatus.OFFLINE || this.status() == NodeStatus.JOINING) return;
         if (this.successor() != null && this.successor().status() == NodeStatus.OFFLINE) {
-        if (this.predecessor() != null) {
+            this.locationCache.invalidateOwner(this.successor());
+            ChordNode next = this.liveSuccessor();
+            if (next.status() != NodeStatus.OFFLINE) {
+                // First live entry of the successor list
+                this.fingerTable.setNode(1, next);
+                updateSuccessorList(next);
+            } else if (this.predecessor() != null) {
                 this.fingerTable.setNode(1, this.successor().successor());
             }
         }
@@ -375,28 +549,70 @@ public class ChordPeer extends AbstractChordPeer {
         }
         
         // 1. Hash the key and convert to Identifier
-        int hash = getNetwork().getHashFunction().hash(key);
-        int index = hash % (int) Math.pow(2, getNetwork().getNbits());
-        Identifier keyId = getNetwork().getIdentifierCircle().getIdentifierAt(index);
-        
+        return lookupNodeForIdentifier(getNetwork().getIdentifierCircle().identifierOf(key));
+    }
+
+    /**
+    * Asynchronous variant of {@link #lookupNodeForItem(String)}.
+    *
+    * @return Future of the node in which to store the data with the provided key.
+    */
+    @Override
+    protected CompletableFuture<ChordNode> lookupNodeForItemAsync(String key) {
+        if (this.status() == NodeStatus.OFFLINE || this.status() == NodeStatus.JOINING) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return lookupNodeForIdentifierAsync(getNetwork().getIdentifierCircle().identifierOf(key));
+    }
+
+    /**
+    * Performs a lookup for the node responsible for the provided {@link Identifier}. Blocks until
+    * {@link #lookupNodeForIdentifierAsync(Identifier)} has completed.
+    *
+    * @return Node responsible for the provided {@link Identifier}.
+    */
+    @Override
+    protected ChordNode lookupNodeForIdentifier(Identifier keyId) {
+        return await(lookupNodeForIdentifierAsync(keyId));
+    }
+
+    /**
+    * Performs an asynchronous lookup for the node responsible for the provided {@link Identifier}.
+    *
+    * @return Future of the node responsible for the provided {@link Identifier}.
+    */
+    protected CompletableFuture<ChordNode> lookupNodeForIdentifierAsync(Identifier keyId) {
+        if (this.status() == NodeStatus.OFFLINE || this.status() == NodeStatus.JOINING) {
+            return CompletableFuture.completedFuture(null);
+        }
+
         // 2. If no predecessor (single-node network), this node handles all keys
         ChordNode pred = this.predecessor();
         if (pred == null || pred == this) {
-            return this;
+            return CompletableFuture.completedFuture(this);
         }
         
-        int predIdx = pred.id().getIndex();
-        int selfIdx = this.id().getIndex();
-        int keyIdx = keyId.getIndex();
-        
         // 3. Check if key is in (pred, this]
-        boolean inRange = CircularInterval.createLeftOpen(predIdx, selfIdx).contains(keyIdx);
-        
-        if (inRange) {
-            return this;
+        if (Ring.inLeftOpen(pred.id(), this.id(), keyId)) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        // 4. Try the location cache; the cached owner must confirm it is still responsible
+        ChordNode cached = this.locationCache.get(keyId);
+        if (cached != null) {
+            if (cached.status() == NodeStatus.ONLINE && cached.isResponsibleFor(keyId)) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            this.locationCache.invalidateOwner(cached);
         }
         
-        // 4. Otherwise route the query using Chord
-        return this.findSuccessor(this, keyId);
+        // 5. Otherwise route the query using Chord and remember the owner's range; fails if the lookup does not resolve
+        return this.findSuccessorAsync(this, keyId).thenApply(owner -> {
+            ChordNode ownerPred = owner.predecessor();
+            if (ownerPred != null && owner != this) {
+                this.locationCache.put(ownerPred.id(), owner);
+            }
+            return owner;
+        });
     }
 }
@@ -0,0 +1,156 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNode;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.FingerTable;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.NodeStatus;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The state of the pointers of a {@link SimulationNetwork} after a number of rounds of maintenance, see
+ * {@link SimulationEngine#converge(int, boolean)}: how many successors, predecessors and fingers of the live peers
+ * differ from the ones of an ideal ring, and how long it took to get there.
+ */
+public final class ConvergenceReport {
+
+  /** Number of rounds run. */
+  private final int rounds;
+
+  /** Number of live peers. */
+  private final int peers;
+
+  /** Number of live peers whose successor is not the next live peer on the ring. */
+  private final int wrongSuccessors;
+
+  /** Number of live peers whose predecessor is not the previous live peer on the ring. */
+  private final int wrongPredecessors;
+
+  /** Number of fingers of live peers that do not point to the successor of their start. */
+  private final long wrongFingers;
+
+  /** Real time the rounds took, in nanoseconds. */
+  private final long wallTime;
+
+  /** Virtual time the rounds took, in nanoseconds. */
+  private final long virtualTime;
+
+  private ConvergenceReport(int rounds, int peers, int wrongSuccessors, int wrongPredecessors, long wrongFingers, long wallTime, long virtualTime) {
+    this.rounds = rounds;
+    this.peers = peers;
+    this.wrongSuccessors = wrongSuccessors;
+    this.wrongPredecessors = wrongPredecessors;
+    this.wrongFingers = wrongFingers;
+    this.wallTime = wallTime;
+    this.virtualTime = virtualTime;
+  }
+
+  /**
+   * Inspects the pointers of the live peers among the given ones.
+   *
+   * @param peers The peers, in the order of the ring.
+   * @param rounds Number of rounds run.
+   * @param wallTime Real time the rounds took, in nanoseconds.
+   * @param virtualTime Virtual time the rounds took, in nanoseconds.
+   * @return New {@link ConvergenceReport}.
+   */
+  static ConvergenceReport inspect(Iterable<SimulationPeer> peers, int rounds, long wallTime, long virtualTime) {
+    final TreeMap<Identifier, SimulationPeer> live = new TreeMap<>();
+    for (SimulationPeer peer : peers) {
+      if (peer.status() != NodeStatus.OFFLINE) {
+        live.put(peer.getIdentifier(), peer);
+      }
+    }
+    int wrongSuccessors = 0;
+    int wrongPredecessors = 0;
+    long wrongFingers = 0;
+    for (Map.Entry<Identifier, SimulationPeer> entry : live.entrySet()) {
+      final SimulationPeer peer = entry.getValue();
+      if (peer.successor() != successorOf(live, entry.getKey(), false)) {
+        wrongSuccessors++;
+      }
+      final Map.Entry<Identifier, SimulationPeer> previous = live.lowerEntry(entry.getKey());
+      if (peer.predecessor() != (previous != null ? previous : live.lastEntry()).getValue()) {
+        wrongPredecessors++;
+      }
+      final FingerTable fingers = peer.finger();
+      for (int k = 1; k <= fingers.size(); k++) {
+        if (fingers.nodeOrNull(k) != successorOf(live, fingers.startIdentifier(k), true)) {
+          wrongFingers++;
+        }
+      }
+    }
+    return new ConvergenceReport(rounds, live.size(), wrongSuccessors, wrongPredecessors, wrongFingers, wallTime, virtualTime);
+  }
+
+  /**
+   * The first live peer at or (if not inclusive) after the given {@link Identifier}, wrapping around.
+   */
+  private static ChordNode successorOf(TreeMap<Identifier, SimulationPeer> live, Identifier id, boolean inclusive) {
+    final Map.Entry<Identifier, SimulationPeer> next = inclusive ? live.ceilingEntry(id) : live.higherEntry(id);
+    return (next != null ? next : live.firstEntry()).getValue();
+  }
+
+  /**
+   * Whether successors and predecessors form the ideal ring.
+   *
+   * @return True, if the ring has converged.
+   */
+  public boolean isRingConverged() {
+    return this.wrongSuccessors == 0 && this.wrongPredecessors == 0;
+  }
+
+  /**
+   * Whether, in addition to the ring, all fingers are correct.
+   *
+   * @return True, if all pointers have converged.
+   */
+  public boolean isConverged() {
+    return isRingConverged() && this.wrongFingers == 0;
+  }
+
+  public int getRounds() {
+    return rounds;
+  }
+
+  public int getPeers() {
+    return peers;
+  }
+
+  public int getWrongSuccessors() {
+    return wrongSuccessors;
+  }
+
+  public int getWrongPredecessors() {
+    return wrongPredecessors;
+  }
+
+  public long getWrongFingers() {
+    return wrongFingers;
+  }
+
+  /**
+   * Real time the rounds took.
+   *
+   * @return Time in nanoseconds.
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  /**
+   * Virtual time the rounds took.
+   *
+   * @return Time in nanoseconds.
+   */
+  public long getVirtualTime() {
+    return virtualTime;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("rounds=%d, peers=%d, wrong successors=%d, wrong predecessors=%d, wrong fingers=%d, wall time=%.1f ms, virtual time=%.1f s",
+        rounds, peers, wrongSuccessors, wrongPredecessors, wrongFingers, wallTime / 1e6, virtualTime / 1e9);
+  }
+}
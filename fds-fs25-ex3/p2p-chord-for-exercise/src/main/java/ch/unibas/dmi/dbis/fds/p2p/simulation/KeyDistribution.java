@@ -0,0 +1,121 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The popularity of the keys a {@link WorkloadDriver} stores and looks up: samples the rank of a key out of a fixed
+ * number of keys, rank 0 being the most popular one.
+ */
+public interface KeyDistribution {
+
+  /**
+   * Number of distinct keys.
+   *
+   * @return Number of keys.
+   */
+  int keys();
+
+  /**
+   * Samples the rank of a key.
+   *
+   * @param random The {@link Random} to sample with.
+   * @return Rank between 0 (inclusive) and {@link #keys()} (exclusive).
+   */
+  int sample(Random random);
+
+  /**
+   * All keys are equally popular.
+   *
+   * @param keys Number of keys, positive.
+   * @return {@link KeyDistribution}
+   */
+  static KeyDistribution uniform(int keys) {
+    checkKeys(keys);
+    return new KeyDistribution() {
+      @Override
+      public int keys() {
+        return keys;
+      }
+
+      @Override
+      public int sample(Random random) {
+        return random.nextInt(keys);
+      }
+    };
+  }
+
+  /**
+   * Zipf distributed popularity: the key of rank r is requested with a probability proportional to 1 / (r + 1)^exponent.
+   *
+   * @param keys Number of keys, positive.
+   * @param exponent The exponent, not negative; 0 is uniform, values around 1 are typical of web and file workloads.
+   * @return {@link KeyDistribution}
+   */
+  static KeyDistribution zipf(int keys, double exponent) {
+    checkKeys(keys);
+    if (!(exponent >= 0.0) || Double.isInfinite(exponent)) {
+      throw new IllegalArgumentException(String.format("The exponent cannot be negative but was %s.", exponent));
+    }
+    /* Cumulative weights, such that sampling is a binary search. */
+    final double[] cumulative = new double[keys];
+    double sum = 0.0;
+    for (int r = 0; r < keys; r++) {
+      sum += Math.pow(r + 1, -exponent);
+      cumulative[r] = sum;
+    }
+    final double total = sum;
+    return new KeyDistribution() {
+      @Override
+      public int keys() {
+        return keys;
+      }
+
+      @Override
+      public int sample(Random random) {
+        final int found = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+        return Math.min(found >= 0 ? found : -found - 1, keys - 1);
+      }
+    };
+  }
+
+  /**
+   * A hot spot: the given fraction of the keys receives the given fraction of the requests, uniformly, and the other
+   * keys share the rest.
+   *
+   * @param keys Number of keys, positive.
+   * @param hotKeys Fraction of the keys that are hot, between 0 and 1 (exclusive).
+   * @param hotRequests Fraction of the requests to the hot keys, between 0 and 1.
+   * @return {@link KeyDistribution}
+   */
+  static KeyDistribution hotspot(int keys, double hotKeys, double hotRequests) {
+    checkKeys(keys);
+    if (!(hotKeys > 0.0 && hotKeys < 1.0)) {
+      throw new IllegalArgumentException(String.format("The fraction of hot keys must be between 0 and 1 but was %s.", hotKeys));
+    }
+    if (!(hotRequests >= 0.0 && hotRequests <= 1.0)) {
+      throw new IllegalArgumentException(String.format("The fraction of hot requests must be between 0 and 1 but was %s.", hotRequests));
+    }
+    final int hot = Math.max(1, Math.min(keys - 1, (int) Math.round(keys * hotKeys)));
+    return new KeyDistribution() {
+      @Override
+      public int keys() {
+        return keys;
+      }
+
+      @Override
+      public int sample(Random random) {
+        if (keys == 1) {
+          return 0;
+        }
+        return random.nextDouble() < hotRequests ? random.nextInt(hot) : hot + random.nextInt(keys - hot);
+      }
+    };
+  }
+
+  private static void checkKeys(int keys) {
+    if (keys < 1) {
+      throw new IllegalArgumentException(String.format("The number of keys must be positive but was %d.", keys));
+    }
+  }
+}
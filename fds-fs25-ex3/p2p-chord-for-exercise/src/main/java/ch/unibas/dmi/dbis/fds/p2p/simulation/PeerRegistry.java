@@ -0,0 +1,301 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The {@link SimulationPeer}s of a {@link SimulationNetwork}, indexed three ways:
+ *
+ * - an open-addressing hash table from the number (index) of a peer to its position in a dense array, to look up
+ *   peers by number in constant time without boxing;
+ * - the dense array itself, to sample a random peer in constant time; removals move the last peer into the gap;
+ * - a skip list ordered by {@link Identifier}, to traverse the peers in the order of the ring.
+ *
+ * Peers whose identifiers do not fit into an int (circles of more than 31 bits) are not indexed by number.
+ *
+ * Modifications are exclusive. Reads do not block: lookups and sampling read optimistically and only retry under a
+ * read lock if a modification interfered; the skip list is concurrent on its own.
+ */
+public final class PeerRegistry {
+
+  /** Marks an empty slot of the hash table. */
+  private static final int EMPTY = -1;
+
+  /** The peers in the order of the ring. */
+  private final ConcurrentSkipListMap<Identifier, SimulationPeer> ring = new ConcurrentSkipListMap<>();
+
+  /** Guards the hash table and the dense array. */
+  private final StampedLock lock = new StampedLock();
+
+  /** Numbers of the peers in the hash table. */
+  private int[] numbers = new int[16];
+
+  /** Positions of the peers in {@link #dense}, {@link #EMPTY} for empty slots. */
+  private int[] positions = filled(16);
+
+  /** The peers, without gaps. */
+  private SimulationPeer[] dense = new SimulationPeer[16];
+
+  /** Number of peers in {@link #dense}. */
+  private int count;
+
+  /**
+   * Adds a {@link SimulationPeer}.
+   *
+   * @param peer The {@link SimulationPeer}.
+   * @throws IllegalArgumentException If a peer with the same {@link Identifier} has been added before.
+   */
+  public void add(SimulationPeer peer) {
+    final long stamp = this.lock.writeLock();
+    try {
+      if (this.ring.putIfAbsent(peer.getIdentifier(), peer) != null) {
+        throw new IllegalArgumentException(String.format("There is a peer at %s already.", peer.getIdentifier().toIndexString()));
+      }
+      if (this.count == this.dense.length) {
+        this.dense = Arrays.copyOf(this.dense, 2 * this.dense.length);
+      }
+      this.dense[this.count] = peer;
+      if (peer.getIdentifier().fitsInt()) {
+        if (2 * (this.count + 1) > this.numbers.length) {
+          rehash(2 * this.numbers.length);
+        }
+        insert(peer.getIdentifier().getIndex(), this.count);
+      }
+      this.count++;
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the {@link SimulationPeer} at the given {@link Identifier}.
+   *
+   * @param id The {@link Identifier} of the peer.
+   * @return The peer removed or null, if there was none.
+   */
+  public SimulationPeer remove(Identifier id) {
+    final long stamp = this.lock.writeLock();
+    try {
+      final SimulationPeer peer = this.ring.remove(id);
+      if (peer == null) {
+        return null;
+      }
+      final int position = indexOf(peer);
+      final SimulationPeer last = this.dense[--this.count];
+      this.dense[position] = last;
+      this.dense[this.count] = null;
+      if (last.getIdentifier().fitsInt()) {
+        this.positions[slotOf(last.getIdentifier().getIndex())] = position;
+      }
+      if (id.fitsInt()) {
+        delete(slotOf(id.getIndex()));
+      }
+      return peer;
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the {@link SimulationPeer} with the given number.
+   *
+   * @param number The number, i.e. the index of the peer's {@link Identifier}.
+   * @return The peer or null, if there is none.
+   */
+  public SimulationPeer get(int number) {
+    long stamp = this.lock.tryOptimisticRead();
+    SimulationPeer peer = find(number);
+    if (!this.lock.validate(stamp)) {
+      stamp = this.lock.readLock();
+      try {
+        peer = find(number);
+      } finally {
+        this.lock.unlockRead(stamp);
+      }
+    }
+    return peer;
+  }
+
+  /**
+   * Returns the {@link SimulationPeer} at the given {@link Identifier}.
+   *
+   * @param id The {@link Identifier}.
+   * @return The peer or null, if there is none.
+   */
+  public SimulationPeer get(Identifier id) {
+    return this.ring.get(id);
+  }
+
+  /**
+   * Returns a {@link SimulationPeer} chosen uniformly at random.
+   *
+   * @param random The {@link Random} to choose with.
+   * @return The peer.
+   * @throws IllegalStateException If there are no peers.
+   */
+  public SimulationPeer random(Random random) {
+    long stamp = this.lock.tryOptimisticRead();
+    SimulationPeer peer = sample(random);
+    if (!this.lock.validate(stamp) || peer == null) {
+      stamp = this.lock.readLock();
+      try {
+        peer = sample(random);
+      } finally {
+        this.lock.unlockRead(stamp);
+      }
+    }
+    if (peer == null) {
+      throw new IllegalStateException("There are no peers to choose from.");
+    }
+    return peer;
+  }
+
+  /**
+   * Returns the {@link SimulationPeer}s in the order of their {@link Identifier}s, as a weakly consistent view.
+   *
+   * @return The peers.
+   */
+  public Collection<SimulationPeer> inOrder() {
+    return Collections.unmodifiableCollection(this.ring.values());
+  }
+
+  /**
+   * Returns the number of {@link SimulationPeer}s, in constant time (unlike the size of the skip list).
+   *
+   * @return Number of peers.
+   */
+  public int size() {
+    long stamp = this.lock.tryOptimisticRead();
+    int count = this.count;
+    if (!this.lock.validate(stamp)) {
+      stamp = this.lock.readLock();
+      try {
+        count = this.count;
+      } finally {
+        this.lock.unlockRead(stamp);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Looks up a peer by number. May run concurrently with a modification, hence never trusts the state it reads to be
+   * consistent: it stays in bounds and terminates, while the caller validates the result.
+   */
+  private SimulationPeer find(int number) {
+    final int[] numbers = this.numbers;
+    final int[] positions = this.positions;
+    final SimulationPeer[] dense = this.dense;
+    if (numbers.length != positions.length) {
+      return null;
+    }
+    final int mask = numbers.length - 1;
+    for (int probe = 0, slot = mix(number) & mask; probe < numbers.length; probe++, slot = (slot + 1) & mask) {
+      final int position = positions[slot];
+      if (position == EMPTY) {
+        return null;
+      }
+      if (numbers[slot] == number) {
+        return position < dense.length ? dense[position] : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Samples a peer; like {@link #find(int)}, may run concurrently with a modification.
+   */
+  private SimulationPeer sample(Random random) {
+    final SimulationPeer[] dense = this.dense;
+    final int count = Math.min(this.count, dense.length);
+    return count == 0 ? null : dense[random.nextInt(count)];
+  }
+
+  /**
+   * Position of the given peer in {@link #dense}.
+   */
+  private int indexOf(SimulationPeer peer) {
+    if (peer.getIdentifier().fitsInt()) {
+      return this.positions[slotOf(peer.getIdentifier().getIndex())];
+    }
+    for (int i = 0; i < this.count; i++) {
+      if (this.dense[i] == peer) {
+        return i;
+      }
+    }
+    throw new IllegalStateException(String.format("The peer at %s is not registered.", peer.getIdentifier().toIndexString()));
+  }
+
+  /**
+   * Slot of the given number, which must be in the hash table.
+   */
+  private int slotOf(int number) {
+    final int mask = this.numbers.length - 1;
+    int slot = mix(number) & mask;
+    while (this.numbers[slot] != number || this.positions[slot] == EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void insert(int number, int position) {
+    final int mask = this.numbers.length - 1;
+    int slot = mix(number) & mask;
+    while (this.positions[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    this.numbers[slot] = number;
+    this.positions[slot] = position;
+  }
+
+  /**
+   * Empties the given slot and moves later entries of its cluster back, such that lookups do not stop early.
+   */
+  private void delete(int slot) {
+    final int mask = this.numbers.length - 1;
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (this.positions[next] != EMPTY) {
+      final int home = mix(this.numbers[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        this.numbers[gap] = this.numbers[next];
+        this.positions[gap] = this.positions[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    this.positions[gap] = EMPTY;
+  }
+
+  /**
+   * Replaces the hash table by one of the given capacity. The old arrays are left untouched for concurrent readers.
+   */
+  private void rehash(int capacity) {
+    final int[] numbers = this.numbers;
+    final int[] positions = this.positions;
+    this.numbers = new int[capacity];
+    this.positions = filled(capacity);
+    for (int slot = 0; slot < numbers.length; slot++) {
+      if (positions[slot] != EMPTY) {
+        insert(numbers[slot], positions[slot]);
+      }
+    }
+  }
+
+  private static int[] filled(int capacity) {
+    final int[] slots = new int[capacity];
+    Arrays.fill(slots, EMPTY);
+    return slots;
+  }
+
+  private static int mix(int number) {
+    final int h = number * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,84 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The distribution of the lengths of the sessions peers stay in a network, or of the times they stay away, used by the
+ * {@link WorkloadDriver} to generate churn.
+ *
+ * Measurements of deployed peer-to-peer systems found session lengths to be heavy tailed: most peers leave soon, but a
+ * few stay for very long. {@link #pareto(double, double, TimeUnit)} and {@link #weibull(double, double, TimeUnit)} model
+ * this, while {@link #exponential(double, TimeUnit)} yields the memoryless churn assumed by most analyses.
+ */
+@FunctionalInterface
+public interface SessionDistribution {
+
+  /**
+   * Samples a length.
+   *
+   * @param random The {@link Random} to sample with.
+   * @return Length in nanoseconds, at least one.
+   */
+  long sample(Random random);
+
+  /**
+   * Exponentially distributed lengths.
+   *
+   * @param mean The mean length, positive.
+   * @param unit The {@link TimeUnit} of the mean.
+   * @return {@link SessionDistribution}
+   */
+  static SessionDistribution exponential(double mean, TimeUnit unit) {
+    final double scale = nanos(mean, unit, "mean");
+    return random -> toNanos(-scale * Math.log(1.0 - random.nextDouble()));
+  }
+
+  /**
+   * Pareto distributed lengths, i.e. P(X > x) = (minimum / x)^shape for x >= minimum. The mean is finite for a shape
+   * above one only.
+   *
+   * @param minimum The minimum length, positive.
+   * @param shape The shape (tail index), positive; the smaller, the heavier the tail.
+   * @param unit The {@link TimeUnit} of the minimum.
+   * @return {@link SessionDistribution}
+   */
+  static SessionDistribution pareto(double minimum, double shape, TimeUnit unit) {
+    final double scale = nanos(minimum, unit, "minimum");
+    final double exponent = -1.0 / positive(shape, "shape");
+    return random -> toNanos(scale * Math.pow(1.0 - random.nextDouble(), exponent));
+  }
+
+  /**
+   * Weibull distributed lengths, i.e. P(X > x) = exp(-(x / scale)^shape). A shape below one yields a heavier tail than
+   * the exponential distribution, which it equals for a shape of one.
+   *
+   * @param scale The scale, positive.
+   * @param shape The shape, positive.
+   * @param unit The {@link TimeUnit} of the scale.
+   * @return {@link SessionDistribution}
+   */
+  static SessionDistribution weibull(double scale, double shape, TimeUnit unit) {
+    final double nanos = nanos(scale, unit, "scale");
+    final double exponent = 1.0 / positive(shape, "shape");
+    return random -> toNanos(nanos * Math.pow(-Math.log(1.0 - random.nextDouble()), exponent));
+  }
+
+  private static double nanos(double length, TimeUnit unit, String name) {
+    return positive(length, name) * unit.toNanos(1);
+  }
+
+  private static double positive(double value, String name) {
+    if (!(value > 0.0) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException(String.format("The %s must be positive but was %s.", name, value));
+    }
+    return value;
+  }
+
+  /**
+   * Rounds a sampled length, which may overflow for heavy tails, to nanoseconds.
+   */
+  private static long toNanos(double nanos) {
+    return Math.max(1L, nanos >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(nanos));
+  }
+}
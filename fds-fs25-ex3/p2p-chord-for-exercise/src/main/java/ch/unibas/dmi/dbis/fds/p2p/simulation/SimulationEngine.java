@@ -1,21 +1,31 @@
 package ch.unibas.dmi.dbis.fds.p2p.simulation;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.AbstractChordPeer;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.NodeStatus;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashStrategy;
 import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordNetwork;
-import javafx.application.Platform;
-import javafx.beans.property.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * A simulation engine to run and test a {@link ChordNetwork}.
+ * A simulation engine to run and test a {@link ChordNetwork}. The simulation runs in the virtual time of the network's
+ * {@link SimulationKernel}: every {@link #ROUND} of virtual time, a few randomly chosen peers run their maintenance.
+ * The pace only slows down the simulation for display purposes; {@link #simulate(long, TimeUnit)} runs it at full speed.
+ *
+ * The engine does not depend on a UI toolkit, so simulations can run headless. Views, logs and statistics subscribe to
+ * the {@link SimulationEvent}s as {@link SimulationEventListener}s.
+ *
+ * Besides, {@link #parallelRound()} and {@link #converge(int, boolean)} run the maintenance of all live peers at once,
+ * in parallel on a {@link ForkJoinPool}, e.g. to measure how many rounds a ring takes to heal after churn.
  *
  * @author Loris Sauter
  */
@@ -23,20 +33,27 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
 
     /** Logger used to log errors. */
     private static final Logger LOGGER = LogManager.getLogger();
-    /** */
+
+    /** Virtual time between two simulation steps, in milliseconds. */
+    public static final long ROUND = 100;
+
+    /** The {@link SimulationEvent}s of the current simulation step. */
     private final LinkedBlockingQueue<SimulationEvent> eventBuffer;
 
-    /** */
-    private final ObservableList<SimulationEvent> allEvents = FXCollections.synchronizedObservableList(FXCollections.observableArrayList());
+    /** The {@link SimulationEventListener}s all {@link SimulationEvent}s are forwarded to. */
+    private final List<SimulationEventListener> listeners = new CopyOnWriteArrayList<>();
 
-    /** The pace at which the simulation is currently paused. */
-    private final SimpleDoubleProperty pace = new SimpleDoubleProperty();
+    /** Time to pause between two simulation steps in {@link #run()}, in milliseconds of real time. */
+    private volatile long pace;
 
     /** The current step in the simulation. */
     private final AtomicLong simulationStep = new AtomicLong(0);
 
-    /** The number of {@link SimulationEvent}s to keep in the log. */
-    private final int keepEvents;
+    /** Number of peers below which a parallel round does not split its work any further. */
+    private static final int THRESHOLD = 8;
+
+    /** The {@link ForkJoinPool} parallel rounds run on. */
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
 
     /** The {@link ChordNetwork} that is being simulated. */
     private final SimulationNetwork network;
@@ -47,17 +64,19 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
     /** Flag indicating whether the simulation is has been interrupted. Once it has been interrupted in cannot be resumed! */
     private volatile boolean interrupted = false;
 
+    /** Flag indicating whether the network is being initialized; events are not forwarded meanwhile. */
+    private volatile boolean initializing = false;
+
     /**
      * Constructor for {@link SimulationEngine}.
      *
      * @param nbits Number of bits to create the {@link ChordNetwork}. Equals the value <strong>m</strong> in the paper.
      * @param dynamic Whether or not a dynamic {@link ChordNetwork} should be simulated.
-     * @param keepEvents The number of {@link SimulationEvent}s to keep in the log.
+     * @param strategy The {@link HashStrategy} used to place keys and identifiers on the ring.
      */
-    public SimulationEngine(int nbits, boolean dynamic, int keepEvents) {
-        this.network = new SimulationNetwork(nbits, dynamic, this);
+    public SimulationEngine(int nbits, boolean dynamic, HashStrategy strategy) {
+        this.network = new SimulationNetwork(nbits, dynamic, strategy, this);
         this.eventBuffer = new LinkedBlockingQueue<>();
-        this.keepEvents = keepEvents;
     }
 
     /**
@@ -67,7 +86,7 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
      * @param dynamic Whether or not a dynamic {@link ChordNetwork} should be simulated.
      */
     public SimulationEngine(int nbits, boolean dynamic) {
-        this(nbits, dynamic, 1000);
+        this(nbits, dynamic, HashStrategy.SHA1);
     }
 
     /**
@@ -80,11 +99,11 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
                 if (this.paused) {
                     Thread.sleep(500);
                 } else {
-                    /* Progress simulation by one. */
-                    this.next();
+                    /* Progress simulation by one step of virtual time. */
+                    this.simulate(ROUND, TimeUnit.MILLISECONDS);
 
-                    /* Now sleep according to pace value (at least the 100ms). */
-                    Thread.sleep(pace.intValue() + 100);
+                    /* Now sleep according to pace value, such that the simulation can be followed. */
+                    Thread.sleep(this.pace);
                 }
             }
         }
@@ -95,6 +114,18 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
         }
     }
 
+    /**
+     * Runs the simulation for the given amount of virtual time, without any pause. Must be called after
+     * {@link #run()} has initialized the network, or after {@link #initNetwork()}.
+     *
+     * @param duration The amount of virtual time.
+     * @param unit The {@link TimeUnit} of the amount.
+     * @return Number of events the {@link SimulationKernel} has executed.
+     */
+    public long simulate(long duration, TimeUnit unit) {
+        return this.network.getKernel().run(duration, unit);
+    }
+
     /**
      * Accessor to the underlying {@link SimulationNetwork}. Only for simulation and display purposes!
      *
@@ -105,11 +136,42 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
     }
 
     /**
+     * Sets the time {@link #run()} pauses between two simulation steps, such that the simulation can be followed.
+     *
+     * @param pace Time to pause in milliseconds of real time, not negative.
+     */
+    public void setPace(long pace) {
+        if (pace < 0) {
+            throw new IllegalArgumentException(String.format("The pace cannot be negative but was %d.", pace));
+        }
+        this.pace = pace;
+    }
+
+    /**
+     * Sets the {@link ForkJoinPool} parallel rounds run on, the common pool by default.
      *
-     * @param value
+     * @param pool The {@link ForkJoinPool}.
      */
-    public void bindPace(DoubleProperty value) {
-        pace.bind(new SimpleDoubleProperty(1).subtract(value).multiply(1000));
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Subscribes a {@link SimulationEventListener} to all {@link SimulationEvent}s of this simulation.
+     *
+     * @param listener The {@link SimulationEventListener}.
+     */
+    public void addSimulationEventListener(SimulationEventListener listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Unsubscribes a {@link SimulationEventListener}.
+     *
+     * @param listener The {@link SimulationEventListener}.
+     */
+    public void removeSimulationEventListener(SimulationEventListener listener) {
+        this.listeners.remove(listener);
     }
 
     /**
@@ -186,16 +248,6 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
         return this.paused;
     }
 
-    /**
-     * Provides access to all {@link SimulationEvent}s that have occurred in the lifetime of this
-     * {@link SimulationEngine}. Only up to {@link SimulationEngine#keepEvents} items are kept!
-     *
-     * @return {@link ObservableList} of {@link SimulationEvent}s.
-     */
-    public ObservableList<SimulationEvent> allEvents() {
-        return allEvents;
-    }
-
     /**
      * Provides access to the {@link SimulationEvent}s that have occurred in the current simulation cycle.
      *
@@ -224,14 +276,110 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
      */
     @Override
     public void handle(SimulationEvent event) {
+        if (this.initializing) {
+            return;
+        }
         this.eventBuffer.add(event);
         event.setWhen(this.simulationStep.get());
-        Platform.runLater(() -> {
-            this.allEvents.add(event);
-            if (this.allEvents.size() > this.keepEvents) {
-                this.allEvents.remove(0, 25);
+        for (SimulationEventListener listener : this.listeners) {
+            listener.handle(event);
+        }
+    }
+
+    /**
+     * Executes a simulation step in which every live peer runs its maintenance (stabilize, fix fingers, check predecessor
+     * and successor, synchronize replicas), all in parallel. In virtual time, the peers run side by side: the clock
+     * advances by the time the slowest of them has taken. Must not be called from within an action of the
+     * {@link SimulationKernel}.
+     *
+     * @return Virtual time the step has taken, in nanoseconds.
+     */
+    public long parallelRound() {
+        this.simulationStep.incrementAndGet();
+        this.eventBuffer.clear();
+
+        final SimulationKernel kernel = this.network.getKernel();
+        final SimulationPeer[] peers = this.network.getSimulationPeers().toArray(new SimulationPeer[0]);
+        final LongAccumulator longest = new LongAccumulator(Long::max, 0);
+        this.pool.invoke(new Maintenance(kernel, peers, 0, peers.length, longest));
+        kernel.advance(longest.get(), TimeUnit.NANOSECONDS);
+        return longest.get();
+    }
+
+    /**
+     * Runs {@link #parallelRound()}s until the pointers of all live peers are correct, or the given number of rounds
+     * has been run.
+     *
+     * @param maxRounds Maximum number of rounds to run, not negative.
+     * @param fingers Whether the fingers must be correct as well, rather than only successors and predecessors.
+     * @return {@link ConvergenceReport} after the last round.
+     */
+    public ConvergenceReport converge(int maxRounds, boolean fingers) {
+        if (maxRounds < 0) {
+            throw new IllegalArgumentException(String.format("The number of rounds cannot be negative but was %d.", maxRounds));
+        }
+        final long wallStart = System.nanoTime();
+        final long virtualStart = this.network.nanoTime();
+        int rounds = 0;
+        ConvergenceReport report = ConvergenceReport.inspect(this.network.getSimulationPeers(), 0, 0, 0);
+        while (rounds < maxRounds && !(fingers ? report.isConverged() : report.isRingConverged())) {
+            this.parallelRound();
+            rounds++;
+            report = ConvergenceReport.inspect(this.network.getSimulationPeers(), rounds, System.nanoTime() - wallStart, this.network.nanoTime() - virtualStart);
+        }
+        return report;
+    }
+
+    /**
+     * Runs the maintenance of a slice of the peers, splitting it in halves down to {@link #THRESHOLD} peers.
+     */
+    private static final class Maintenance extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SimulationKernel kernel;
+        private final SimulationPeer[] peers;
+        private final int from;
+        private final int to;
+        private final LongAccumulator longest;
+
+        Maintenance(SimulationKernel kernel, SimulationPeer[] peers, int from, int to, LongAccumulator longest) {
+            this.kernel = kernel;
+            this.peers = peers;
+            this.from = from;
+            this.to = to;
+            this.longest = longest;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > THRESHOLD) {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Maintenance(this.kernel, this.peers, this.from, middle, this.longest),
+                          new Maintenance(this.kernel, this.peers, middle, this.to, this.longest));
+                return;
             }
-        });
+            for (int i = this.from; i < this.to; i++) {
+                final SimulationPeer peer = this.peers[i];
+                if (peer.status() == NodeStatus.OFFLINE) {
+                    continue;
+                }
+                this.longest.accumulate(this.kernel.measure(() -> {
+                    peer.stabilize();
+                    peer.fixFingers();
+                    peer.checkPredecessor();
+                    peer.checkSuccessor();
+                    peer.synchronizeReplicas();
+                }));
+            }
+        }
+    }
+
+    /**
+     * Executes a simulation step and schedules the next one, {@link #ROUND} later.
+     */
+    private void round() {
+        this.next();
+        this.network.getKernel().schedule(ROUND, TimeUnit.MILLISECONDS, this::round);
     }
 
     /**
@@ -254,25 +402,32 @@ public class SimulationEngine implements SimulationEventListener, Runnable {
 
             /* Randomly check predecessor of one peer. */
             this.network.getRandomPeer().checkSuccessor();
+
+            /* Randomly synchronize the replicas of one peer. */
+            this.network.getRandomPeer().synchronizeReplicas();
         }
     }
 
 
     /**
-     * Initializes the {@link SimulationEngine}s {@link ChordNetwork} with three default peers according to the paper.
+     * Initializes the {@link SimulationEngine}s {@link ChordNetwork} with three default peers according to the paper,
+     * and schedules the first simulation step.
      */
-    private void initNetwork() {
-        final SimulationPeer peer1 = network.createChordPeer(0);
-        final SimulationPeer peer2 = network.createChordPeer(1);
-        final SimulationPeer peer3 = network.createChordPeer(3);
-
-        /* Let peers join. */
-        peer1.join(null);
-        peer2.join(peer1);
-        peer3.join(peer1);
-
-        /* Clear buffers from joining actions. */
-        this.eventBuffer.clear();
-        Platform.runLater(this.allEvents::clear);
+    public void initNetwork() {
+        /* The events of the initial joins are neither buffered nor forwarded. */
+        this.initializing = true;
+        try {
+            final SimulationPeer peer1 = network.createChordPeer(0);
+            final SimulationPeer peer2 = network.createChordPeer(1);
+            final SimulationPeer peer3 = network.createChordPeer(3);
+
+            /* Let peers join. */
+            peer1.join(null);
+            peer2.join(peer1);
+            peer3.join(peer1);
+        } finally {
+            this.initializing = false;
+        }
+        this.network.getKernel().schedule(ROUND, TimeUnit.MILLISECONDS, this::round);
     }
 }
@@ -1,8 +1,6 @@
 package ch.unibas.dmi.dbis.fds.p2p.simulation;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
 
 /**
  * A single network event in the {@link ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNetwork} simulation.
@@ -22,14 +20,14 @@ public class SimulationEvent {
     this.type = type;
     this.source = source;
     this.destination = destination;
-    this.message = String.format("%d.%s(%d)", source.getIndex(), type, destination.getIndex());
+    this.message = String.format("%s.%s(%s)", source.toIndexString(), type, destination.toIndexString());
   }
 
   public SimulationEvent(EventType type, Identifier destination) {
     this.type = type;
     this.source = null;
     this.destination = destination;
-    this.message = String.format("<user>.%s(%d)", type, destination.getIndex());
+    this.message = String.format("<user>.%s(%s)", type, destination.toIndexString());
   }
 
   public String getMessage() {
@@ -63,39 +61,16 @@ public class SimulationEvent {
     sb.append(", message='").append(message).append('\'');
     sb.append(", type=").append(type);
     if (this.source != null) {
-      sb.append(", source=").append(source.getIndex());
+      sb.append(", source=").append(source.toIndexString());
     } else {
       sb.append(", source=<user>");
     }
-    sb.append(", destination=").append(destination.getIndex());
+    sb.append(", destination=").append(destination.toIndexString());
     sb.append('}');
     return sb.toString();
   }
 
   public enum EventType{
-    FIND_SUCCESSOR, FIND_PREDECESSOR, CLOSEST_PRECEDING_FINGER, NOTIFY, JOIN, GENERIC, LOOKUP_DATA, STORE_DATA;
-
-    /**
-     *
-     * @return
-     */
-    public Paint getColor() {
-      switch (this) {
-        case FIND_SUCCESSOR:
-          return Color.CRIMSON;
-        case FIND_PREDECESSOR:
-          return Color.NAVY;
-        case CLOSEST_PRECEDING_FINGER:
-          return Color.GOLD;
-        case NOTIFY:
-          return Color.MAGENTA;
-        case JOIN:
-          return Color.FORESTGREEN;
-        case GENERIC:
-          return Color.LIGHTGRAY;
-        default:
-          return Color.BLACK;
-      }
-    }
+    FIND_SUCCESSOR, FIND_PREDECESSOR, CLOSEST_PRECEDING_FINGER, NOTIFY, JOIN, GENERIC, LOOKUP_DATA, STORE_DATA, TRANSFER_DATA, SYNC_REPLICAS
   }
 }
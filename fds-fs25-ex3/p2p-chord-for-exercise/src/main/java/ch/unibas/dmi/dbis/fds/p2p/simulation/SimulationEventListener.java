@@ -1,9 +1,9 @@
 package ch.unibas.dmi.dbis.fds.p2p.simulation;
 
-import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent.EventType;
-
 /**
- * TODO: Write JavaDoc
+ * A sink for the {@link SimulationEvent}s of a simulation, e.g. a log, a view or a statistic. Listeners are called by
+ * the threads running the simulation, concurrently during parallel rounds, and must hand events over to other threads
+ * themselves, if required.
  *
  * @author loris.sauter
  */
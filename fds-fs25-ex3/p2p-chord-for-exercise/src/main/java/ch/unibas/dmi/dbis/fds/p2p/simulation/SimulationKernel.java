@@ -0,0 +1,230 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A discrete-event simulation kernel: a virtual clock and a queue of actions scheduled at points in virtual time.
+ * Running the simulation means repeatedly taking the earliest action from the queue, advancing the clock to its time
+ * and executing it; no thread ever sleeps, so simulated time passes as fast as the actions can be executed.
+ *
+ * Actions scheduled for the same time are executed in the order they were scheduled. Actions may schedule further
+ * actions and may, in turn, run the kernel themselves (see {@link #await(CompletableFuture)}), e.g. to wait for the
+ * reply to a message. Blocking calls that take time without scheduling anything, like a synchronous RPC, are modelled
+ * by {@link #advance(long, TimeUnit)}, which moves the clock forward; actions that were due in the meantime are
+ * executed late rather than in the past, since the clock never goes backwards.
+ *
+ * Tasks that run in parallel in simulated time, like the maintenance of all peers in a round, are wrapped in
+ * {@link #measure(Runnable)}: the time they advance is accounted to the task instead of the clock, such that the caller
+ * can advance the clock by the longest of them afterwards.
+ *
+ * All methods are thread safe; actions are executed by one thread at a time.
+ */
+public class SimulationKernel {
+
+  /** An action scheduled at a point in virtual time. */
+  private static final class Scheduled implements Comparable<Scheduled> {
+    final long time;
+    final long sequence;
+    final Runnable action;
+
+    Scheduled(long time, long sequence, Runnable action) {
+      this.time = time;
+      this.sequence = sequence;
+      this.action = action;
+    }
+
+    @Override
+    public int compareTo(Scheduled o) {
+      final int byTime = Long.compare(this.time, o.time);
+      return byTime != 0 ? byTime : Long.compare(this.sequence, o.sequence);
+    }
+  }
+
+  /** The actions not executed yet, earliest first. */
+  private final PriorityQueue<Scheduled> queue = new PriorityQueue<>();
+
+  /** The virtual time in nanoseconds. Only modified while holding the monitor, but read without it. */
+  private volatile long now;
+
+  /** Number of actions scheduled so far; orders actions scheduled for the same time. */
+  private long scheduled;
+
+  /** Number of actions executed so far. */
+  private long executed;
+
+  /** Virtual time advanced by the task the current thread runs in {@link #measure(Runnable)}, null outside. */
+  private final ThreadLocal<long[]> lane = new ThreadLocal<>();
+
+  /**
+   * Returns the current virtual time.
+   *
+   * @return Virtual time in nanoseconds since the start of the simulation.
+   */
+  public long now() {
+    final long[] lane = this.lane.get();
+    return lane == null ? this.now : this.now + lane[0];
+  }
+
+  /**
+   * Schedules an action after the given delay of virtual time.
+   *
+   * @param delay The delay, not negative.
+   * @param unit The {@link TimeUnit} of the delay.
+   * @param action The action to execute.
+   */
+  public void schedule(long delay, TimeUnit unit, Runnable action) {
+    if (delay < 0) {
+      throw new IllegalArgumentException(String.format("The delay cannot be negative but was %d.", delay));
+    }
+    final long[] lane = this.lane.get();
+    final long offset = unit.toNanos(delay) + (lane == null ? 0 : lane[0]);
+    synchronized (this) {
+      this.queue.add(new Scheduled(this.now + offset, this.scheduled++, action));
+    }
+  }
+
+  /**
+   * Returns an {@link Executor} that executes every task after the given delay of virtual time, the counterpart of
+   * {@link CompletableFuture#delayedExecutor(long, TimeUnit)}.
+   *
+   * @param delay The delay, not negative.
+   * @param unit The {@link TimeUnit} of the delay.
+   * @return {@link Executor}
+   */
+  public Executor delayedExecutor(long delay, TimeUnit unit) {
+    return task -> schedule(delay, unit, task);
+  }
+
+  /**
+   * Moves the clock forward by the given amount of virtual time without executing anything, e.g. to account for a
+   * blocking call.
+   *
+   * @param delay The amount of time, not negative.
+   * @param unit The {@link TimeUnit} of the amount.
+   */
+  public void advance(long delay, TimeUnit unit) {
+    if (delay < 0) {
+      throw new IllegalArgumentException(String.format("The delay cannot be negative but was %d.", delay));
+    }
+    final long[] lane = this.lane.get();
+    if (lane != null) {
+      lane[0] += unit.toNanos(delay);
+      return;
+    }
+    synchronized (this) {
+      this.now += unit.toNanos(delay);
+    }
+  }
+
+  /**
+   * Runs a task that takes place in parallel to others in simulated time: the time it advances (see
+   * {@link #advance(long, TimeUnit)}) is not added to the clock but returned, and it sees the clock as if it ran alone.
+   * Tasks measured this way may run concurrently on different threads.
+   *
+   * @param task The task.
+   * @return Virtual time the task has taken, in nanoseconds.
+   */
+  public long measure(Runnable task) {
+    final long[] outer = this.lane.get();
+    final long[] elapsed = {0};
+    this.lane.set(elapsed);
+    try {
+      task.run();
+    } finally {
+      if (outer == null) {
+        this.lane.remove();
+      } else {
+        this.lane.set(outer);
+        outer[0] += elapsed[0];
+      }
+    }
+    return elapsed[0];
+  }
+
+  /**
+   * Executes the earliest action, if any.
+   *
+   * @return False, if there was no action to execute.
+   */
+  public synchronized boolean step() {
+    final Scheduled next = this.queue.poll();
+    if (next == null) {
+      return false;
+    }
+    this.now = Math.max(this.now, next.time);
+    this.executed++;
+    next.action.run();
+    return true;
+  }
+
+  /**
+   * Executes all actions due within the given amount of virtual time, then moves the clock to its end.
+   *
+   * @param duration The amount of time, not negative.
+   * @param unit The {@link TimeUnit} of the amount.
+   * @return Number of actions executed.
+   */
+  public synchronized long run(long duration, TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException(String.format("The duration cannot be negative but was %d.", duration));
+    }
+    final long end = this.now + unit.toNanos(duration);
+    final long before = this.executed;
+    while (!this.queue.isEmpty() && this.queue.peek().time <= end) {
+      step();
+    }
+    this.now = Math.max(this.now, end);
+    return this.executed - before;
+  }
+
+  /**
+   * Executes actions until the given condition holds or no action is left.
+   *
+   * @param condition The condition, checked before every action.
+   * @return Whether the condition holds.
+   */
+  public synchronized boolean runUntil(BooleanSupplier condition) {
+    while (!condition.getAsBoolean()) {
+      if (!step()) {
+        return condition.getAsBoolean();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Executes actions until the given future has completed, e.g. because the reply to a simulated message has arrived.
+   *
+   * @param future The future to wait for.
+   * @return The future, which has completed.
+   * @throws IllegalStateException If no action is left, but the future has not completed; it never will.
+   */
+  public <T> CompletableFuture<T> await(CompletableFuture<T> future) {
+    if (!runUntil(future::isDone)) {
+      throw new IllegalStateException("The simulation has run out of events, but the future awaited has not completed.");
+    }
+    return future;
+  }
+
+  /**
+   * Returns the number of actions that have been scheduled, but not executed yet.
+   *
+   * @return Number of pending actions.
+   */
+  public synchronized int pending() {
+    return this.queue.size();
+  }
+
+  /**
+   * Returns the number of actions executed so far.
+   *
+   * @return Number of actions.
+   */
+  public synchronized long executed() {
+    return this.executed;
+  }
+}
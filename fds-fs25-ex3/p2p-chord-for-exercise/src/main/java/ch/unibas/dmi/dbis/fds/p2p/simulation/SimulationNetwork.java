@@ -1,14 +1,16 @@
 package ch.unibas.dmi.dbis.fds.p2p.simulation;
 
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.NodeStatus;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
-import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.CircularInterval;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashStrategy;
 import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordNetwork;
 import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordPeer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a {@link ChordNetwork} implementation that adds some features with regards to simulation. It internally keeps
@@ -21,12 +23,15 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
   /** */
   private final SimulationEventListener eventHandler;
 
-  /** Internal list of {@link SimulationPeer}s. An actual network does not have that! */
-  private final List<SimulationPeer> peers;
+  /** Internal registry of {@link SimulationPeer}s. An actual network does not have that! */
+  private final PeerRegistry peers = new PeerRegistry();
 
   /** Reference to ranomd number generator. */
   private final Random random = new Random();
 
+  /** The {@link SimulationKernel} whose virtual time the {@link SimulationPeer}s communicate in. */
+  private final SimulationKernel kernel = new SimulationKernel();
+
   /**
    * Constructor for {@link SimulationNetwork}.
    *
@@ -35,9 +40,51 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
    * @param listener A listener for {@link SimulationEvent}.
    */
   public SimulationNetwork(int nbits, boolean dynamic, SimulationEventListener listener){
-    super(nbits, dynamic);
+    this(nbits, dynamic, HashStrategy.SHA1, listener);
+  }
+
+  /**
+   * Constructor for {@link SimulationNetwork}.
+   *
+   * @param nbits Number of bits to create the chord ring. Equals the value <strong>m</strong> in the paper.
+   * @param dynamic Whether or not a dynamic {@link ChordNetwork} should be simulated.
+   * @param strategy The {@link HashStrategy} used to place keys and identifiers on the ring.
+   * @param listener A listener for {@link SimulationEvent}.
+   */
+  public SimulationNetwork(int nbits, boolean dynamic, HashStrategy strategy, SimulationEventListener listener){
+    super(nbits, dynamic, strategy);
     this.eventHandler = listener;
-    this.peers = new ArrayList<>();
+  }
+
+  /**
+   * Accessor to the {@link SimulationKernel} that delivers the messages between {@link SimulationPeer}s.
+   *
+   * @return {@link SimulationKernel}
+   */
+  public SimulationKernel getKernel() {
+    return this.kernel;
+  }
+
+  /**
+   * The virtual time of the {@link SimulationKernel}.
+   *
+   * @return Virtual time in nanoseconds.
+   */
+  @Override
+  public long nanoTime() {
+    return this.kernel.now();
+  }
+
+  /**
+   * Executes tasks in the virtual time of the {@link SimulationKernel}, as actions of the kernel.
+   *
+   * @param delay The delay, not negative.
+   * @param unit The {@link TimeUnit} of the delay.
+   * @return {@link Executor}
+   */
+  @Override
+  public Executor delayedExecutor(long delay, TimeUnit unit) {
+    return this.kernel.delayedExecutor(delay, unit);
   }
 
   /**
@@ -47,13 +94,27 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
    * @param number Number of the {@link SimulationPeer}
    * @return Optional {@link SimulationPeer}.
    */
-  public synchronized Optional<SimulationPeer> getSimulationPeer(int number){
-    for(SimulationPeer p : peers){
-      if(p.getIdentifier().getIndex() == number){
-        return Optional.of(p);
-      }
-    }
-    return Optional.empty();
+  public Optional<SimulationPeer> getSimulationPeer(int number){
+    return Optional.ofNullable(this.peers.get(number));
+  }
+
+  /**
+   * Returns all {@link SimulationPeer}s in the order of their {@link Identifier}s on the ring.
+   * This method is strictly for simulation purposes only!
+   *
+   * @return Weakly consistent view of the {@link SimulationPeer}s.
+   */
+  public Collection<SimulationPeer> getSimulationPeers(){
+    return this.peers.inOrder();
+  }
+
+  /**
+   * Returns the number of {@link SimulationPeer}s that have been created and not removed.
+   *
+   * @return Number of {@link SimulationPeer}s.
+   */
+  public int getPeerCount(){
+    return this.peers.size();
   }
 
   /**
@@ -61,8 +122,8 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
    *
    * @return {@link SimulationPeer}
    */
-  public synchronized final SimulationPeer getRandomPeer() {
-    return this.peers.get(random.nextInt(this.peers.size()));
+  public final SimulationPeer getRandomPeer() {
+    return this.peers.random(this.random);
   }
 
   /**
@@ -73,11 +134,25 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
    * @return The newly created {@link SimulationPeer}.
    */
   public synchronized SimulationPeer createChordPeer(int index){
-    final CircularInterval<Integer> interval = CircularInterval.createClosed(0, (int)Math.pow(2, size()));
-    if(!interval.contains(index)){
-      throw new IllegalArgumentException(String.format("The requested index %d is not part of the interval %s.", index, interval.toString()));
+    if (index < 0 || (getNbits() < Integer.SIZE - 1 && index >= size())) {
+      throw new IllegalArgumentException(String.format("The requested index %d is not part of the identifier circle with %d bits.", index, getNbits()));
+    }
+    return createChordPeer(this.circle.getIdentifierAt(index));
+  }
+
+  /**
+   * Convenience method to create a new {@link SimulationPeer} at the given {@link Identifier}. The newly created peer
+   * is NOT part of the {@link SimulationPeer} yet! It merely creates it with all the required intrinsics.
+   *
+   * @param id The {@link Identifier} (i.e. position) of the {@link SimulationPeer}.
+   * @return The newly created {@link SimulationPeer}.
+   * @throws IllegalArgumentException If there is a {@link SimulationPeer} at the {@link Identifier} already.
+   */
+  @Override
+  public synchronized SimulationPeer createChordPeer(Identifier id){
+    if (this.peers.get(id) != null) {
+      throw new IllegalArgumentException(String.format("There is a peer at %s already.", id.toIndexString()));
     }
-    final Identifier id = this.circle.getIdentifierAt(index);
     final SimulationPeer sp = new SimulationPeer(id, this);
     sp.addSimulationEventListener(this);
     this.peers.add(sp);
@@ -85,15 +160,20 @@ public class SimulationNetwork extends ChordNetwork implements SimulationEventLi
   }
 
   /**
-   * Removes a {@link SimulationPeer} from the {@link SimulationNetwork}. This method is only for simulation purposes!
+   * Removes a {@link SimulationPeer} from the {@link SimulationNetwork}, which leaves if it is online, and closes its
+   * stores. This method is only for simulation purposes!
    *
    * @param number Number of the {@link SimulationPeer} (not equal to the index in {@link SimulationNetwork#peers}).
    */
-  public synchronized void remove(int number){
-    getSimulationPeer(number).ifPresent(p -> {
-      this.peers.remove(p);
-      p.leave();
-    });
+  public void remove(int number){
+    final SimulationPeer peer = this.peers.get(number);
+    if (peer != null && this.peers.remove(peer.getIdentifier()) == peer) {
+      if (peer.status() != NodeStatus.OFFLINE) {
+        peer.leave();
+      } else {
+        peer.close();
+      }
+    }
   }
 
   /**
@@ -1,22 +1,35 @@
 package ch.unibas.dmi.dbis.fds.p2p.simulation;
 
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNode;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupContext;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupStatistics;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.Node;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.StoredKey;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Versioned;
 import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordPeer;
 import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent.EventType;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This is a {@link ChordPeer} implementation that adds some features with regards to simulation. It internally
  * generates {@link SimulationEvent}s for logging and introduces some randomness in how long RPC messages take to travel.
+ * Messages travel in the virtual time of the network's {@link SimulationKernel}: asynchronous messages are delivered
+ * by the kernel, blocking ones advance its clock. No thread ever sleeps.
  *
  * @author Loris Sauter & Ralph Gasser
  */
@@ -31,8 +44,12 @@ public class SimulationPeer extends ChordPeer implements ChordNode {
   /** Random number generator used to calculate delays. */
   private final Random random = new Random();
 
+  /** The {@link SimulationKernel} that delivers messages. */
+  private final SimulationKernel kernel;
+
   public SimulationPeer(Identifier identifier, SimulationNetwork network) {
     super(identifier, network);
+    this.kernel = network.getKernel();
   }
 
   @Override
@@ -57,25 +74,149 @@ public class SimulationPeer extends ChordPeer implements ChordNode {
   }
 
   @Override
-  public void store(Node origin, String key, String value) {
+  public CompletableFuture<ChordNode> findSuccessorAsync(ChordNode caller, Identifier id) {
+    notifyListeners(new SimulationEvent(EventType.FIND_SUCCESSOR, caller.getIdentifier(), getIdentifier()));
+    return remote(caller, () -> super.findSuccessorAsync(caller, id));
+  }
+
+  @Override
+  public CompletableFuture<ChordNode> closestPrecedingFingerAsync(ChordNode caller, Identifier id) {
+    notifyListeners(new SimulationEvent(EventType.CLOSEST_PRECEDING_FINGER, caller.getIdentifier(), getIdentifier()));
+    return remote(caller, () -> reply(caller, super.closestPrecedingFinger(caller, id)));
+  }
+
+  @Override
+  public CompletableFuture<LookupStatistics> findSuccessorRecursive(ChordNode caller, ChordNode origin, Identifier id, LookupContext context) {
+    notifyListeners(new SimulationEvent(EventType.FIND_SUCCESSOR, caller.getIdentifier(), getIdentifier()));
+    return remote(caller, () -> super.findSuccessorRecursive(caller, origin, id, context));
+  }
+
+  /**
+   * Simulates the network delay of the reply message to {@code origin}, unless it is this peer.
+   */
+  @Override
+  protected <T> CompletableFuture<T> reply(ChordNode origin, T result) {
+    if (origin == null || origin == this) {
+      return CompletableFuture.completedFuture(result);
+    }
+    final Executor delayed = this.kernel.delayedExecutor(nextDelay(), TimeUnit.MILLISECONDS);
+    return CompletableFuture.supplyAsync(() -> result, delayed);
+  }
+
+  /**
+   * Runs the {@link SimulationKernel} until the given future has completed, since the messages it waits for are only
+   * delivered while the kernel runs.
+   */
+  @Override
+  protected <T> T await(CompletableFuture<T> future) {
+    return super.await(this.kernel.await(future));
+  }
+
+  @Override
+  protected void onLookup(LookupStatistics statistics) {
+    LOGGER.debug("Lookup from {} completed: {}", getIdentifier().toIndexString(), statistics);
+  }
+
+  /**
+   * Stores data; the blocking {@link #store(Node, String, String)} is based on this method.
+   */
+  @Override
+  public CompletableFuture<Void> storeAsync(Node origin, String key, String value) {
+    if (origin != null) {
+      notifyListeners(new SimulationEvent(EventType.STORE_DATA, ((ChordPeer)origin).getIdentifier(), getIdentifier()));
+    } else {
+      notifyListeners(new SimulationEvent(EventType.STORE_DATA, getIdentifier()));
+    }
+    return remote(origin, () -> super.storeAsync(origin, key, value));
+  }
+
+  /**
+   * Looks up data; the blocking {@link #lookup(Node, String)} is based on this method.
+   */
+  @Override
+  public CompletableFuture<Optional<String>> lookupAsync(Node origin, String key) {
+    if (origin != null) {
+      notifyListeners(new SimulationEvent(EventType.LOOKUP_DATA, ((ChordPeer)origin).getIdentifier(), getIdentifier()));
+    } else {
+      notifyListeners(new SimulationEvent(EventType.LOOKUP_DATA, getIdentifier()));
+    }
+    return remote(origin, () -> super.lookupAsync(origin, key));
+  }
+
+  @Override
+  public void storeAll(Node origin, Map<String, String> entries) {
     if (origin != null) {
       if (origin != this) delay();
       notifyListeners(new SimulationEvent(EventType.STORE_DATA, ((ChordPeer)origin).getIdentifier(), getIdentifier()));
     } else {
       notifyListeners(new SimulationEvent(EventType.STORE_DATA, getIdentifier()));
     }
-    super.store(origin, key, value);
+    super.storeAll(origin, entries);
   }
 
   @Override
-  public Optional<String> lookup(Node origin, String key) {
+  public Map<String, String> lookupAll(Node origin, Collection<String> keys) {
     if (origin != null) {
       if (origin != this) delay();
       notifyListeners(new SimulationEvent(EventType.LOOKUP_DATA, ((ChordPeer)origin).getIdentifier(), getIdentifier()));
     } else {
       notifyListeners(new SimulationEvent(EventType.LOOKUP_DATA, getIdentifier()));
     }
-    return super.lookup(origin, key);
+    return super.lookupAll(origin, keys);
+  }
+
+  @Override
+  public CompletableFuture<Versioned> readReplicaAsync(ChordNode caller, StoredKey key) {
+    notifyListeners(new SimulationEvent(EventType.LOOKUP_DATA, caller.getIdentifier(), getIdentifier()));
+    return trackRead(() -> remote(caller, () -> super.readReplicaAsync(caller, key).thenCompose(v -> reply(caller, v))));
+  }
+
+  @Override
+  public CompletableFuture<Void> writeReplicaAsync(ChordNode caller, StoredKey key, Versioned value) {
+    notifyListeners(new SimulationEvent(EventType.STORE_DATA, caller.getIdentifier(), getIdentifier()));
+    return remote(caller, () -> super.writeReplicaAsync(caller, key, value).thenCompose(v -> reply(caller, v)));
+  }
+
+  @Override
+  public long[] merkleHashes(ChordNode caller, Identifier from, Identifier to, int[] nodes) {
+    if (caller != this) delay();
+    notifyListeners(new SimulationEvent(EventType.SYNC_REPLICAS, caller.getIdentifier(), getIdentifier()));
+    return super.merkleHashes(caller, from, to, nodes);
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> merkleItems(ChordNode caller, Identifier from, Identifier to, int[] nodes) {
+    if (caller != this) delay();
+    notifyListeners(new SimulationEvent(EventType.SYNC_REPLICAS, caller.getIdentifier(), getIdentifier()));
+    return super.merkleItems(caller, from, to, nodes);
+  }
+
+  @Override
+  public void mergeReplicas(ChordNode caller, NavigableMap<StoredKey, Versioned> items) {
+    if (caller != this) delay();
+    notifyListeners(new SimulationEvent(EventType.TRANSFER_DATA, caller.getIdentifier(), getIdentifier()));
+    super.mergeReplicas(caller, items);
+  }
+
+  @Override
+  public NavigableMap<StoredKey, Versioned> transferKeys(ChordNode caller, Identifier from, Identifier to) {
+    if (caller != this) delay();
+    notifyListeners(new SimulationEvent(EventType.TRANSFER_DATA, caller.getIdentifier(), getIdentifier()));
+    return super.transferKeys(caller, from, to);
+  }
+
+  @Override
+  public void predecessorLeaving(ChordNode leaving, ChordNode predecessor, NavigableMap<StoredKey, Versioned> items) {
+    if (leaving != this) delay();
+    notifyListeners(new SimulationEvent(EventType.TRANSFER_DATA, leaving.getIdentifier(), getIdentifier()));
+    super.predecessorLeaving(leaving, predecessor, items);
+  }
+
+  @Override
+  public void successorLeaving(ChordNode leaving, ChordNode successor) {
+    if (leaving != this) delay();
+    notifyListeners(new SimulationEvent(EventType.NOTIFY, leaving.getIdentifier(), getIdentifier()));
+    super.successorLeaving(leaving, successor);
   }
 
   @Override
@@ -94,13 +235,32 @@ public class SimulationPeer extends ChordPeer implements ChordNode {
   }
 
   /**
-   * Simulates a network delay between 5 and 80ms.
+   * Simulates an asynchronous call from {@code origin} to this peer: unless the call is local, {@code call} is only
+   * executed by the {@link SimulationKernel} after a simulated network delay. No thread is blocked during the delay.
+   *
+   * @param origin The calling {@link Node}. Null for calls by the user.
+   * @param call The actual call.
+   * @return Future of the call's result.
    */
-  private void delay() {
-    try {
-      Thread.sleep(Math.abs(random.nextInt(75 + 5)));
-    } catch (InterruptedException e) {
-      LOGGER.log(Level.ERROR, "The thread was interrupted while simulating a network delay!");
+  private <T> CompletableFuture<T> remote(Node origin, Supplier<CompletableFuture<T>> call) {
+    if (origin == null || origin == this) {
+      return call.get();
     }
+    final Executor delayed = this.kernel.delayedExecutor(nextDelay(), TimeUnit.MILLISECONDS);
+    return CompletableFuture.supplyAsync(call, delayed).thenCompose(Function.identity());
+  }
+
+  /**
+   * Returns a random network delay in milliseconds, as used by {@link #delay()}.
+   */
+  private int nextDelay() {
+    return random.nextInt(75 + 5);
+  }
+
+  /**
+   * Simulates the network delay of a blocking call by advancing the virtual clock.
+   */
+  private void delay() {
+    this.kernel.advance(nextDelay(), TimeUnit.MILLISECONDS);
   }
 }
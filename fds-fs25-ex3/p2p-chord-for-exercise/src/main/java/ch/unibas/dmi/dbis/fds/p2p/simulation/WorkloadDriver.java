@@ -0,0 +1,338 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.NodeStatus;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Drives a simulation with churn and traffic, such that lookups can be measured under realistic conditions rather than
+ * the membership changes made by hand in the UI.
+ *
+ * Churn follows the on/off model: a fixed set of slots (numbers on the identifier circle) alternates between sessions,
+ * during which a peer is part of the network, and downtimes, each drawn from a {@link SessionDistribution}. In the
+ * steady state, a fraction E[session] / (E[session] + E[downtime]) of the slots is online. The peers in the network when
+ * the driver starts take part as well, starting with a session.
+ *
+ * Traffic is a Poisson process of operations at the given rate. Each operation picks a key from a
+ * {@link KeyDistribution} and a random peer as entry point, and either stores a new value for the key or looks it up;
+ * keys that have not been stored yet are always stored first. Operations are issued asynchronously, hence many may be in
+ * flight at once, and are accounted for when they complete. A lookup succeeds if it returns the value stored last, as of
+ * when it was issued or when it completed.
+ *
+ * Everything happens in actions of the network's {@link SimulationKernel}, i.e. in virtual time, alongside the
+ * maintenance scheduled by the {@link SimulationEngine}; run the simulation, e.g. with
+ * {@link SimulationEngine#simulate(long, TimeUnit)}, to make progress. Joins and leaves are blocking calls: they run
+ * in parallel to the rest of the simulation (see {@link SimulationKernel#measure(Runnable)}), such that their messages
+ * delay only themselves, and one at a time, such that a join that runs the kernel while it waits never nests further
+ * joins or leaves into its action. Those that come due meanwhile are deferred until it has finished. The driver manipulates the
+ * {@link SimulationNetwork} directly rather than through the {@link SimulationEngine}, whose methods synchronize on the
+ * engine and might otherwise deadlock with the kernel.
+ */
+public final class WorkloadDriver {
+
+  /** Logger used to log failed operations. */
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /** The {@link SimulationNetwork} being driven. */
+  private final SimulationNetwork network;
+
+  /** The lengths of sessions. */
+  private final SessionDistribution sessions;
+
+  /** The lengths of downtimes between sessions. */
+  private final SessionDistribution downtimes;
+
+  /** Total number of slots taking part in the churn, online or not. */
+  private final int slots;
+
+  /** The popularity of keys. */
+  private final KeyDistribution keys;
+
+  /** Operations per second of virtual time. */
+  private final double rate;
+
+  /** Fraction of the operations that are stores. */
+  private final double writes;
+
+  /** The {@link Random} all choices of this driver are made with, for reproducible runs. */
+  private final Random random;
+
+  /** The value stored last for every key. */
+  private final Map<String, String> stored = new HashMap<>();
+
+  /** Whether the driver is running; actions scheduled and operations issued before it has been stopped do nothing. */
+  private volatile boolean running;
+
+  /** Joins and leaves that came due while another one was in progress, oldest first. */
+  private final Deque<Runnable> deferred = new ArrayDeque<>();
+
+  /** Whether a join or leave is in progress. */
+  private boolean churning;
+
+  /** Virtual time the driver has been started at. */
+  private long started;
+
+  private long joins;
+  private long leaves;
+  private long stores;
+  private long failedStores;
+  private long lookups;
+  private long successfulLookups;
+
+  /** Latencies of the lookups, in nanoseconds. */
+  private long[] latencies = new long[64];
+
+  /** Number of latencies recorded. */
+  private int latencyCount;
+
+  /**
+   * Constructor for {@link WorkloadDriver}.
+   *
+   * @param engine The {@link SimulationEngine} whose {@link SimulationNetwork} to drive.
+   * @param sessions The lengths of sessions.
+   * @param downtimes The lengths of downtimes between sessions.
+   * @param slots Total number of slots taking part in the churn, at least the number of peers in the network; 0 for no churn.
+   * @param keys The popularity of keys.
+   * @param rate Operations per second of virtual time, not negative; 0 for no traffic.
+   * @param writes Fraction of the operations that are stores, between 0 and 1.
+   * @param seed Seed of the random choices.
+   */
+  public WorkloadDriver(SimulationEngine engine, SessionDistribution sessions, SessionDistribution downtimes, int slots,
+                        KeyDistribution keys, double rate, double writes, long seed) {
+    this.network = engine.getNetwork();
+    if (slots < 0 || (this.network.getNbits() < Integer.SIZE - 1 && slots > this.network.size())) {
+      throw new IllegalArgumentException(String.format("The number of slots must be between 0 and the size of the network but was %d.", slots));
+    }
+    if (!(rate >= 0.0) || Double.isInfinite(rate)) {
+      throw new IllegalArgumentException(String.format("The rate cannot be negative but was %s.", rate));
+    }
+    if (!(writes >= 0.0 && writes <= 1.0)) {
+      throw new IllegalArgumentException(String.format("The fraction of writes must be between 0 and 1 but was %s.", writes));
+    }
+    this.sessions = sessions;
+    this.downtimes = downtimes;
+    this.slots = slots;
+    this.keys = keys;
+    this.rate = rate;
+    this.writes = writes;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Starts the churn and the traffic. The network must have been initialized, e.g. by
+   * {@link SimulationEngine#initNetwork()}.
+   *
+   * @throws IllegalStateException If the driver has been started before.
+   */
+  public synchronized void start() {
+    if (this.running || this.started != 0) {
+      throw new IllegalStateException("The workload driver has been started before.");
+    }
+    final SimulationKernel kernel = this.network.getKernel();
+    this.running = true;
+    this.started = Math.max(1, kernel.now());
+
+    if (this.slots > 0) {
+      final Set<Integer> taken = new HashSet<>();
+      for (SimulationPeer peer : this.network.getSimulationPeers()) {
+        final Identifier id = peer.getIdentifier();
+        if (id.fitsInt() && taken.size() < this.slots) {
+          taken.add(id.getIndex());
+          after(this.sessions, () -> leave(id.getIndex()));
+        }
+      }
+      final int range = this.network.getNbits() < Integer.SIZE - 1 ? this.network.size() : Integer.MAX_VALUE;
+      while (taken.size() < this.slots) {
+        final int number = this.random.nextInt(range);
+        if (taken.add(number) && !this.network.getSimulationPeer(number).isPresent()) {
+          after(this.downtimes, () -> join(number));
+        }
+      }
+    }
+    if (this.rate > 0.0) {
+      scheduleOperation();
+    }
+  }
+
+  /**
+   * Stops the churn and the traffic. Peers stay as they are.
+   */
+  public void stop() {
+    this.running = false;
+  }
+
+  /**
+   * Returns what this driver has done and observed so far.
+   *
+   * @return {@link WorkloadReport}
+   */
+  public synchronized WorkloadReport report() {
+    final long duration = this.started == 0 ? 0 : this.network.nanoTime() - this.started;
+    return new WorkloadReport(duration, this.joins, this.leaves, this.stores, this.failedStores, this.lookups,
+        this.successfulLookups, Arrays.copyOf(this.latencies, this.latencyCount));
+  }
+
+  /**
+   * Starts a session in the given slot.
+   */
+  private synchronized void join(int number) {
+    if (!this.running) {
+      return;
+    }
+    if (this.network.getSimulationPeer(number).isPresent()) {
+      /* Somebody else has taken the slot meanwhile; try again later. */
+      after(this.downtimes, () -> join(number));
+      return;
+    }
+    final SimulationPeer nprime = this.network.getPeerCount() > 0 ? this.network.getRandomPeer() : null;
+    final SimulationPeer peer = this.network.createChordPeer(number);
+    try {
+      peer.join(nprime);
+      this.joins++;
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.DEBUG, "Peer {} failed to join.", number, e);
+      this.network.remove(number);
+      after(this.downtimes, () -> join(number));
+      return;
+    }
+    after(this.sessions, () -> leave(number));
+  }
+
+  /**
+   * Ends the session in the given slot. The last peer never leaves, but starts another session.
+   */
+  private synchronized void leave(int number) {
+    if (!this.running) {
+      return;
+    }
+    if (!this.network.getSimulationPeer(number).isPresent()) {
+      /* Somebody else has removed the peer meanwhile. */
+      after(this.downtimes, () -> join(number));
+      return;
+    }
+    if (this.network.getPeerCount() <= 1) {
+      after(this.sessions, () -> leave(number));
+      return;
+    }
+    this.network.remove(number);
+    this.leaves++;
+    after(this.downtimes, () -> join(number));
+  }
+
+  /**
+   * Issues a store or a lookup, and schedules the next operation. Never waits for the operation, since running the
+   * kernel from within one of its actions nests every further operation deeper.
+   */
+  private synchronized void operate() {
+    if (!this.running) {
+      return;
+    }
+    scheduleOperation();
+    if (this.network.getPeerCount() == 0) {
+      return;
+    }
+    final SimulationPeer peer = this.network.getRandomPeer();
+    if (peer.status() != NodeStatus.ONLINE) {
+      return;
+    }
+    final String key = "key-" + this.keys.sample(this.random);
+    final String expected = this.stored.get(key);
+    if (expected == null || this.random.nextDouble() < this.writes) {
+      final String value = "value-" + this.stores++;
+      peer.storeAsync(null, key, value).whenComplete((result, e) -> stored(key, value, e));
+      return;
+    }
+    final long start = this.network.nanoTime();
+    peer.lookupAsync(null, key).whenComplete((value, e) -> lookedUp(key, expected, value, e, start));
+  }
+
+  /**
+   * Accounts for a completed store.
+   */
+  private synchronized void stored(String key, String value, Throwable failure) {
+    if (!this.running) {
+      return;
+    }
+    if (failure != null) {
+      LOGGER.log(Level.DEBUG, "Failed to store {}.", key, failure);
+      this.failedStores++;
+    } else {
+      this.stored.put(key, value);
+    }
+  }
+
+  /**
+   * Accounts for a completed lookup, issued at the given virtual time.
+   */
+  private synchronized void lookedUp(String key, String expected, Optional<String> value, Throwable failure, long start) {
+    if (!this.running) {
+      return;
+    }
+    if (failure != null) {
+      LOGGER.log(Level.DEBUG, "Failed to look up {}.", key, failure);
+    }
+    this.lookups++;
+    if (failure == null && value.isPresent() && (value.get().equals(expected) || value.get().equals(this.stored.get(key)))) {
+      this.successfulLookups++;
+    }
+    if (this.latencyCount == this.latencies.length) {
+      this.latencies = Arrays.copyOf(this.latencies, 2 * this.latencies.length);
+    }
+    this.latencies[this.latencyCount++] = this.network.nanoTime() - start;
+  }
+
+  /**
+   * Schedules the next operation after an exponentially distributed pause, i.e. as a Poisson process.
+   */
+  private void scheduleOperation() {
+    final double pause = -Math.log(1.0 - this.random.nextDouble()) / this.rate;
+    this.network.getKernel().schedule(Math.max(1L, Math.round(pause * 1e9)), TimeUnit.NANOSECONDS, this::operate);
+  }
+
+  /**
+   * Schedules the given join or leave after a length drawn from the given {@link SessionDistribution}. Lengths beyond
+   * the end of time, which heavy tails may yield, mean never.
+   */
+  private void after(SessionDistribution distribution, Runnable action) {
+    final SimulationKernel kernel = this.network.getKernel();
+    final long length = distribution.sample(this.random);
+    if (length < Long.MAX_VALUE - kernel.now()) {
+      kernel.schedule(length, TimeUnit.NANOSECONDS, () -> churn(action));
+    }
+  }
+
+  /**
+   * Runs a join or leave in parallel to the rest of the simulation, unless another one is in progress; then it is
+   * deferred. Once done, the oldest deferred one is scheduled as an action of its own.
+   */
+  private synchronized void churn(Runnable action) {
+    if (this.churning) {
+      this.deferred.add(action);
+      return;
+    }
+    final SimulationKernel kernel = this.network.getKernel();
+    this.churning = true;
+    try {
+      kernel.measure(action);
+    } finally {
+      this.churning = false;
+      final Runnable next = this.deferred.poll();
+      if (next != null) {
+        kernel.schedule(0, TimeUnit.NANOSECONDS, () -> churn(next));
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.Arrays;
+
+/**
+ * What a {@link WorkloadDriver} has done and observed so far: the churn it has generated, and how many of its lookups
+ * have returned the value stored last, how fast.
+ */
+public final class WorkloadReport {
+
+  /** Virtual time the driver has been running, in nanoseconds. */
+  private final long duration;
+
+  /** Number of peers that have joined. */
+  private final long joins;
+
+  /** Number of peers that have left. */
+  private final long leaves;
+
+  /** Number of data items stored. */
+  private final long stores;
+
+  /** Number of stores that have failed with an exception. */
+  private final long failedStores;
+
+  /** Number of lookups of keys stored before. */
+  private final long lookups;
+
+  /** Number of lookups that have returned the value stored last. */
+  private final long successfulLookups;
+
+  /** Latencies of all lookups in nanoseconds, in ascending order. */
+  private final long[] latencies;
+
+  WorkloadReport(long duration, long joins, long leaves, long stores, long failedStores, long lookups, long successfulLookups, long[] latencies) {
+    this.duration = duration;
+    this.joins = joins;
+    this.leaves = leaves;
+    this.stores = stores;
+    this.failedStores = failedStores;
+    this.lookups = lookups;
+    this.successfulLookups = successfulLookups;
+    this.latencies = latencies.clone();
+    Arrays.sort(this.latencies);
+  }
+
+  /**
+   * Virtual time the {@link WorkloadDriver} has been running.
+   *
+   * @return Time in nanoseconds.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public long getJoins() {
+    return joins;
+  }
+
+  public long getLeaves() {
+    return leaves;
+  }
+
+  public long getStores() {
+    return stores;
+  }
+
+  public long getFailedStores() {
+    return failedStores;
+  }
+
+  public long getLookups() {
+    return lookups;
+  }
+
+  public long getSuccessfulLookups() {
+    return successfulLookups;
+  }
+
+  /**
+   * Fraction of the lookups that have returned the value stored last.
+   *
+   * @return Success rate between 0 and 1, 1 if there were no lookups.
+   */
+  public double getSuccessRate() {
+    return this.lookups == 0 ? 1.0 : (double) this.successfulLookups / this.lookups;
+  }
+
+  /**
+   * Returns the latency below which the given fraction of the lookups has completed, e.g. 0.5 for the median.
+   *
+   * @param quantile The quantile, between 0 and 1.
+   * @return Latency in nanoseconds, 0 if there were no lookups.
+   */
+  public long getLatency(double quantile) {
+    if (!(quantile >= 0.0 && quantile <= 1.0)) {
+      throw new IllegalArgumentException(String.format("The quantile must be between 0 and 1 but was %s.", quantile));
+    }
+    if (this.latencies.length == 0) {
+      return 0;
+    }
+    return this.latencies[(int) Math.min(this.latencies.length - 1, Math.ceil(quantile * this.latencies.length) - (quantile > 0.0 ? 1 : 0))];
+  }
+
+  @Override
+  public String toString() {
+    return String.format("duration=%.1f s, joins=%d, leaves=%d, stores=%d (%d failed), lookups=%d (%.1f%% successful), latency p50=%.1f ms, p99=%.1f ms",
+        duration / 1e9, joins, leaves, stores, failedStores, lookups, 100 * getSuccessRate(), getLatency(0.5) / 1e6, getLatency(0.99) / 1e6);
+  }
+}
@@ -4,6 +4,7 @@ package ch.unibas.dmi.dbis.fds.p2p.ui;/**
  * @author loris.sauter
  */
 
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashStrategy;
 import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEngine;
 
 import java.util.Objects;
@@ -36,6 +37,8 @@ public class ChordApplication extends Application {
 
   private static final String NB_OF_BYTES_PARAMETER_NAME = "bits";
 
+  private static final String HASH_PARAMETER_NAME = "hash";
+
   /** The thread pool used for execution of the simulation. */
   private final static ExecutorService THREADPOOL = Executors.newFixedThreadPool(1);
 
@@ -57,12 +60,13 @@ public class ChordApplication extends Application {
     /* Read configuration and prepare config. */
     final boolean dynamic = Boolean.parseBoolean(getParameters().getNamed().getOrDefault(DYNAMIC_PARAMETER_NAME, "false"));
     final int nbits = Integer.parseInt(getParameters().getNamed().getOrDefault(NB_OF_BYTES_PARAMETER_NAME, "3"));
-    final ChordConfiguration config = new ChordConfiguration(dynamic, nbits);
+    final HashStrategy strategy = HashStrategy.forName(getParameters().getNamed().getOrDefault(HASH_PARAMETER_NAME, HashStrategy.SHA1.name()));
+    final ChordConfiguration config = new ChordConfiguration(dynamic, nbits, strategy);
 
     System.out.println("Starting Chord simulator with config: " + config);
 
     /* Prepare and fire-up the simulation engine. */
-    final SimulationEngine engine = new SimulationEngine(config.getNbits(), config.isDynamic());
+    final SimulationEngine engine = new SimulationEngine(config.getNbits(), config.isDynamic(), config.getStrategy());
     THREADPOOL.submit(engine);
 
     /* Prepare ChordPanel and associated Inspector + EventLog. */
@@ -100,7 +104,9 @@ public class ChordApplication extends Application {
     slider.setMin(-1.0);
     slider.setValue(0);
     slider.setMax(1.0);
-    engine.bindPace(slider.valueProperty());
+    /* Slider values in [-1, 1] map to pauses between 2000 and 0ms per simulation step. */
+    engine.setPace(1000);
+    slider.valueProperty().addListener((observable, previous, value) -> engine.setPace(Math.round((1 - value.doubleValue()) * 1000)));
     buttonContainer.getChildren().addAll(startButton,stopButton,helpBtn,sliderLabel,slider);
     VBox.setVgrow(eventLog, Priority.SOMETIMES);
 
@@ -157,10 +163,12 @@ public class ChordApplication extends Application {
 
     private final boolean dynamic;
     private final int nbits;
+    private final HashStrategy strategy;
 
-    private ChordConfiguration(boolean dynamic, int nbits) {
+    private ChordConfiguration(boolean dynamic, int nbits, HashStrategy strategy) {
       this.dynamic = dynamic;
       this.nbits = nbits;
+      this.strategy = strategy;
     }
 
     public boolean isDynamic() {
@@ -171,6 +179,10 @@ public class ChordApplication extends Application {
       return nbits;
     }
 
+    public HashStrategy getStrategy() {
+      return strategy;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -181,18 +193,19 @@ public class ChordApplication extends Application {
       }
       ChordConfiguration that = (ChordConfiguration) o;
       return isDynamic() == that.isDynamic() &&
-          getNbits() == that.getNbits();
+          getNbits() == that.getNbits() &&
+          getStrategy() == that.getStrategy();
     }
 
     @Override
     public int hashCode() {
 
-      return Objects.hash(isDynamic(), getNbits());
+      return Objects.hash(isDynamic(), getNbits(), getStrategy().name());
     }
 
     @Override
     public String toString() {
-      return String.format("ChordConfiguration{bits=%d, dynamic=%b}", nbits, dynamic);
+      return String.format("ChordConfiguration{bits=%d, dynamic=%b, hash=%s}", nbits, dynamic, strategy.name());
     }
   }
 }
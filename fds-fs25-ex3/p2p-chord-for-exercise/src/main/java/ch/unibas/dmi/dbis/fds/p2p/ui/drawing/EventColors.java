@@ -0,0 +1,42 @@
+package ch.unibas.dmi.dbis.fds.p2p.ui.drawing;
+
+import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent;
+import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent.EventType;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * The colors in which {@link SimulationEvent}s are drawn and logged, by {@link EventType}.
+ */
+public final class EventColors {
+
+    private EventColors() {
+    }
+
+    /**
+     * Returns the color of the given {@link EventType}.
+     *
+     * @param type The {@link EventType}.
+     * @return {@link Paint}
+     */
+    public static Paint of(EventType type) {
+        switch (type) {
+            case FIND_SUCCESSOR:
+                return Color.CRIMSON;
+            case FIND_PREDECESSOR:
+                return Color.NAVY;
+            case CLOSEST_PRECEDING_FINGER:
+                return Color.GOLD;
+            case NOTIFY:
+                return Color.MAGENTA;
+            case JOIN:
+                return Color.FORESTGREEN;
+            case GENERIC:
+                return Color.LIGHTGRAY;
+            case SYNC_REPLICAS:
+                return Color.TEAL;
+            default:
+                return Color.BLACK;
+        }
+    }
+}
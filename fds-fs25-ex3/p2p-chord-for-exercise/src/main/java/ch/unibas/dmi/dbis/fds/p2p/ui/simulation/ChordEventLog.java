@@ -2,27 +2,55 @@ package ch.unibas.dmi.dbis.fds.p2p.ui.simulation;
 
 import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEngine;
 import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent;
+import ch.unibas.dmi.dbis.fds.p2p.ui.drawing.EventColors;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 
 /**
- * This view is used to display a log of {@link SimulationEvent}s.
+ * This view is used to display a log of {@link SimulationEvent}s. It subscribes to a {@link SimulationEngine} and keeps
+ * the latest events only.
  *
  * @author Loris Sauter & Ralph Gasser
  */
 public class ChordEventLog extends AnchorPane {
+  /** The default number of {@link SimulationEvent}s to keep in the log. */
+  public static final int KEEP_EVENTS = 1000;
+
   /** This {@link ListView} to display events. */
   private final ListView<SimulationEvent> list = new ListView<>();
 
+  /** The {@link SimulationEvent}s displayed, only modified by the JavaFX application thread. */
+  private final ObservableList<SimulationEvent> events = FXCollections.observableArrayList();
+
   /**
    * Constructor for {@link ChordEventLog}.
    *
    * @param engine The {@link SimulationEngine} for which to display the events.
    */
   public ChordEventLog(SimulationEngine engine){
+    this(engine, KEEP_EVENTS);
+  }
+
+  /**
+   * Constructor for {@link ChordEventLog}.
+   *
+   * @param engine The {@link SimulationEngine} for which to display the events.
+   * @param keepEvents The number of {@link SimulationEvent}s to keep in the log.
+   */
+  public ChordEventLog(SimulationEngine engine, int keepEvents){
+    engine.addSimulationEventListener(event -> Platform.runLater(() -> {
+      this.events.add(event);
+      if (this.events.size() > keepEvents) {
+        this.events.remove(0, Math.min(25, this.events.size()));
+      }
+    }));
+
     /* Link items and activate auto scroll. */
-    this.list.setItems(engine.allEvents());
+    this.list.setItems(this.events);
     this.list.getItems().addListener((ListChangeListener<SimulationEvent>) c -> ChordEventLog.this.list.scrollTo(c.getList().size()-1));
 
     /* Set cell factory to create list items. */
@@ -45,7 +73,7 @@ public class ChordEventLog extends AnchorPane {
       super.updateItem(item, empty);
       if (item != null) {
         this.setText(String.format("[%d]: %s", item.getWhen(), item.getMessage()));
-        this.setTextFill(item.getType().getColor());
+        this.setTextFill(EventColors.of(item.getType()));
       }
     }
   }
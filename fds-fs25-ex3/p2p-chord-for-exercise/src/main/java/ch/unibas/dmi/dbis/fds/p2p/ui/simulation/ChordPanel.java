@@ -6,6 +6,7 @@ import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent;
 import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationPeer;
 import ch.unibas.dmi.dbis.fds.p2p.ui.components.ChordLegend;
 import ch.unibas.dmi.dbis.fds.p2p.ui.drawing.ChordGraphicsContext;
+import ch.unibas.dmi.dbis.fds.p2p.ui.drawing.EventColors;
 import ch.unibas.dmi.dbis.fds.p2p.ui.drawing.VisualNode;
 
 import java.util.ArrayList;
@@ -241,13 +242,12 @@ public class ChordPanel extends VBox {
      * Aligns the local data model (for visualisation) with the current state of the {@link SimulationEngine},
      */
     private void update() {
-        for (int i = 0; i < this.engine.getNetwork().size(); i++) {
-            final Optional<SimulationPeer> node = this.engine.getNetwork().getSimulationPeer(i);
-            if (node.isPresent()) {
-                visualNodes.get(i).setPeer(node.get());
-            } else {
-                visualNodes.get(i).setPeer(null);
-            }
+        final SimulationPeer[] peers = new SimulationPeer[this.visualNodes.size()];
+        for (SimulationPeer peer : this.engine.getNetwork().getSimulationPeers()) {
+            peers[peer.getIdentifier().getIndex()] = peer;
+        }
+        for (int i = 0; i < peers.length; i++) {
+            visualNodes.get(i).setPeer(peers[i]);
         }
     }
 
@@ -299,8 +299,8 @@ public class ChordPanel extends VBox {
         final GraphicsContext gc = canvas.getGraphicsContext2D();
         final Paint stroke = gc.getStroke();
         final Paint fill = gc.getFill();
-        gc.setStroke(event.getType().getColor());
-        gc.setFill(event.getType().getColor());
+        gc.setStroke(EventColors.of(event.getType()));
+        gc.setFill(EventColors.of(event.getType()));
         if (src == null) {
             double dx = (dest.getPosition().getX() - canvas.getWidth() / 2.0) / 5.0;
             double dy = (dest.getPosition().getY() - canvas.getHeight() / 2.0) / 5.0;
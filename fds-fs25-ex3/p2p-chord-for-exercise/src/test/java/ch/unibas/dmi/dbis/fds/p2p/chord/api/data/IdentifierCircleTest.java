@@ -0,0 +1,74 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashFunction;
+import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordNetwork;
+import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordPeer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the arithmetic of the {@link IdentifierCircle}, in particular on circles wider than an int.
+ */
+public class IdentifierCircleTest {
+
+  @Test
+  public void testNarrowWrapAround() {
+    final IdentifierCircle circle = new IdentifierCircle(3);
+    Assertions.assertEquals(8, circle.size());
+    Assertions.assertEquals(7, circle.getIdentifierAt(-1).getIndex());
+    Assertions.assertEquals(0, circle.next(circle.getIdentifierAt(7)).getIndex());
+    Assertions.assertEquals(7, circle.last(circle.getIdentifierAt(0)).getIndex());
+    Assertions.assertEquals(1, circle.add(circle.getIdentifierAt(5), 2).getIndex());
+    Assertions.assertEquals(6, circle.subtract(circle.getIdentifierAt(2), 2).getIndex());
+  }
+
+  @Test
+  public void testWideCarryAndBorrow() {
+    final IdentifierCircle circle = new IdentifierCircle(160);
+    Assertions.assertThrows(ArithmeticException.class, circle::size);
+
+    /* 2^64 - 1 + 1 carries into the middle word. */
+    final Identifier max64 = circle.getIdentifier(0L, 0L, -1L);
+    final Identifier carried = circle.next(max64);
+    Assertions.assertEquals(circle.getIdentifier(0L, 1L, 0L), carried);
+    Assertions.assertEquals(max64, circle.last(carried));
+    Assertions.assertTrue(max64.compareTo(carried) < 0);
+    Assertions.assertEquals("18446744073709551616", carried.toIndexString());
+
+    /* The last identifier is 2^160 - 1, the one after it is 0 again. */
+    final Identifier last = circle.getIdentifierAt(-1);
+    Assertions.assertEquals(0xFFFFFFFFL, last.getHigh());
+    Assertions.assertEquals(circle.getIdentifierAt(0), circle.next(last));
+    Assertions.assertEquals(circle.getIdentifier(0x7FFFFFFFL, -1L, -1L), circle.add(last, 159));
+    Assertions.assertEquals(last, circle.subtract(circle.getIdentifierAt(0), 0));
+    Assertions.assertThrows(ArithmeticException.class, last::getIndex);
+  }
+
+  @Test
+  public void testWideKeyPlacement() {
+    final IdentifierCircle circle = new IdentifierCircle(160, new HashFunction(160));
+    final Identifier id = circle.identifierOf("abc");
+    /* SHA-1("abc") = a9993e36 4706816a ba3e2571 7850c26c 9cd0d89d */
+    Assertions.assertEquals(0xa9993e36L, id.getHigh());
+    Assertions.assertEquals(0x4706816aba3e2571L, id.getMid());
+    Assertions.assertEquals(0x7850c26c9cd0d89dL, id.getLow());
+  }
+
+  @Test
+  public void testWideNetworkLookup() {
+    final ChordNetwork network = new ChordNetwork(160, false);
+    final IdentifierCircle circle = (IdentifierCircle) network.getIdentifierCircle();
+    final ChordPeer n0 = network.createChordPeer(circle.getIdentifier(0L, 0L, 0L));
+    final ChordPeer n1 = network.createChordPeer(circle.getIdentifier(0x80000000L, 0L, 0L));
+    n0.join(null);
+    n1.join(n0);
+
+    Assertions.assertSame(n1, n0.successor());
+    Assertions.assertSame(n0, n1.successor());
+    Assertions.assertSame(n1, n0.finger().node(160).get());
+
+    /* SHA-1("abc") starts with a9..., which lies in (2^159, 2^160), hence belongs to n0. */
+    final Identifier key = circle.identifierOf("abc");
+    Assertions.assertSame(n0, n1.findSuccessor(n1, key));
+  }
+}
@@ -0,0 +1,61 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordNetwork;
+import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordPeer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests range resolution, invalidation and CLOCK eviction of the {@link LocationCache}.
+ */
+public class LocationCacheTest {
+
+  private final ChordNetwork network = new ChordNetwork(5, true);
+
+  private Identifier id(int index) {
+    return network.getIdentifierCircle().getIdentifierAt(index);
+  }
+
+  @Test
+  public void testRanges() {
+    final ChordPeer p4 = network.createChordPeer(4);
+    final ChordPeer p0 = network.createChordPeer(0);
+    final LocationCache cache = new LocationCache(8);
+    cache.put(id(0), p4);   // (0, 4]
+    cache.put(id(28), p0);  // (28, 0], wraps around
+
+    Assertions.assertSame(p4, cache.get(id(4)));
+    Assertions.assertSame(p4, cache.get(id(1)));
+    Assertions.assertNull(cache.get(id(5)));
+    Assertions.assertSame(p0, cache.get(id(30)));
+    Assertions.assertSame(p0, cache.get(id(0)));
+    Assertions.assertNull(cache.get(id(28)));
+
+    // A node joining at 3 splits (0, 4]
+    cache.invalidate(id(3));
+    Assertions.assertNull(cache.get(id(1)));
+    Assertions.assertSame(p0, cache.get(id(31)));
+
+    cache.invalidateOwner(p0);
+    Assertions.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testClockEviction() {
+    final ChordPeer p4 = network.createChordPeer(4);
+    final ChordPeer p8 = network.createChordPeer(8);
+    final ChordPeer p12 = network.createChordPeer(12);
+    final LocationCache cache = new LocationCache(2);
+    cache.put(id(0), p4);
+    cache.put(id(4), p8);
+    cache.get(id(2)); // references p4
+
+    cache.put(id(8), p12); // p8 was not referenced, hence evicted
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertSame(p4, cache.get(id(2)));
+    Assertions.assertNull(cache.get(id(6)));
+    Assertions.assertSame(p12, cache.get(id(10)));
+
+    Assertions.assertNull(new LocationCache(0).get(id(1)));
+  }
+}
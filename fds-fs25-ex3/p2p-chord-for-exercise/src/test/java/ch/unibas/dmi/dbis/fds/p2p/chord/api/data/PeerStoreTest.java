@@ -0,0 +1,292 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.data;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.IdentifierCircle;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+import ch.unibas.dmi.dbis.fds.p2p.chord.impl.ChordNetwork;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link PeerStore} implementations, on a small circle where identifiers of keys collide.
+ */
+public class PeerStoreTest {
+
+  private static final int KEYS = 100;
+
+  /** Directory of the {@link LogStructuredStore}s, emptied after every test. */
+  private static final Path ROOT = temporaryDirectory();
+
+  private static final List<PeerStore.Factory> FACTORIES = Arrays.asList(SkipListStore::new, HashMapStore::new, OffHeapStore::new, LogStructuredStore.factory(ROOT));
+
+  private final IdentifierCircle<Identifier> circle = new ChordNetwork(3).getIdentifierCircle();
+
+  private static Path temporaryDirectory() {
+    try {
+      return Files.createTempDirectory("peer-store-test");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @AfterEach
+  public void deleteStores() throws IOException {
+    if (Files.exists(ROOT)) {
+      try (Stream<Path> files = Files.walk(ROOT)) {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+    }
+  }
+
+  private PeerStore fill(PeerStore.Factory factory) {
+    final PeerStore storage = factory.create(this.circle);
+    for (int i = 0; i < KEYS; i++) {
+      storage.put("key-" + i, "value-" + i);
+    }
+    Assertions.assertEquals(KEYS, storage.size());
+    return storage;
+  }
+
+  @Test
+  public void testExtract() {
+    for (PeerStore.Factory factory : FACTORIES) {
+      for (int from = 0; from < 8; from++) {
+        for (int to = 0; to < 8; to++) {
+          try (PeerStore storage = fill(factory)) {
+            final Identifier a = this.circle.getIdentifierAt(from);
+            final Identifier b = this.circle.getIdentifierAt(to);
+            final NavigableMap<StoredKey, Versioned> extracted = storage.extract(a, b);
+
+            for (Map.Entry<StoredKey, Versioned> entry : extracted.entrySet()) {
+              Assertions.assertTrue(Ring.inLeftOpen(a, b, entry.getKey().getIdentifier()));
+              Assertions.assertNull(storage.get(entry.getKey().getKey()));
+            }
+            for (String key : storage.keys()) {
+              Assertions.assertFalse(Ring.inLeftOpen(a, b, this.circle.identifierOf(key)));
+            }
+            Assertions.assertEquals(KEYS, extracted.size() + storage.size());
+
+            // Moving the items back restores the storage
+            storage.putAll(extracted);
+            Assertions.assertEquals(KEYS, storage.size());
+            Assertions.assertEquals("value-42", storage.get("key-42"));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testOrder() {
+    for (PeerStore.Factory factory : FACTORIES) {
+      try (PeerStore storage = fill(factory)) {
+        Identifier previous = null;
+        for (String key : storage.keys()) {
+          final Identifier id = this.circle.identifierOf(key);
+          Assertions.assertTrue(previous == null || previous.compareTo(id) <= 0);
+          previous = id;
+        }
+        Assertions.assertEquals("value-7", storage.remove("key-7"));
+        Assertions.assertNull(storage.remove("key-7"));
+        Assertions.assertEquals(KEYS - 1, storage.toMap().size());
+      }
+    }
+  }
+
+  @Test
+  public void testScanAndSize() {
+    for (PeerStore.Factory factory : FACTORIES) {
+      try (PeerStore storage = fill(factory)) {
+        final long bytes = storage.bytes();
+        Assertions.assertTrue(bytes > 0);
+        final Identifier a = this.circle.getIdentifierAt(6);
+        final Identifier b = this.circle.getIdentifierAt(2);
+        final NavigableMap<StoredKey, Versioned> scanned = storage.scan(a, b);
+        Assertions.assertEquals(scanned, storage.extract(a, b));
+        Assertions.assertEquals(KEYS - scanned.size(), storage.snapshot().size());
+        Assertions.assertTrue(storage.bytes() < bytes);
+
+        storage.putAll(scanned);
+        Assertions.assertEquals(bytes, storage.bytes());
+        storage.put("key-0", "value-00");
+        Assertions.assertEquals(bytes + Character.BYTES, storage.bytes());
+        Assertions.assertEquals(storage.snapshot(), storage.scan(a, a));
+      }
+    }
+  }
+
+  @Test
+  public void testOffHeapCompaction() {
+    final ChordNetwork network = new ChordNetwork(16);
+    try (OffHeapStore storage = new OffHeapStore(network.getIdentifierCircle())) {
+      final StringBuilder large = new StringBuilder();
+      while (large.length() <= 600_000) {
+        large.append("large-value-");
+      }
+      for (int i = 0; i < 20_000; i++) {
+        storage.put("key-" + i, i % 1000 == 0 ? large.toString() : "value-" + i);
+      }
+      Assertions.assertEquals(large.toString(), storage.get("key-1000"));
+      final long reserved = storage.reservedBytes();
+
+      // Grow some values out of their chunks, then hand over most of the circle
+      for (int i = 0; i < 20_000; i += 7) {
+        storage.put("key-" + i, "value-" + i + "-with-a-longer-suffix");
+      }
+      final Identifier from = network.getIdentifierCircle().getIdentifierAt(0);
+      final Identifier to = network.getIdentifierCircle().getIdentifierAt(60_000);
+      final NavigableMap<StoredKey, Versioned> extracted = storage.extract(from, to);
+      Assertions.assertEquals(20_000, extracted.size() + storage.size());
+      Assertions.assertTrue(storage.reservedBytes() < reserved / 2, storage.reservedBytes() + " of " + reserved);
+
+      for (int i = 0; i < 20_000; i++) {
+        final String key = "key-" + i;
+        final String expected = i % 7 == 0 ? "value-" + i + "-with-a-longer-suffix" : i % 1000 == 0 ? large.toString() : "value-" + i;
+        final String value = storage.get(key) != null ? storage.get(key) : extracted.get(storage.keyOf(key)).getValue();
+        Assertions.assertEquals(expected, value, key);
+      }
+      Assertions.assertEquals(storage.bytes() > 0, storage.size() > 0);
+    }
+  }
+
+  @Test
+  public void testOffHeapCompactionOnRemove() {
+    final ChordNetwork network = new ChordNetwork(16);
+    try (OffHeapStore storage = new OffHeapStore(network.getIdentifierCircle())) {
+      for (int i = 0; i < 50_000; i++) {
+        storage.put("key-" + i, "value-" + i);
+      }
+      final long reserved = storage.reservedBytes();
+
+      // Remove most keys one by one; the slabs they leave sparse are compacted along the way
+      for (int i = 0; i < 50_000; i++) {
+        if (i % 10 != 0) {
+          Assertions.assertEquals("value-" + i, storage.remove("key-" + i));
+        }
+      }
+      Assertions.assertEquals(5_000, storage.size());
+      Assertions.assertTrue(storage.reservedBytes() < reserved / 2, storage.reservedBytes() + " of " + reserved);
+      for (int i = 0; i < 50_000; i++) {
+        Assertions.assertEquals(i % 10 == 0 ? "value-" + i : null, storage.get("key-" + i), "key-" + i);
+      }
+    }
+  }
+
+  @Test
+  public void testLogRecovery() throws IOException {
+    final Path directory = ROOT.resolve("recovery");
+    final LogStructuredStore storage = new LogStructuredStore(this.circle, directory, 4096);
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < KEYS; i++) {
+        storage.put("key-" + i, "value-" + i + "-" + round);
+      }
+    }
+    storage.remove("key-7");
+    storage.extract(this.circle.getIdentifierAt(2), this.circle.getIdentifierAt(4));
+    storage.merge(storage.keyOf("key-8"), new Versioned(null, 10));
+    Assertions.assertTrue(storage.checkpoint() > 0, "overwritten segments are compacted");
+    storage.put("key-9", "after-checkpoint");
+    final NavigableMap<StoredKey, Versioned> expected = storage.snapshot();
+    final long bytes = storage.bytes();
+    final long root = storage.hashes(new int[]{1}, this.circle.getIdentifierAt(0), this.circle.getIdentifierAt(0))[0];
+    storage.close();
+
+    // Reopening loads the checkpoint and replays the log written afterwards
+    final LogStructuredStore reopened = new LogStructuredStore(this.circle, directory, 4096);
+    Assertions.assertEquals(expected, reopened.snapshot());
+    Assertions.assertEquals(bytes, reopened.bytes());
+    Assertions.assertEquals(root, reopened.hashes(new int[]{1}, this.circle.getIdentifierAt(0), this.circle.getIdentifierAt(0))[0]);
+
+    // A crash leaves the last record torn, which is dropped on recovery; the crashed store is left open
+    reopened.remove("key-9");
+    final NavigableMap<StoredKey, Versioned> committed = reopened.snapshot();
+    reopened.put("key-10", "torn");
+    reopened.commit().join();
+    final Path last;
+    try (Stream<Path> files = Files.list(directory)) {
+      last = files.filter(file -> file.toString().endsWith(".log")).max(Comparator.naturalOrder()).orElseThrow();
+    }
+    final byte[] log = Files.readAllBytes(last);
+    int end = log.length - 1;
+    while (log[end] == 0) {
+      end--;
+    }
+    log[end] ^= 1;
+    Files.write(last, log, StandardOpenOption.WRITE);
+
+    final LogStructuredStore recovered = new LogStructuredStore(this.circle, directory, 4096);
+    Assertions.assertEquals(committed, recovered.snapshot());
+    Assertions.assertEquals("value-10-2", recovered.get("key-10"));
+    recovered.put("key-11", "appended");
+    recovered.close();
+    try (LogStructuredStore restarted = new LogStructuredStore(this.circle, directory, 4096)) {
+      Assertions.assertEquals("appended", restarted.get("key-11"));
+    }
+  }
+
+  @Test
+  public void testMerkleTree() {
+    for (PeerStore.Factory factory : FACTORIES) {
+      try (PeerStore a = fill(factory); PeerStore b = factory.create(this.circle)) {
+        for (int i = KEYS - 1; i >= 0; i--) {
+          b.put("key-" + i, "value-" + i);
+        }
+        final MerkleTree tree = a.tree();
+        final Identifier zero = this.circle.getIdentifierAt(0);
+        final int[] root = {1};
+        Assertions.assertEquals(a.hashes(root, zero, zero)[0], b.hashes(root, zero, zero)[0]);
+
+        // Only the leaf of the changed item and its ancestors differ
+        b.put("key-42", "changed");
+        final Identifier changed = this.circle.identifierOf("key-42");
+        final int leaf = tree.leafOf(changed);
+        for (int node = 1; node < 2 * tree.leaves(); node++) {
+          final int[] nodes = {node};
+          final boolean ancestor = (leaf >>> (Integer.numberOfLeadingZeros(node) - Integer.numberOfLeadingZeros(leaf))) == node;
+          Assertions.assertEquals(!ancestor, a.hashes(nodes, zero, zero)[0] == b.hashes(nodes, zero, zero)[0], "node " + node);
+        }
+
+        // Partially covered nodes only account for the items in range
+        final Identifier from = this.circle.last(changed);
+        Assertions.assertEquals(KEYS, a.items(root, zero, zero).size());
+        Assertions.assertEquals(a.items(root, from, changed).keySet(), b.items(new int[]{leaf}, from, changed).keySet());
+        Assertions.assertEquals(0L, a.hashes(new int[]{tree.leafOf(from)}, from, changed)[0]);
+        Assertions.assertNotEquals(a.hashes(new int[]{leaf}, from, changed)[0], b.hashes(new int[]{leaf}, from, changed)[0]);
+
+        // The tree follows extractions
+        a.extract(from, changed);
+        b.extract(from, changed);
+        Assertions.assertEquals(a.hashes(root, zero, zero)[0], b.hashes(root, zero, zero)[0]);
+      }
+    }
+  }
+
+  @Test
+  public void testVersions() {
+    for (PeerStore.Factory factory : FACTORIES) {
+      try (PeerStore storage = factory.create(this.circle)) {
+        final StoredKey key = storage.keyOf("key");
+        Assertions.assertEquals(1, storage.update(key, "a", 0).getVersion());
+        Assertions.assertEquals(6, storage.update(key, "b", 5).getVersion());
+
+        Assertions.assertFalse(storage.merge(key, new Versioned("stale", 3)));
+        Assertions.assertEquals("b", storage.get("key"));
+        Assertions.assertTrue(storage.merge(key, new Versioned(null, 7)));
+        Assertions.assertNull(storage.get("key"));
+        Assertions.assertTrue(storage.keys().isEmpty());
+        Assertions.assertEquals(1, storage.size());
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests whether the different input overloads of {@link HashFunction} agree with a plain SHA-1 over the UTF-8 encoding.
+ */
+public class HashFunctionTest {
+
+  private final HashFunction function = new HashFunction(16);
+
+  private static int reference(byte[] bytes, int nbits) throws Exception {
+    final ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA").digest(bytes));
+    return Math.abs(digest.getInt()) & ((int) Math.pow(2, nbits) - 1);
+  }
+
+  @Test
+  public void testStringMatchesReference() throws Exception {
+    for (String s : new String[]{"", "a", "key-42", "Gr\u00fcezi", "\u65e5\u672c\u8a9e", "\ud83d\ude00 emoji"}) {
+      Assertions.assertEquals(reference(s.getBytes(StandardCharsets.UTF_8), 16), function.hash(s), s);
+    }
+  }
+
+  @Test
+  public void testLongInputMatchesReference() throws Exception {
+    final char[] chars = new char[2000];
+    Arrays.fill(chars, '\u00e4');
+    final String s = new String(chars);
+    Assertions.assertEquals(reference(s.getBytes(StandardCharsets.UTF_8), 16), function.hash(s));
+  }
+
+  @Test
+  public void testCharSequenceMatchesString() {
+    Assertions.assertEquals(function.hash("some-key"), function.hash(new StringBuilder("some-key")));
+  }
+
+  @Test
+  public void testBytesMatchString() {
+    final byte[] bytes = "xyz-key".getBytes(StandardCharsets.UTF_8);
+    Assertions.assertEquals(function.hash("xyz-key"), function.hash(bytes));
+
+    final byte[] padded = "__xyz-key__".getBytes(StandardCharsets.UTF_8);
+    Assertions.assertEquals(function.hash("xyz-key"), function.hash(padded, 2, bytes.length));
+  }
+
+  @Test
+  public void testByteBufferMatchesStringAndKeepsPosition() {
+    final byte[] bytes = "xyz-key".getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer heap = ByteBuffer.wrap(bytes);
+    final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+    direct.flip();
+
+    Assertions.assertEquals(function.hash("xyz-key"), function.hash(heap));
+    Assertions.assertEquals(function.hash("xyz-key"), function.hash(direct));
+    Assertions.assertEquals(0, heap.position());
+    Assertions.assertEquals(0, direct.position());
+  }
+
+  @Test
+  public void testNumbersMatchDecimalString() {
+    for (long l : new long[]{0, 7, -7, 123456789L, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      Assertions.assertEquals(function.hash(String.valueOf(l)), function.hash(l));
+    }
+    Assertions.assertEquals(function.hash("42"), function.hash(42));
+  }
+
+  @Test
+  public void testHashAll() {
+    final String[] keys = {"a", "b", "c"};
+    final int[] expected = {function.hash("a"), function.hash("b"), function.hash("c")};
+    Assertions.assertArrayEquals(expected, function.hashAll(Arrays.asList(keys)));
+    Assertions.assertArrayEquals(expected, function.hashAll(keys, new int[3]));
+  }
+}
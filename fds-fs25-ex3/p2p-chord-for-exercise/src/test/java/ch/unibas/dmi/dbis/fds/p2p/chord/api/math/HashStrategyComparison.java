@@ -0,0 +1,153 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+/**
+ * Compares {@link HashStrategy}s with respect to key-distribution uniformity on the identifier circle and throughput.
+ *
+ * Can be run from the command line: {@code HashStrategyComparison [<number of bits> [<number of keys>]]}
+ */
+public final class HashStrategyComparison {
+
+  /** Number of timed passes over the key set. */
+  private static final int PASSES = 5;
+
+  /** Receives the hashes of the timed passes, such that the JIT cannot eliminate them. */
+  private static volatile int sink;
+
+  private HashStrategyComparison() {}
+
+  /**
+   * Hashes {@code numberOfKeys} keys of the form <i>key-i</i> onto an identifier circle with {@code nbits} bits using
+   * the given {@link HashStrategy} and reports the distribution of the keys as well as the time required per key.
+   *
+   * @param strategy The {@link HashStrategy} to measure.
+   * @param nbits Number of bits of the identifier circle, i.e. there are 2^nbits buckets.
+   * @param numberOfKeys Number of keys to hash.
+   * @return {@link Result} of the measurement.
+   */
+  public static Result measure(HashStrategy strategy, int nbits, int numberOfKeys) {
+    final HashFunction function = new HashFunction(nbits, strategy);
+    final String[] keys = new String[numberOfKeys];
+    for (int i = 0; i < numberOfKeys; i++) {
+      keys[i] = "key-" + i;
+    }
+
+    /* Distribution. */
+    final int[] hashes = function.hashAll(keys, new int[numberOfKeys]);
+    final int[] buckets = new int[1 << nbits];
+    for (int h : hashes) {
+      buckets[h]++;
+    }
+    final double expected = (double) numberOfKeys / buckets.length;
+    int max = 0;
+    int min = Integer.MAX_VALUE;
+    double chiSquare = 0.0;
+    for (int count : buckets) {
+      max = Math.max(max, count);
+      min = Math.min(min, count);
+      chiSquare += (count - expected) * (count - expected) / expected;
+    }
+
+    /* Throughput: one warm-up pass, then the best of a few timed passes. */
+    int sink = 0;
+    for (String key : keys) {
+      sink ^= function.hash(key);
+    }
+    long best = Long.MAX_VALUE;
+    for (int pass = 0; pass < PASSES; pass++) {
+      final long start = System.nanoTime();
+      for (String key : keys) {
+        sink ^= function.hash(key);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    HashStrategyComparison.sink = sink;
+
+    return new Result(strategy, buckets.length, numberOfKeys, min, max, max / expected, chiSquare / (buckets.length - 1), (double) best / numberOfKeys);
+  }
+
+  public static void main(String[] args) {
+    final int nbits = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    final int keys = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+    System.out.println(String.format("Hashing %d keys onto %d buckets (bits=%d):", keys, 1 << nbits, nbits));
+    for (HashStrategy strategy : new HashStrategy[]{HashStrategy.SHA1, HashStrategy.MURMUR3, HashStrategy.XXHASH64}) {
+      System.out.println(measure(strategy, nbits, keys));
+    }
+  }
+
+  /**
+   * Result of a measurement by {@link HashStrategyComparison#measure(HashStrategy, int, int)}.
+   */
+  public static final class Result {
+    private final HashStrategy strategy;
+    private final int buckets;
+    private final int keys;
+    private final int minLoad;
+    private final int maxLoad;
+    private final double skew;
+    private final double chiSquare;
+    private final double nanosPerOp;
+
+    private Result(HashStrategy strategy, int buckets, int keys, int minLoad, int maxLoad, double skew, double chiSquare, double nanosPerOp) {
+      this.strategy = strategy;
+      this.buckets = buckets;
+      this.keys = keys;
+      this.minLoad = minLoad;
+      this.maxLoad = maxLoad;
+      this.skew = skew;
+      this.chiSquare = chiSquare;
+      this.nanosPerOp = nanosPerOp;
+    }
+
+    public HashStrategy getStrategy() {
+      return strategy;
+    }
+
+    public int getBuckets() {
+      return buckets;
+    }
+
+    public int getKeys() {
+      return keys;
+    }
+
+    public int getMinLoad() {
+      return minLoad;
+    }
+
+    public int getMaxLoad() {
+      return maxLoad;
+    }
+
+    /**
+     * Ratio between the most loaded bucket and the expected load per bucket. 1.0 is a perfect distribution.
+     *
+     * @return Key-distribution skew.
+     */
+    public double getSkew() {
+      return skew;
+    }
+
+    /**
+     * Chi-square statistic of the bucket loads, divided by its degrees of freedom. Close to 1.0 for a uniform hash.
+     *
+     * @return Normalized chi-square statistic.
+     */
+    public double getChiSquare() {
+      return chiSquare;
+    }
+
+    /**
+     * Average time in nanoseconds required to hash one key.
+     *
+     * @return ns/op
+     */
+    public double getNanosPerOp() {
+      return nanosPerOp;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-9s min=%d, max=%d, skew=%.3f, chi2/df=%.3f, %.1f ns/op", strategy.name(), minLoad, maxLoad, skew, chiSquare, nanosPerOp);
+    }
+  }
+}
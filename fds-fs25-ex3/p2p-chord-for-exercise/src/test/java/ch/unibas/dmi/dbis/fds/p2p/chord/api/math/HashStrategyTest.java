@@ -0,0 +1,65 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link HashStrategy} implementations against reference values and checks that they spread keys evenly.
+ */
+public class HashStrategyTest {
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testSha1ReferenceValue() {
+    /* SHA-1("abc") = a9993e36 4706816a ba3e2571 7850c26c 9cd0d89d */
+    final byte[] abc = bytes("abc");
+    Assertions.assertEquals(0xa9993e364706816aL, HashStrategy.SHA1.hash64(abc, 0, abc.length));
+  }
+
+  @Test
+  public void testMurmur3ReferenceValue() {
+    final byte[] foo = bytes("foo");
+    Assertions.assertEquals(0xe271865701f54561L, HashStrategy.MURMUR3.hash64(foo, 0, foo.length));
+    Assertions.assertEquals(0L, HashStrategy.MURMUR3.hash64(new byte[0], 0, 0));
+  }
+
+  @Test
+  public void testXxHash64ReferenceValue() {
+    Assertions.assertEquals(0xef46db3751d8e999L, HashStrategy.XXHASH64.hash64(new byte[0], 0, 0));
+    final byte[] abc = bytes("abc");
+    Assertions.assertEquals(0x44bc2cf5ad770999L, HashStrategy.XXHASH64.hash64(abc, 0, abc.length));
+  }
+
+  @Test
+  public void testOffsetIsRespected() {
+    final byte[] padded = bytes("--the quick brown fox jumps over the lazy dog--");
+    final byte[] plain = bytes("the quick brown fox jumps over the lazy dog");
+    for (HashStrategy strategy : new HashStrategy[]{HashStrategy.SHA1, HashStrategy.MURMUR3, HashStrategy.XXHASH64}) {
+      Assertions.assertEquals(strategy.hash64(plain, 0, plain.length), strategy.hash64(padded, 2, plain.length), strategy.name());
+    }
+  }
+
+  @Test
+  public void testDefaultHashFunctionIsSha1() {
+    Assertions.assertSame(HashStrategy.SHA1, new HashFunction(8).getStrategy());
+  }
+
+  @Test
+  public void testForName() {
+    Assertions.assertSame(HashStrategy.MURMUR3, HashStrategy.forName("Murmur3"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> HashStrategy.forName("md5"));
+  }
+
+  @Test
+  public void testUniformity() {
+    for (HashStrategy strategy : new HashStrategy[]{HashStrategy.SHA1, HashStrategy.MURMUR3, HashStrategy.XXHASH64}) {
+      final HashStrategyComparison.Result result = HashStrategyComparison.measure(strategy, 8, 64_000);
+      Assertions.assertTrue(result.getSkew() < 1.4, result.toString());
+      Assertions.assertTrue(result.getChiSquare() < 1.5, result.toString());
+    }
+  }
+}
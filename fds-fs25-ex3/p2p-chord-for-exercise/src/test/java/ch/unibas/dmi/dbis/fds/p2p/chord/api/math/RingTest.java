@@ -0,0 +1,45 @@
+package ch.unibas.dmi.dbis.fds.p2p.chord.api.math;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the primitive interval tests of {@link Ring} exhaustively on a circle of size 8, against a clockwise walk
+ * and against {@link CircularInterval}.
+ */
+public class RingTest {
+
+  private static final int SIZE = 8;
+
+  /**
+   * Reference: x is strictly inside, if it is reached when walking clockwise from a before reaching b.
+   */
+  private static boolean expected(int a, int b, int x, boolean leftClosed, boolean rightClosed) {
+    final int distance = Math.floorMod(b - a, SIZE) == 0 ? SIZE : Math.floorMod(b - a, SIZE);
+    final int offset = Math.floorMod(x - a, SIZE);
+    return (offset > 0 && offset < distance) || (leftClosed && x == a) || (rightClosed && x == b);
+  }
+
+  @Test
+  public void testExhaustive() {
+    for (int a = 0; a < SIZE; a++) {
+      for (int b = 0; b < SIZE; b++) {
+        for (int x = 0; x < SIZE; x++) {
+          final String msg = String.format("a=%d, b=%d, x=%d", a, b, x);
+          Assertions.assertEquals(expected(a, b, x, false, false), Ring.inOpen(a, b, x), msg);
+          Assertions.assertEquals(expected(a, b, x, false, true), Ring.inLeftOpen(a, b, x), msg);
+          Assertions.assertEquals(expected(a, b, x, true, false), Ring.inRightOpen(a, b, x), msg);
+          Assertions.assertEquals(expected(a, b, x, true, true), Ring.inClosed(a, b, x), msg);
+
+          Assertions.assertEquals(Ring.inOpen(a, b, x), CircularInterval.createOpen(a, b).contains(x), msg);
+          Assertions.assertEquals(Ring.inLeftOpen(a, b, x), CircularInterval.createLeftOpen(a, b).contains(x), msg);
+          Assertions.assertEquals(Ring.inRightOpen(a, b, x), CircularInterval.createRightOpen(a, b).contains(x), msg);
+          Assertions.assertEquals(Ring.inClosed(a, b, x), CircularInterval.createClosed(a, b).contains(x), msg);
+
+          Assertions.assertEquals(Ring.inLeftOpen(a, b, x), Ring.inLeftOpen((long) a, (long) b, (long) x), msg);
+          Assertions.assertEquals(Ring.inLeftOpen(a, b, x), Ring.inLeftOpen(Integer.valueOf(a), Integer.valueOf(b), Integer.valueOf(x)), msg);
+        }
+      }
+    }
+  }
+}
@@ -2,7 +2,26 @@ package ch.unibas.dmi.dbis.fds.p2p.chord.impl;
 
 import static ch.unibas.dmi.dbis.fds.p2p.chord.Utils.NUMBER_OF_BYTES;
 
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.ChordNode;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupFailedException;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.LookupStatistics;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.ReadStrategy;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.RoutingMode;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.HashMapStore;
 import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.StoredKey;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.HashStrategy;
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.math.Ring;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -98,8 +117,407 @@ public class ChordPeerTest {
     Assertions.assertEquals(6, fingerThreeSuccessor.getIndex());
   }
 
+  @Test
+  public void testFingerStarts(){
+    // n3: starts are 3+1, 3+2, 3+4 mod 8
+    Assertions.assertEquals(4, n3.finger().start(1));
+    Assertions.assertEquals(5, n3.finger().start(2));
+    Assertions.assertEquals(7, n3.finger().start(3));
+    Assertions.assertEquals(7, n3.finger().startIdentifier(3).getIndex());
+    Assertions.assertEquals(3, n3.finger().interval(3).getRightBound().getIndex());
+    Assertions.assertSame(n0, n3.finger().nodeOrNull(3));
+    Assertions.assertSame(n3.finger().node(1).get(), n3.finger().nodeOrNull(1));
+  }
+
+  @Test
+  public void testSuccessorListFailover(){
+    final ChordNetwork dynamic = new ChordNetwork(5, true, HashStrategy.SHA1, 3);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : new int[]{0, 4, 9, 13, 20, 27}) {
+      final ChordPeer peer = dynamic.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+    }
+    for (int round = 0; round < 20; round++) {
+      for (ChordPeer peer : peers) {
+        peer.stabilize();
+        peer.fixFingers();
+      }
+    }
+
+    final ChordPeer p4 = peers.get(1), p9 = peers.get(2), p13 = peers.get(3), p20 = peers.get(4);
+    Assertions.assertEquals(Arrays.asList(p9, p13, p20), p4.successorList());
+
+    // Two adjacent failures: 4 must fail over to 20 right away
+    p9.fail();
+    p13.fail();
+    Assertions.assertSame(p20, p4.liveSuccessor());
+    p4.checkSuccessor();
+    Assertions.assertSame(p20, p4.successor());
+    Assertions.assertSame(p20, peers.get(0).findSuccessor(peers.get(0), dynamic.getIdentifierCircle().getIdentifierAt(10)));
+  }
+
+  @Test
+  public void testBatchOperations(){
+    final Map<String, String> entries = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      entries.put("key-" + i, "value-" + i);
+    }
+    n1.storeAll(null, entries);
+
+    // Every key ends up where single-key routing would put it
+    int stored = 0;
+    for (ChordPeer peer : new ChordPeer[]{n0, n1, n3}) {
+      for (String key : peer.keys()) {
+        Assertions.assertSame(peer, n3.lookupNodeForItem(key));
+        stored++;
+      }
+    }
+    Assertions.assertEquals(entries.size(), stored);
+    Assertions.assertEquals(entries, n0.lookupAll(null, entries.keySet()));
+    Assertions.assertEquals("value-7", n3.lookup(null, "key-7").get());
+
+    final List<String> missing = Arrays.asList("key-1", "key-2", "no-such-key");
+    Assertions.assertEquals(2, n3.deleteAll(null, missing).size());
+    Assertions.assertEquals(entries.size() - 2, n0.lookupAll(null, entries.keySet()).size());
+    Assertions.assertFalse(n1.lookup(null, "key-1").isPresent());
+
+    // A peer that is not online cannot route batches
+    final ChordPeer offline = network.createChordPeer(5);
+    Assertions.assertThrows(IllegalStateException.class, () -> offline.storeAll(null, entries));
+    Assertions.assertThrows(IllegalStateException.class, () -> offline.lookupAll(null, missing));
+  }
+
+  @Test
+  public void testAsyncOperations(){
+    final List<CompletableFuture<Void>> stores = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      stores.add(n3.storeAsync(null, "key-" + i, "value-" + i));
+    }
+    CompletableFuture.allOf(stores.toArray(new CompletableFuture<?>[0])).join();
+
+    for (int i = 0; i < 50; i++) {
+      Assertions.assertEquals("value-" + i, n0.lookupAsync(null, "key-" + i).join().get());
+    }
+    Assertions.assertEquals("value-3", n1.deleteAsync(null, "key-3").join().get());
+    Assertions.assertFalse(n1.lookup(null, "key-3").isPresent());
 
+    final Identifier five = network.getIdentifierCircle().getIdentifierAt(5);
+    Assertions.assertSame(n0, n1.findSuccessorAsync(n1, five).join());
+    Assertions.assertSame(n1.findSuccessor(n1, five), n1.findSuccessorAsync(n1, five).join());
+
+    // A peer that is not online fails the futures instead of dereferencing a missing owner
+    final ChordPeer offline = network.createChordPeer(5);
+    final CompletionException e = Assertions.assertThrows(CompletionException.class,
+        () -> offline.storeAsync(null, "key-1", "value-1").join());
+    Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+    Assertions.assertTrue(e.getCause().getMessage().contains("OFFLINE"), e.getCause().getMessage());
+    Assertions.assertThrows(IllegalStateException.class, () -> offline.lookup(null, "key-1"));
+    Assertions.assertThrows(IllegalStateException.class, () -> offline.delete(null, "key-1"));
+  }
+
+  @Test
+  public void testRoutingModes(){
+    for (ChordPeer origin : new ChordPeer[]{n0, n1, n3}) {
+      for (int i = 0; i < network.size(); i++) {
+        final Identifier id = network.getIdentifierCircle().getIdentifierAt(i);
+        network.setRoutingMode(RoutingMode.ITERATIVE);
+        final LookupStatistics iterative = origin.traceSuccessor(id).join();
+        network.setRoutingMode(RoutingMode.RECURSIVE);
+        final LookupStatistics recursive = origin.traceSuccessor(id).join();
+
+        final String msg = String.format("origin=%d, id=%d", origin.getIdentifier().getIndex(), i);
+        Assertions.assertSame(origin.findSuccessor(origin, id), iterative.getOwner(), msg);
+        Assertions.assertSame(iterative.getOwner(), recursive.getOwner(), msg);
+        Assertions.assertEquals(iterative.getHops(), recursive.getHops(), msg);
+        Assertions.assertEquals(RoutingMode.RECURSIVE, recursive.getMode());
+        Assertions.assertTrue(recursive.getHops() <= network.getNbits(), msg);
+      }
+    }
+
+    // Data operations route recursively as well
+    n3.store(null, "key", "value");
+    Assertions.assertEquals("value", n0.lookup(null, "key").orElse(null));
+  }
+
+  @Test
+  public void testBoundedLookups(){
+    final Identifier two = network.getIdentifierCircle().getIdentifierAt(2);
+    final LookupStatistics resolved = n0.traceSuccessor(two).join();
+    Assertions.assertEquals(LookupStatistics.Outcome.RESOLVED, resolved.getOutcome());
+    Assertions.assertSame(n3, resolved.getOwner());
+
+    // A lookup without hop budget is aborted at the origin, which is the closest node reached
+    final int[] hopLimit = {Integer.MAX_VALUE};
+    final ChordNetwork bounded = new ChordNetwork(NUMBER_OF_BYTES, false) {
+      @Override
+      public int getLookupHopLimit() {
+        return hopLimit[0];
+      }
+    };
+    final ChordPeer b0 = bounded.createChordPeer(0);
+    final ChordPeer b1 = bounded.createChordPeer(1);
+    final ChordPeer b3 = bounded.createChordPeer(3);
+    b0.join(null);
+    b1.join(b0);
+    b3.join(b0);
+    hopLimit[0] = 0;
+
+    final LookupStatistics aborted = b0.traceSuccessor(two).join();
+    Assertions.assertEquals(LookupStatistics.Outcome.HOP_LIMIT_EXCEEDED, aborted.getOutcome());
+    Assertions.assertFalse(aborted.isResolved());
+    Assertions.assertNull(aborted.getOwner());
+    Assertions.assertSame(b0, aborted.getClosest());
+    final LookupFailedException failed = Assertions.assertThrows(LookupFailedException.class, () -> b0.findPredecessor(b0, two));
+    Assertions.assertSame(b0, failed.getStatistics().getClosest());
+    Assertions.assertThrows(LookupFailedException.class, () -> b0.findSuccessor(b0, two));
+
+    final CompletionException e = Assertions.assertThrows(CompletionException.class,
+        () -> b0.findSuccessorAsync(b0, two).join());
+    Assertions.assertTrue(e.getCause() instanceof LookupFailedException);
+    Assertions.assertEquals(LookupStatistics.Outcome.HOP_LIMIT_EXCEEDED, ((LookupFailedException) e.getCause()).getStatistics().getOutcome());
+
+    // Lookups that need no hop still resolve
+    Assertions.assertSame(b1, b0.traceSuccessor(b1.getIdentifier()).join().getOwner());
+  }
+
+  @Test
+  public void testReplication(){
+    final ChordNetwork replicated = new ChordNetwork(5, true, HashStrategy.SHA1, 3);
+    replicated.setReplication(3, 2, 2);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : new int[]{0, 4, 9, 13, 20, 27}) {
+      final ChordPeer peer = replicated.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+      stabilize(peers);
+    }
+    for (int i = 0; i < 100; i++) {
+      peers.get(i % peers.size()).store(null, "key-" + i, "value-" + i);
+    }
+    peers.get(1).store(null, "key-5", "updated");
 
+    // Every item has r copies
+    for (int i = 0; i < 100; i++) {
+      final StoredKey key = new StoredKey(replicated.getIdentifierCircle().identifierOf("key-" + i), "key-" + i);
+      int copies = 0;
+      for (ChordPeer peer : peers) {
+        if (peer.readReplicaAsync(peer, key).join() != null) {
+          copies++;
+        }
+      }
+      Assertions.assertEquals(3, copies, "key-" + i);
+    }
 
+    // Reads survive the failure of an owner without any re-store
+    final ChordPeer owner = (ChordPeer) peers.get(0).findSuccessor(peers.get(0), replicated.getIdentifierCircle().identifierOf("key-5"));
+    owner.fail();
+    peers.remove(owner);
+    stabilize(peers);
+    replicated.setReadStrategy(ReadStrategy.LEAST_LOADED);
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(i == 5 ? "updated" : "value-" + i, peers.get(i % peers.size()).lookup(null, "key-" + i).orElse(null));
+    }
 
+    // Deletes leave tombstones, which outlive the older copies
+    Assertions.assertEquals("updated", peers.get(2).delete(null, "key-5").orElse(null));
+    replicated.setReadStrategy(ReadStrategy.FIRST_RESPONDING);
+    for (ChordPeer peer : peers) {
+      Assertions.assertFalse(peer.lookup(null, "key-5").isPresent());
+    }
+    Assertions.assertThrows(IllegalArgumentException.class, () -> replicated.setReplication(5, 1, 1));
+  }
+
+  @Test
+  public void testGracefulLeaveKeepsReplicas(){
+    final ChordNetwork replicated = new ChordNetwork(5, true, HashStrategy.SHA1, 3);
+    replicated.setReplication(3, 2, 2);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : new int[]{0, 4, 9, 13, 20, 27}) {
+      final ChordPeer peer = replicated.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+      stabilize(peers);
+    }
+    for (int i = 0; i < 100; i++) {
+      peers.get(i % peers.size()).store(null, "key-" + i, "value-" + i);
+    }
+    assertCopies(3, 100, peers);
+
+    // The nodes moving up into the replica sets receive the copies right away, without anti-entropy
+    peers.remove(2).leave();
+    assertCopies(3, 100, peers);
+    peers.remove(0).leave();
+    assertCopies(3, 100, peers);
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals("value-" + i, peers.get(i % peers.size()).lookup(null, "key-" + i).orElse(null));
+    }
+  }
+
+  @Test
+  public void testAntiEntropy(){
+    final ChordNetwork replicated = new ChordNetwork(5, true, HashStrategy.SHA1, 3);
+    replicated.setStoreFactory(HashMapStore::new);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : new int[]{0, 4, 9, 13, 20, 27}) {
+      final ChordPeer peer = replicated.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+      stabilize(peers);
+    }
+    for (int i = 0; i < 100; i++) {
+      peers.get(i % peers.size()).store(null, "key-" + i, "value-" + i);
+    }
+
+    // Items written without replication are copied to both replicas by a single pass
+    replicated.setReplication(3, 1, 1);
+    Assertions.assertEquals(200, synchronize(peers));
+    Assertions.assertEquals(0, synchronize(peers));
+    assertCopies(3, 100, peers);
+
+    // Only the items that differ are exchanged
+    replicated.setReplication(1, 1, 1);
+    peers.get(0).store(null, "key-5", "updated");
+    peers.get(1).store(null, "key-100", "value-100");
+    replicated.setReplication(3, 1, 1);
+    Assertions.assertEquals(4, synchronize(peers));
+    Assertions.assertEquals(0, synchronize(peers));
+
+    // The successor of a failed owner takes over its copies and re-replicates them
+    final ChordPeer owner = (ChordPeer) peers.get(0).findSuccessor(peers.get(0), replicated.getIdentifierCircle().identifierOf("key-5"));
+    owner.fail();
+    peers.remove(owner);
+    peers.forEach(ChordPeer::checkPredecessor);
+    stabilize(peers);
+    Assertions.assertTrue(owner.successor().keys().contains("key-5"));
+    synchronize(peers);
+    assertCopies(3, 101, peers);
+    Assertions.assertEquals("updated", peers.get(0).lookup(null, "key-5").orElse(null));
+  }
+
+  @Test
+  public void testGracefulLeave(){
+    for (int i = 0; i < 200; i++) {
+      n0.store(null, "key-" + i, "value-" + i);
+    }
+    final int handedOver = n1.keys().size() + n3.keys().size();
+    n1.leave();
+    Assertions.assertTrue(n1.keys().isEmpty());
+    Assertions.assertEquals(handedOver, n3.keys().size());
+    Assertions.assertSame(n0, n3.predecessor());
+    Assertions.assertSame(n3, n0.successor());
+    Assertions.assertSame(n3, n0.finger().nodeOrNull(2));
+    assertKeysOwnedOnce(200, n0, n3);
+
+    n3.leave();
+    Assertions.assertEquals(200, n0.keys().size());
+    Assertions.assertSame(n0, n0.successor());
+    Assertions.assertEquals("value-7", n0.lookup(null, "key-7").orElse(null));
+  }
+
+  @Test
+  public void testJoinMovesKeys(){
+    for (int i = 0; i < 200; i++) {
+      n0.store(null, "key-" + i, "value-" + i);
+    }
+    final ChordPeer n5 = network.createChordPeer(5);
+    n5.join(n1);
+    assertKeysOwnedOnce(200, n0, n1, n3, n5);
+
+    // Same in a dynamic network, where keys move once the successor has accepted the new predecessor
+    final ChordNetwork dynamic = new ChordNetwork(5, true);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : new int[]{0, 9, 20}) {
+      final ChordPeer peer = dynamic.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+      stabilize(peers);
+    }
+    for (int i = 0; i < 200; i++) {
+      peers.get(0).store(null, "key-" + i, "value-" + i);
+    }
+    for (int index : new int[]{4, 27, 14}) {
+      final ChordPeer peer = dynamic.createChordPeer(index);
+      peer.join(peers.get(0));
+      peers.add(peer);
+      stabilize(peers);
+    }
+    assertKeysOwnedOnce(200, peers.toArray(new ChordPeer[0]));
+  }
+
+  @Test
+  public void testClosestPrecedingFinger(){
+    // n0's fingers are 1, 3, 0
+    Assertions.assertSame(n0, n0.closestPrecedingFinger(n0, network.getIdentifierCircle().getIdentifierAt(1)));
+    Assertions.assertSame(n1, n0.closestPrecedingFinger(n0, network.getIdentifierCircle().getIdentifierAt(2)));
+    Assertions.assertSame(n3, n0.closestPrecedingFinger(n0, network.getIdentifierCircle().getIdentifierAt(7)));
+    Assertions.assertSame(n3, n0.closestPrecedingFinger(n0, n0.getIdentifier()));
+
+    // Same result as scanning all fingers for the one closest to id, on a larger ring
+    final ChordNetwork large = new ChordNetwork(8, false);
+    final Random random = new Random(42);
+    final List<ChordPeer> peers = new ArrayList<>();
+    for (int index : random.ints(0, 256).distinct().limit(24).toArray()) {
+      final ChordPeer peer = large.createChordPeer(index);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+    }
+    for (ChordPeer peer : peers) {
+      for (int i = 0; i < 256; i++) {
+        final Identifier id = large.getIdentifierCircle().getIdentifierAt(i);
+        ChordNode expected = peer;
+        for (int k = 1; k <= 8; k++) {
+          final ChordNode finger = peer.finger().nodeOrNull(k);
+          if (Ring.inOpen(expected.id(), id, finger.id()) && Ring.inOpen(peer.id(), id, finger.id())) {
+            expected = finger;
+          }
+        }
+        Assertions.assertSame(expected, peer.closestPrecedingFinger(peer, id));
+      }
+    }
+  }
+
+  private static void stabilize(List<ChordPeer> peers) {
+    for (int round = 0; round < 10; round++) {
+      for (ChordPeer peer : peers) {
+        peer.stabilize();
+        peer.fixFingers();
+      }
+    }
+  }
+
+  private static int synchronize(List<ChordPeer> peers) {
+    int repaired = 0;
+    for (ChordPeer peer : peers) {
+      repaired += peer.synchronizeReplicas();
+    }
+    return repaired;
+  }
+
+  private static void assertCopies(int copies, int count, List<ChordPeer> peers) {
+    for (int i = 0; i < count; i++) {
+      final StoredKey key = new StoredKey(peers.get(0).getNetwork().getIdentifierCircle().identifierOf("key-" + i), "key-" + i);
+      int found = 0;
+      for (ChordPeer peer : peers) {
+        if (peer.readReplicaAsync(peer, key).join() != null) {
+          found++;
+        }
+      }
+      Assertions.assertEquals(copies, found, "key-" + i);
+    }
+  }
+
+  private static void assertKeysOwnedOnce(int count, ChordPeer... peers) {
+    final Set<String> seen = new HashSet<>();
+    for (ChordPeer peer : peers) {
+      for (String key : peer.keys()) {
+        Assertions.assertTrue(seen.add(key), "Duplicate key " + key);
+        Assertions.assertTrue(peer.isResponsibleFor(peer.getNetwork().getIdentifierCircle().identifierOf(key)));
+      }
+    }
+    Assertions.assertEquals(count, seen.size());
+    for (int i = 0; i < count; i++) {
+      Assertions.assertEquals("value-" + i, peers[i % peers.length].lookup(null, "key-" + i).orElse(null));
+    }
+  }
 }
@@ -0,0 +1,51 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import ch.unibas.dmi.dbis.fds.p2p.chord.api.data.Identifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link PeerRegistry} of a {@link SimulationNetwork}.
+ */
+public class PeerRegistryTest {
+
+  @Test
+  public void testIndexes() {
+    final SimulationNetwork network = new SimulationNetwork(16, false, null);
+    final Map<Integer, SimulationPeer> expected = new HashMap<>();
+    final Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      final int number = random.nextInt(network.size());
+      if (expected.containsKey(number)) {
+        network.remove(number);
+        expected.remove(number);
+      } else {
+        expected.put(number, network.createChordPeer(number));
+      }
+    }
+    Assertions.assertEquals(expected.size(), network.getPeerCount());
+    for (int number = 0; number < network.size(); number++) {
+      Assertions.assertEquals(expected.get(number), network.getSimulationPeer(number).orElse(null));
+    }
+
+    Identifier previous = null;
+    for (SimulationPeer peer : network.getSimulationPeers()) {
+      Assertions.assertTrue(previous == null || previous.compareTo(peer.getIdentifier()) < 0);
+      previous = peer.getIdentifier();
+    }
+
+    final Set<SimulationPeer> sampled = new HashSet<>();
+    for (int i = 0; i < 50 * expected.size(); i++) {
+      sampled.add(network.getRandomPeer());
+    }
+    Assertions.assertEquals(new HashSet<>(expected.values()), sampled);
+
+    final int taken = expected.keySet().iterator().next();
+    Assertions.assertThrows(IllegalArgumentException.class, () -> network.createChordPeer(taken));
+  }
+}
@@ -0,0 +1,60 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import ch.unibas.dmi.dbis.fds.p2p.simulation.SimulationEvent.EventType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link SimulationEngine} without a UI.
+ */
+public class SimulationEngineTest {
+
+  @Test
+  public void testHeadless() {
+    final SimulationEngine engine = new SimulationEngine(6, true);
+    final Map<EventType, Integer> counts = new EnumMap<>(EventType.class);
+    engine.addSimulationEventListener(event -> counts.merge(event.getType(), 1, Integer::sum));
+    engine.initNetwork();
+    Assertions.assertTrue(counts.isEmpty(), "the initial joins are not reported");
+
+    engine.simulate(10, TimeUnit.SECONDS);
+    // Steps are ROUND apart, but the blocking messages of a step take virtual time as well
+    Assertions.assertTrue(engine.getSimulationStep() > 10_000 / SimulationEngine.ROUND / 4, "steps: " + engine.getSimulationStep());
+    Assertions.assertTrue(engine.getSimulationStep() <= 10_000 / SimulationEngine.ROUND);
+    Assertions.assertTrue(counts.get(EventType.NOTIFY) > 0);
+
+    for (int i = 5; i < 60; i += 5) {
+      engine.nodeJoining(i);
+    }
+    engine.simulate(1, TimeUnit.MINUTES);
+    engine.storeData(0, "key", "value");
+    Assertions.assertEquals(Optional.of("value"), engine.lookupData(55, "key"));
+    Assertions.assertTrue(counts.get(EventType.STORE_DATA) > 0);
+  }
+
+  @Test
+  public void testConverge() {
+    final SimulationEngine engine = new SimulationEngine(8, true);
+    engine.initNetwork();
+    for (int i = 7; i < 256; i += 7) {
+      engine.nodeJoining(i);
+    }
+    engine.nodeLeaving(1);
+    engine.nodeLeaving(35);
+
+    final long before = engine.getNetwork().nanoTime();
+    final ConvergenceReport report = engine.converge(500, true);
+    Assertions.assertTrue(report.isConverged(), report.toString());
+    Assertions.assertEquals(37, report.getPeers());
+    Assertions.assertTrue(report.getRounds() > 0);
+    Assertions.assertEquals(report.getRounds(), engine.getSimulationStep());
+    Assertions.assertEquals(report.getVirtualTime(), engine.getNetwork().nanoTime() - before);
+
+    // A converged ring stays converged
+    Assertions.assertEquals(0, engine.converge(10, true).getRounds());
+  }
+}
@@ -0,0 +1,74 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link SimulationKernel} and {@link SimulationPeer}s communicating in its virtual time.
+ */
+public class SimulationKernelTest {
+
+  @Test
+  public void testOrder() {
+    final SimulationKernel kernel = new SimulationKernel();
+    final List<String> executed = new ArrayList<>();
+    kernel.schedule(20, TimeUnit.MILLISECONDS, () -> executed.add("c"));
+    kernel.schedule(10, TimeUnit.MILLISECONDS, () -> {
+      executed.add("a");
+      kernel.schedule(0, TimeUnit.MILLISECONDS, () -> executed.add("b"));
+    });
+    kernel.schedule(20, TimeUnit.MILLISECONDS, () -> executed.add("d"));
+    kernel.schedule(50, TimeUnit.MILLISECONDS, () -> executed.add("e"));
+
+    Assertions.assertEquals(4, kernel.run(30, TimeUnit.MILLISECONDS));
+    Assertions.assertEquals(List.of("a", "b", "c", "d"), executed);
+    Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(30), kernel.now());
+
+    // Advancing the clock delays due actions, but never executes them in the past
+    kernel.advance(40, TimeUnit.MILLISECONDS);
+    Assertions.assertTrue(kernel.step());
+    Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(70), kernel.now());
+    Assertions.assertFalse(kernel.step());
+
+    final CompletableFuture<String> reply = new CompletableFuture<>();
+    kernel.delayedExecutor(5, TimeUnit.MILLISECONDS).execute(() -> reply.complete("reply"));
+    Assertions.assertEquals("reply", kernel.await(reply).join());
+    Assertions.assertThrows(IllegalStateException.class, () -> kernel.await(new CompletableFuture<>()));
+  }
+
+  @Test
+  public void testVirtualTime() {
+    final SimulationNetwork network = new SimulationNetwork(10, false, null);
+    final List<SimulationPeer> peers = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      final SimulationPeer peer = network.createChordPeer(i * 16 + 3);
+      peer.join(peers.isEmpty() ? null : peers.get(0));
+      peers.add(peer);
+    }
+
+    final long start = System.nanoTime();
+    for (int i = 0; i < 500; i++) {
+      peers.get(i % peers.size()).store(null, "key-" + i, "value-" + i);
+    }
+    for (int i = 0; i < 500; i++) {
+      Assertions.assertEquals(Optional.of("value-" + i), peers.get((7 * i) % peers.size()).lookup(null, "key-" + i));
+    }
+
+    // Messages have taken minutes of virtual time, but no thread has waited for them
+    Assertions.assertTrue(network.getKernel().now() > TimeUnit.MINUTES.toNanos(1), network.getKernel().now() + " ns");
+    Assertions.assertTrue(network.getKernel().executed() > 1000);
+    Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20));
+
+    // Timeouts, like the deadlines of lookups, count virtual time as well and fire as actions of the kernel
+    final long armed = network.nanoTime();
+    final CompletableFuture<Long> timeout = new CompletableFuture<>();
+    network.delayedExecutor(10, TimeUnit.SECONDS).execute(() -> timeout.complete(network.nanoTime()));
+    Assertions.assertFalse(timeout.isDone());
+    Assertions.assertTrue(network.getKernel().await(timeout).join() - armed >= TimeUnit.SECONDS.toNanos(10));
+  }
+}
@@ -0,0 +1,123 @@
+package ch.unibas.dmi.dbis.fds.p2p.simulation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link WorkloadDriver} and its distributions.
+ */
+public class WorkloadDriverTest {
+
+  @Test
+  public void testSessionDistributions() {
+    final Random random = new Random(42);
+    // Means: exponential 10 s, Pareto 2 * 3 / (3 - 1) = 3 s, Weibull with shape 1 equals the exponential
+    Assertions.assertEquals(10.0, mean(SessionDistribution.exponential(10, TimeUnit.SECONDS), random), 0.3);
+    Assertions.assertEquals(3.0, mean(SessionDistribution.pareto(2, 3, TimeUnit.SECONDS), random), 0.1);
+    Assertions.assertEquals(5.0, mean(SessionDistribution.weibull(5, 1, TimeUnit.SECONDS), random), 0.15);
+    for (int i = 0; i < 1000; i++) {
+      Assertions.assertTrue(SessionDistribution.pareto(2, 0.5, TimeUnit.SECONDS).sample(random) >= 2_000_000_000L);
+    }
+    Assertions.assertThrows(IllegalArgumentException.class, () -> SessionDistribution.weibull(1, 0, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testKeyDistributions() {
+    final Random random = new Random(42);
+    final int[] zipf = histogram(KeyDistribution.zipf(100, 1.0), random);
+    Assertions.assertTrue(zipf[0] > 1.8 * zipf[1] && zipf[1] > zipf[9] && zipf[9] > zipf[99]);
+
+    final int[] hotspot = histogram(KeyDistribution.hotspot(100, 0.1, 0.9), random);
+    int hot = 0;
+    for (int r = 0; r < 10; r++) {
+      hot += hotspot[r];
+    }
+    Assertions.assertEquals(0.9, hot / 100_000.0, 0.01);
+
+    final int[] uniform = histogram(KeyDistribution.uniform(10), random);
+    for (int count : uniform) {
+      Assertions.assertEquals(10_000, count, 500);
+    }
+  }
+
+  @Test
+  public void testChurnAndTraffic() {
+    final SimulationEngine engine = new SimulationEngine(8, true);
+    engine.initNetwork();
+    final WorkloadDriver driver = new WorkloadDriver(engine,
+        SessionDistribution.weibull(2, 0.7, TimeUnit.MINUTES), SessionDistribution.exponential(1, TimeUnit.MINUTES),
+        32, KeyDistribution.zipf(50, 0.9), 5, 0.2, 42);
+    driver.start();
+    engine.simulate(10, TimeUnit.MINUTES);
+    driver.stop();
+
+    final WorkloadReport report = driver.report();
+    Assertions.assertTrue(report.getJoins() > 0 && report.getLeaves() > 0, report.toString());
+    Assertions.assertTrue(report.getLookups() > 100, report.toString());
+    Assertions.assertTrue(report.getSuccessRate() > 0.5, report.toString());
+    Assertions.assertTrue(report.getLatency(0.5) <= report.getLatency(0.99));
+    Assertions.assertTrue(report.getDuration() >= TimeUnit.MINUTES.toNanos(10));
+
+    // Nothing happens once the driver has stopped
+    engine.simulate(1, TimeUnit.MINUTES);
+    Assertions.assertEquals(report.getLookups(), driver.report().getLookups());
+    Assertions.assertThrows(IllegalStateException.class, driver::start);
+  }
+
+  @Test
+  public void testHighRate() {
+    final SimulationEngine engine = new SimulationEngine(8, true);
+    engine.initNetwork();
+    Assertions.assertTrue(engine.converge(100, true).isConverged());
+    final WorkloadDriver driver = new WorkloadDriver(engine,
+        SessionDistribution.exponential(1, TimeUnit.MINUTES), SessionDistribution.exponential(1, TimeUnit.MINUTES),
+        0, KeyDistribution.uniform(500), 1000, 0.2, 42);
+    driver.start();
+    engine.simulate(5, TimeUnit.SECONDS);
+    driver.stop();
+
+    // Operations overlap rather than run the kernel from within each other
+    final WorkloadReport report = driver.report();
+    Assertions.assertTrue(report.getLookups() + report.getStores() > 2500, report.toString());
+    Assertions.assertTrue(report.getLookups() > 1000, report.toString());
+    Assertions.assertTrue(report.getSuccessRate() > 0.9, report.toString());
+  }
+
+  @Test
+  public void testHighChurn() {
+    final SimulationEngine engine = new SimulationEngine(8, true);
+    engine.initNetwork();
+    Assertions.assertTrue(engine.converge(100, true).isConverged());
+    final WorkloadDriver driver = new WorkloadDriver(engine,
+        SessionDistribution.exponential(2, TimeUnit.SECONDS), SessionDistribution.exponential(2, TimeUnit.SECONDS),
+        64, KeyDistribution.uniform(50), 100, 0.2, 42);
+    driver.start();
+    engine.simulate(10, TimeUnit.SECONDS);
+    driver.stop();
+
+    // Churn runs alongside rather than within the simulation, which neither overruns nor starves the traffic. Sessions
+    // are shorter than it takes the maintenance to visit every peer, hence most lookups fail
+    final WorkloadReport report = driver.report();
+    Assertions.assertTrue(report.getDuration() < TimeUnit.SECONDS.toNanos(11), report.toString());
+    Assertions.assertTrue(report.getJoins() > 50 && report.getLeaves() > 50, report.toString());
+    Assertions.assertTrue(report.getLookups() + report.getStores() > 700, report.toString());
+  }
+
+  private static double mean(SessionDistribution distribution, Random random) {
+    double sum = 0.0;
+    for (int i = 0; i < 100_000; i++) {
+      sum += distribution.sample(random) / 1e9;
+    }
+    return sum / 100_000;
+  }
+
+  private static int[] histogram(KeyDistribution distribution, Random random) {
+    final int[] counts = new int[distribution.keys()];
+    for (int i = 0; i < 100_000; i++) {
+      counts[distribution.sample(random)]++;
+    }
+    return counts;
+  }
+}